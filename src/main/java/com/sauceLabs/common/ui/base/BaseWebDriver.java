@@ -1,7 +1,15 @@
 package com.sauceLabs.common.ui.base;
 
 import com.sauceLabs.common.utils.logs.MyLogger;
+import com.sauceLabs.common.utils.metrics.RunHistory;
+import com.sauceLabs.common.utils.metrics.RunMetrics;
+import com.sauceLabs.common.utils.profiling.BrowserResourceSampler;
+import com.sauceLabs.common.utils.profiling.LocatorProfiler;
 import com.sauceLabs.common.utils.properties.PropertiesManager;
+import com.sauceLabs.common.utils.screenshot.ScreencastRecorder;
+import com.sauceLabs.common.utils.tracing.CommandTracer;
+import com.sauceLabs.common.utils.tracing.DomTraceRecorder;
+import com.sauceLabs.common.utils.tracing.TimelineRecorder;
 import io.github.bonigarcia.wdm.WebDriverManager;
 
 import org.apache.logging.log4j.core.Logger;
@@ -14,9 +22,13 @@ import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.remote.CapabilityType;
 import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This is a base driver class used for managing WebDriver instances.
@@ -28,6 +40,14 @@ import java.util.HashMap;
 public class BaseWebDriver {
     public static Logger log = new MyLogger().getLogger();
     private static final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    private static final ThreadLocal<WebElement> lastElement = new ThreadLocal<>();
+    private static final ThreadLocal<String> browser = new ThreadLocal<>();
+    private static final String readStorageScript =
+            "function read(s) { var o = {}; for (var i = 0; i < s.length; i++) { var k = s.key(i); o[k] = s.getItem(k); } return o; } " +
+            "return {local: read(window.localStorage), session: read(window.sessionStorage)};";
+    private static final String writeStorageScript =
+            "function write(s, o) { for (var k in o) s.setItem(k, o[k]); } " +
+            "write(window.localStorage, arguments[0].local || {}); write(window.sessionStorage, arguments[0].session || {});";
     private final PropertiesManager propertiesManager = new PropertiesManager();
 
     /**
@@ -44,6 +64,107 @@ public class BaseWebDriver {
         return currentDriver;
     }
 
+    /**
+     * Finds the first element matching the locator in the current WebDriver,
+     * the lookup is recorded by the LocatorProfiler when profiling is enabled
+     * and the DOM before the interaction by the DomTraceRecorder when tracing is enabled.
+     *
+     * @param locator The By locator of the element.
+     * @return The first matching WebElement.
+     */
+    public WebElement findElement(By locator) {
+        DomTraceRecorder.record(getDriver(), locator);
+        if (!LocatorProfiler.isEnabled()) {
+            WebElement element = getDriver().findElement(locator);
+            lastElement.set(element);
+            return element;
+        }
+        long start = System.nanoTime();
+        WebElement element = null;
+        try {
+            element = getDriver().findElement(locator);
+            lastElement.set(element);
+            return element;
+        } finally {
+            // failed lookups are recorded with no match, they are usually the slowest ones
+            recordLookup(getDriver(), locator, System.nanoTime() - start, element);
+        }
+    }
+
+    /**
+     * Wraps a wait condition which resolves the locator, so every poll of the wait is recorded by the LocatorProfiler
+     * like a findElement lookup and a poll which resolves nothing is recorded with no match.
+     *
+     * @param locator   The By locator the condition resolves.
+     * @param condition The condition resolving the locator, e.g. ExpectedConditions.visibilityOfElementLocated(locator).
+     * @return The condition, profiled when profiling is enabled.
+     */
+    protected <T> ExpectedCondition<T> profiled(By locator, ExpectedCondition<T> condition) {
+        if (!LocatorProfiler.isEnabled()) {
+            return condition;
+        }
+        return new ExpectedCondition<>() {
+            @Override
+            public T apply(WebDriver webDriver) {
+                long start = System.nanoTime();
+                T result = null;
+                try {
+                    result = condition.apply(webDriver);
+                    return result;
+                } finally {
+                    recordLookup(webDriver, locator, System.nanoTime() - start, result);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return condition.toString();
+            }
+        };
+    }
+
+    private static void recordLookup(WebDriver webDriver, By locator, long nanos, Object result) {
+        int matchCount;
+        if (result == null) {
+            matchCount = 0;
+        } else if (result instanceof List<?> elements) {
+            matchCount = elements.size();
+        } else {
+            // probe the match count once per locator to detect ambiguous single element lookups
+            matchCount = LocatorProfiler.needsMatchCount(locator) ? webDriver.findElements(locator).size() : -1;
+        }
+        LocatorProfiler.record(locator, nanos, matchCount);
+    }
+
+    /**
+     * Retrieves the element of the last single element lookup in the current thread,
+     * i.e. the element the last SeleUtils/JSUtils action interacted with, it may be stale by now.
+     *
+     * @return The last looked up WebElement, or null if there was no lookup since the driver was opened.
+     */
+    public WebElement getLastElement() {
+        return lastElement.get();
+    }
+
+    /**
+     * Finds all elements matching the locator in the current WebDriver,
+     * the lookup is recorded by the LocatorProfiler when profiling is enabled
+     * and the DOM before the interaction by the DomTraceRecorder when tracing is enabled.
+     *
+     * @param locator The By locator of the elements.
+     * @return List of matching WebElements.
+     */
+    public List<WebElement> findElements(By locator) {
+        DomTraceRecorder.record(getDriver(), locator);
+        if (!LocatorProfiler.isEnabled()) {
+            return getDriver().findElements(locator);
+        }
+        long start = System.nanoTime();
+        List<WebElement> elements = getDriver().findElements(locator);
+        LocatorProfiler.record(locator, System.nanoTime() - start, elements.size());
+        return elements;
+    }
+
     /**
      * Checks if the browser is available and opened.
      *
@@ -84,7 +205,11 @@ public class BaseWebDriver {
         } else {
             log.warn("WebDriver instance is not active. No need to quit.");
         }
+        if (driver.get() != null) {
+            RunMetrics.sessionClosed();
+        }
         driver.remove();
+        lastElement.remove();
     }
 
 
@@ -100,17 +225,75 @@ public class BaseWebDriver {
     public WebDriver openBrowser(String browserName) {
         log.info("Opening {} browser", browserName);
         String localOS = System.getProperty("os.name").toLowerCase();
+        long start = System.nanoTime();
+        String status = "failed";
+        browser.set(browserName);
+        RunHistory.browserOpened(browserName);
+        try {
+            if (localOS.contains("windows")) {
+                openWindowsBrowser(browserName);
+            } else {
+                openUnixBrowser(browserName);
+            }
+            if (!isDriverActive()) {
+                log.error("Failed to open {} browser on {} OS.", browserName, localOS);
+                throw new WebDriverException("Failed to initialize WebDriver.");
+            }
+            status = "opened";
+        } finally {
+            TimelineRecorder.record("browser", status, "open " + browserName, start);
+        }
+        ScreencastRecorder.startRecording(unwrap(driver.get()));
+        return driver.get();
+    }
 
-        if (localOS.contains("windows")) {
-            openWindowsBrowser(browserName);
-        } else {
-            openUnixBrowser(browserName);
+
+    /**
+     * Replaces the browser of the current thread with a new one of the same type, used to recycle a browser which grew too large,
+     * the current URL, its cookies and the local and session storage of its origin are carried over
+     * (saucedemo keeps the cart in localStorage), the screencast and the DOM trace go on with the new browser.
+     *
+     * @return The WebDriver instance of the new browser.
+     */
+    @SuppressWarnings("unchecked")
+    public WebDriver recycleDriver() {
+        String browserName = browser.get();
+        String url = null;
+        List<Cookie> cookies = new ArrayList<>();
+        Map<String, Object> storage = null;
+        if (isDriverActive()) {
+            url = getDriver().getCurrentUrl();
+            cookies.addAll(getDriver().manage().getCookies());
+            try {
+                storage = (Map<String, Object>) ((JavascriptExecutor) getDriver()).executeScript(readStorageScript);
+            } catch (WebDriverException e) {
+                log.debug("Web storage could not be read: {}", e.getMessage());
+            }
         }
-        if (!isDriverActive()) {
-            log.error("Failed to open {} browser on {} OS.", browserName, localOS);
-            throw new WebDriverException("Failed to initialize WebDriver.");
+        log.info("Recycling {} browser at {}", browserName, url);
+        quitAndRemoveDriver();
+        WebDriver newDriver = openBrowser(browserName);
+        if (url != null && url.startsWith("http")) {
+            newDriver.get(url);
+            for (Cookie cookie : cookies) {
+                try {
+                    newDriver.manage().addCookie(cookie);
+                } catch (WebDriverException e) {
+                    log.debug("Cookie {} could not be restored: {}", cookie.getName(), e.getMessage());
+                }
+            }
+            if (storage != null) {
+                try {
+                    ((JavascriptExecutor) newDriver).executeScript(writeStorageScript, storage);
+                } catch (WebDriverException e) {
+                    log.debug("Web storage could not be restored: {}", e.getMessage());
+                }
+            }
+            newDriver.navigate().refresh();
         }
-        return driver.get();
+        ScreencastRecorder.switchDriver(unwrap(newDriver));
+        DomTraceRecorder.browserReplaced(newDriver);
+        return newDriver;
     }
 
 
@@ -271,7 +454,25 @@ public class BaseWebDriver {
                 webDriver = new ChromeDriver(defaultChromeOptions);
                 break;
         }
+        webDriver = CommandTracer.decorate(webDriver);
         driver.set(webDriver);
+        RunMetrics.sessionOpened();
+        BrowserResourceSampler.track(webDriver, browserName);
+        return webDriver;
+    }
+
+
+    /**
+     * Returns the browser specific driver behind decorators such as the command tracer,
+     * needed for 'instanceof' checks like ChromiumDriver, commands sent through it are not traced.
+     *
+     * @param webDriver The WebDriver, possibly decorated.
+     * @return The innermost WebDriver.
+     */
+    public static WebDriver unwrap(WebDriver webDriver) {
+        while (webDriver instanceof WrapsDriver) {
+            webDriver = ((WrapsDriver) webDriver).getWrappedDriver();
+        }
         return webDriver;
     }
 
@@ -2,6 +2,9 @@ package com.sauceLabs.common.ui.uiAutomation;
 
 import com.sauceLabs.common.ui.base.BaseWebDriver;
 import com.sauceLabs.common.utils.helpers.DataList;
+import com.sauceLabs.common.utils.profiling.Timed;
+import com.sauceLabs.common.utils.timer.LatencyRecorder;
+import com.sauceLabs.common.utils.timer.MyTimer;
 import org.junit.jupiter.api.Assertions;
 import org.openqa.selenium.Cookie;
 
@@ -17,6 +20,7 @@ import java.util.Set;
  *
  * @author MahmoudOsama
  */
+@Timed
 public class BrowserWinUtils extends BaseWebDriver {
     private static ThreadLocal<DataList> tabs = new ThreadLocal<DataList>() {
         @Override
@@ -25,6 +29,10 @@ public class BrowserWinUtils extends BaseWebDriver {
         }
     };
     private final JSUtils jsUtils = new JSUtils();
+    private static final LatencyRecorder navigateTimer = MyTimer.recorder("navigation.to");
+    private static final LatencyRecorder refreshTimer = MyTimer.recorder("navigation.refresh");
+    private static final LatencyRecorder backTimer = MyTimer.recorder("navigation.back");
+    private static final LatencyRecorder forwardTimer = MyTimer.recorder("navigation.forward");
 
 
     /**
@@ -48,12 +56,15 @@ public class BrowserWinUtils extends BaseWebDriver {
      * @param url the URL to navigate to.
      */
     public void navigateToUrl(String url) {
+        long navigateStart = System.nanoTime();
         try {
             getDriver().navigate().to(url);
             log.info("Navigated to URL: {}", url);
         } catch (Exception e) {
             log.error("Failed to navigate to URL: {}", url, e);
             Assertions.fail("Failed to navigate to URL: " + url);
+        } finally {
+            navigateTimer.record(System.nanoTime() - navigateStart);
         }
     }
 
@@ -62,6 +73,7 @@ public class BrowserWinUtils extends BaseWebDriver {
      * Method to refresh the current page and wait for the document to be fully loaded.
      */
     public void refreshPage() {
+        long refreshStart = System.nanoTime();
         try {
             getDriver().navigate().refresh();
             log.info("Page refreshed successfully.");
@@ -70,6 +82,8 @@ public class BrowserWinUtils extends BaseWebDriver {
         } catch (Exception e) {
             log.error("Failed to refresh the page.", e);
             Assertions.fail("Failed to refresh the page: " + e.getMessage());
+        } finally {
+            refreshTimer.record(System.nanoTime() - refreshStart);
         }
     }
 
@@ -77,6 +91,7 @@ public class BrowserWinUtils extends BaseWebDriver {
      * Method to navigate to the previous page in the browser history and wait for the document to be fully loaded.
      */
     public void navigateBack() {
+        long backStart = System.nanoTime();
         try {
             getDriver().navigate().back();
             log.info("Navigated back to the previous page successfully.");
@@ -85,6 +100,8 @@ public class BrowserWinUtils extends BaseWebDriver {
         } catch (Exception e) {
             log.error("Failed to navigate back.", e);
             Assertions.fail("Failed to navigate back: " + e.getMessage());
+        } finally {
+            backTimer.record(System.nanoTime() - backStart);
         }
     }
 
@@ -93,6 +110,7 @@ public class BrowserWinUtils extends BaseWebDriver {
      * Method to navigate to the next page in the browser history and wait for the document to be fully loaded.
      */
     public void navigateForward() {
+        long forwardStart = System.nanoTime();
         try {
             getDriver().navigate().forward();
             log.info("Navigated forward to the next page successfully.");
@@ -102,6 +120,8 @@ public class BrowserWinUtils extends BaseWebDriver {
             log.error("Failed to navigate forward.", e);
             Assertions.fail("Failed to navigate forward: " + e.getMessage());
 
+        } finally {
+            forwardTimer.record(System.nanoTime() - forwardStart);
         }
     }
 
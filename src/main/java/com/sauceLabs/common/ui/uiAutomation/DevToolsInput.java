@@ -0,0 +1,202 @@
+package com.sauceLabs.common.ui.uiAutomation;
+
+import com.sauceLabs.common.ui.base.BaseWebDriver;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * input backend built on the Chrome DevTools Protocol 'Input' domain,
+ * text is inserted with one 'Input.insertText' command and mouse gestures are sent as raw mouse/drag events,
+ * raw commands are used instead of the generated devtools classes so it does not depend on a CDP version
+ *
+ * @author MahmoudOsama
+ */
+public class DevToolsInput extends BaseWebDriver {
+    private static final int dragSteps = 5;
+    private static final long dragInterceptTimeoutMs = Long.getLong("DevToolsInput.DragInterceptMs", 250);
+    private static final Event<Map<String, Object>> dragIntercepted =
+            new Event<>("Input.dragIntercepted", input -> input.read(Json.MAP_TYPE));
+    // the drag of the session in progress, completed on the devtools listener thread when the browser intercepts it
+    private static final Map<DevTools, AtomicReference<CompletableFuture<Map<String, Object>>>> interceptedDrags =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    // dragstart runs in the page while the mouse event is dispatched, so the page tells right away whether a native drag started
+    private static final String armDragStartScript =
+            "window.__devToolsDragStart = null; " +
+            "window.__devToolsDragListener = function(e) { window.__devToolsDragStart = e; }; " +
+            "window.addEventListener('dragstart', window.__devToolsDragListener, true);";
+    private static final String dragStartedScript =
+            "var e = window.__devToolsDragStart; " +
+            "if (e || arguments[0]) { window.removeEventListener('dragstart', window.__devToolsDragListener, true); " +
+            "  delete window.__devToolsDragStart; delete window.__devToolsDragListener; } " +
+            "return !!e && !e.defaultPrevented;";
+
+    /**
+     * Checks whether the given backend can be used with the current browser,
+     * DevTools input is only available for Chromium based browsers (chrome, edge).
+     *
+     * @param backend requested backend
+     * @return true if the DevTools backend should be used, false to use the WebDriver path
+     */
+    public boolean isActive(InputBackend backend) {
+        if (backend != InputBackend.DEVTOOLS) {
+            return false;
+        }
+        if (unwrap(getDriver()) instanceof ChromiumDriver) {
+            return true;
+        }
+        log.info("DevTools input is not supported for {}, falling back to WebDriver input", getDriver().getClass().getSimpleName());
+        return false;
+    }
+
+    /**
+     * Focuses the element then inserts the whole text with one 'Input.insertText' command.
+     *
+     * @param element target WebElement
+     * @param text    text to insert
+     */
+    public void insertText(WebElement element, String text) {
+        ((JavascriptExecutor) getDriver()).executeScript("arguments[0].focus();", element);
+        send("Input.insertText", params("text", text));
+    }
+
+    /**
+     * Presses the left mouse button at the center of the element and keeps it pressed.
+     *
+     * @param element target WebElement
+     */
+    public void clickAndHold(WebElement element) {
+        double[] point = center(element);
+        mouse("mouseMoved", point, 0);
+        mouse("mousePressed", point, 1);
+    }
+
+    /**
+     * Moves the mouse pointer to the center of the element.
+     *
+     * @param element target WebElement
+     */
+    public void moveTo(WebElement element) {
+        mouse("mouseMoved", center(element), 0);
+    }
+
+    /**
+     * Drags the source element onto the target element.
+     * Drags are intercepted so native HTML5 drag and drop is replayed with 'Input.dispatchDragEvent',
+     * after every move the page is asked whether a 'dragstart' started a native drag, only then the 'Input.dragIntercepted' event
+     * is awaited on the devtools listener thread for up to 'DevToolsInput.DragInterceptMs' (default 250),
+     * mouse based drag libraries never start one and are served by the raw mouse events without waiting.
+     *
+     * @param source element to drag
+     * @param target element to drop on
+     */
+    public void dragAndDrop(WebElement source, WebElement target) {
+        DevTools devTools = devTools();
+        AtomicReference<CompletableFuture<Map<String, Object>>> currentDrag = interceptedDrags.get(devTools);
+        if (currentDrag == null) {
+            // listeners can only be cleared all at once, so register a single drag listener per session
+            AtomicReference<CompletableFuture<Map<String, Object>>> sessionDrag = new AtomicReference<>(new CompletableFuture<>());
+            interceptedDrags.put(devTools, sessionDrag);
+            devTools.addListener(dragIntercepted, drag -> sessionDrag.get().complete(drag));
+            currentDrag = sessionDrag;
+        }
+        CompletableFuture<Map<String, Object>> dragData = new CompletableFuture<>();
+        currentDrag.set(dragData);
+        JavascriptExecutor js = (JavascriptExecutor) getDriver();
+        send("Input.setInterceptDrags", params("enabled", true));
+        js.executeScript(armDragStartScript);
+        try {
+            double[] from = center(source);
+            double[] to = center(target);
+            mouse("mouseMoved", from, 0);
+            mouse("mousePressed", from, 1);
+            for (int step = 1; step <= dragSteps; step++) {
+                double[] point = {from[0] + (to[0] - from[0]) * step / dragSteps, from[1] + (to[1] - from[1]) * step / dragSteps};
+                mouse("mouseMoved", point, 1);
+                // the browser starts a drag only once the pointer moved a few pixels, so every step is checked
+                if (Boolean.TRUE.equals(js.executeScript(dragStartedScript, step == dragSteps))) {
+                    Map<String, Object> drag = awaitDrag(dragData);
+                    if (drag != null) {
+                        log.info("Native drag intercepted, replaying it with drag events");
+                        for (String type : List.of("dragEnter", "dragOver", "drop")) {
+                            send("Input.dispatchDragEvent", params("type", type, "x", to[0], "y", to[1], "data", drag.get("data")));
+                        }
+                        break;
+                    }
+                }
+            }
+            mouse("mouseReleased", to, 0);
+        } finally {
+            send("Input.setInterceptDrags", params("enabled", false));
+        }
+    }
+
+    /**
+     * @return the intercepted drag, null if the browser did not start a native drag within the timeout
+     */
+    private static Map<String, Object> awaitDrag(CompletableFuture<Map<String, Object>> dragData) {
+        try {
+            return dragData.get(dragInterceptTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Scrolls the element into view and returns its center point in viewport CSS pixels.
+     */
+    private double[] center(WebElement element) {
+        List<?> point = (List<?>) ((JavascriptExecutor) getDriver()).executeScript(
+                "arguments[0].scrollIntoView({block: 'center', inline: 'center'}); " +
+                "var r = arguments[0].getBoundingClientRect(); " +
+                "return [r.left + r.width / 2, r.top + r.height / 2];", element);
+        return new double[]{((Number) point.get(0)).doubleValue(), ((Number) point.get(1)).doubleValue()};
+    }
+
+    private void mouse(String type, double[] point, int buttons) {
+        send("Input.dispatchMouseEvent", params("type", type, "x", point[0], "y", point[1],
+                "button", type.equals("mouseMoved") ? "none" : "left",
+                "buttons", buttons, "clickCount", type.equals("mouseMoved") ? 0 : 1));
+    }
+
+    private void send(String method, Map<String, Object> params) {
+        devTools().send(new Command<Void>(method, params));
+    }
+
+    private DevTools devTools() {
+        WebDriver currentDriver = unwrap(getDriver());
+        DevTools devTools = ((HasDevTools) currentDriver).getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        return devTools;
+    }
+
+    private static Map<String, Object> params(Object... keyValues) {
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            params.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+}
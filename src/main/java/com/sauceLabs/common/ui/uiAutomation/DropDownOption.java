@@ -0,0 +1,41 @@
+package com.sauceLabs.common.ui.uiAutomation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * snapshot of a single native dropdown option as read in-page by {@link JSUtils},
+ * avoids a round trip per option for text, value and selected state
+ *
+ * @param index    position of the option inside the select element
+ * @param value    value attribute of the option
+ * @param text     normalized visible text of the option
+ * @param selected whether the option is currently selected
+ * @author MahmoudOsama
+ */
+public record DropDownOption(int index, String value, String text, boolean selected) {
+
+    /**
+     * Converts the raw list of maps returned from a dropdown script into option records.
+     *
+     * @param rawOptions list of maps with 'index', 'value', 'text' and 'selected' keys
+     * @return list of DropDownOption, empty if nothing was returned
+     */
+    @SuppressWarnings("unchecked")
+    static List<DropDownOption> fromScriptResult(Object rawOptions) {
+        List<DropDownOption> options = new ArrayList<>();
+        if (!(rawOptions instanceof List<?> list)) {
+            return options;
+        }
+        for (Object item : list) {
+            Map<String, Object> option = (Map<String, Object>) item;
+            options.add(new DropDownOption(
+                    ((Number) option.get("index")).intValue(),
+                    String.valueOf(option.get("value")),
+                    String.valueOf(option.get("text")),
+                    Boolean.TRUE.equals(option.get("selected"))));
+        }
+        return options;
+    }
+}
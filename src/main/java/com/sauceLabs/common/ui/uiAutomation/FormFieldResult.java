@@ -0,0 +1,23 @@
+package com.sauceLabs.common.ui.uiAutomation;
+
+import org.openqa.selenium.By;
+
+import java.util.Objects;
+
+/**
+ * verification result of a single field filled by {@link SeleUtils#fillForm}
+ *
+ * @param locator  locator of the field
+ * @param expected value requested for the field
+ * @param actual   value read back from the field after filling, null if the field was not found
+ * @author MahmoudOsama
+ */
+public record FormFieldResult(By locator, String expected, String actual) {
+
+    /**
+     * @return true if the value read back from the field equals the requested value
+     */
+    public boolean isMatched() {
+        return Objects.equals(expected, actual);
+    }
+}
@@ -0,0 +1,29 @@
+package com.sauceLabs.common.ui.uiAutomation;
+
+/**
+ * backends used for typing, clicking and dragging,
+ * the global default is read from the 'InputBackend' system property and can be overridden per call
+ *
+ * @author MahmoudOsama
+ */
+public enum InputBackend {
+    /**
+     * classic WebDriver sendKeys and Actions
+     */
+    WEBDRIVER,
+    /**
+     * Chrome DevTools Protocol Input domain, Chromium browsers only
+     */
+    DEVTOOLS;
+
+    private static volatile InputBackend defaultBackend =
+            InputBackend.valueOf(System.getProperty("InputBackend", "WEBDRIVER").toUpperCase());
+
+    public static InputBackend getDefault() {
+        return defaultBackend;
+    }
+
+    public static void setDefault(InputBackend backend) {
+        defaultBackend = backend;
+    }
+}
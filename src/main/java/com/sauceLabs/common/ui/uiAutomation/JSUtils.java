@@ -1,6 +1,11 @@
 package com.sauceLabs.common.ui.uiAutomation;
 
 import com.sauceLabs.common.ui.base.BaseWebDriver;
+import com.sauceLabs.common.utils.metrics.RunMetrics;
+import com.sauceLabs.common.utils.profiling.Timed;
+import com.sauceLabs.common.utils.profiling.WaitEvent;
+import com.sauceLabs.common.utils.timer.LatencyRecorder;
+import com.sauceLabs.common.utils.timer.MyTimer;
 import org.junit.jupiter.api.Assertions;
 import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.Actions;
@@ -10,25 +15,68 @@ import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * this class contains javascript scripts for handling web based application
  *
  * @author MahmoudOsama
  */
+@Timed
 public class JSUtils extends BaseWebDriver {
     private static final int defaultTimeoutInSec = 30;
+    private static final LatencyRecorder waitTimer = MyTimer.recorder("wait");
+    private static final LatencyRecorder navigateTimer = MyTimer.recorder("navigation.to");
+    private final DevToolsInput devToolsInput = new DevToolsInput();
 
     /****************************
      * Wait Methods for Elements
      * *************************/
 
+    /**
+     * wait until the condition is satisfied, the wait is recorded as a flight recorder WaitEvent
+     *
+     * @param condition  condition of the event, only converted to text when it is recorded
+     * @param target     element or locator of the condition, null if it is about the page
+     * @param timeoutSec timeout in seconds
+     * @param expectation condition to wait for
+     * @return value returned by the condition
+     */
+    private <T> T waitUntil(Object condition, Object target, int timeoutSec, Function<? super WebDriver, T> expectation) {
+        WaitEvent waitEvent = WaitEvent.start();
+        String outcome = "error";
+        long waitStart = System.nanoTime();
+        try {
+            T result = new WebDriverWait(getDriver(), Duration.ofSeconds(timeoutSec)).until(expectation);
+            outcome = "satisfied";
+            return result;
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            RunMetrics.waitTimedOut();
+            throw e;
+        } finally {
+            waitTimer.record(System.nanoTime() - waitStart);
+            waitEvent.finish(condition, target, timeoutSec, outcome);
+        }
+    }
+
+    /**
+     * wait until the expected condition is satisfied, the condition itself is the condition name of the WaitEvent
+     *
+     * @param condition  condition to wait for
+     * @param timeoutSec timeout in seconds
+     * @return value returned by the condition
+     */
+    private <T> T waitUntil(ExpectedCondition<T> condition, int timeoutSec) {
+        return waitUntil(condition, null, timeoutSec, condition);
+    }
+
     /**
      * wait for page html to be loaded
      */
     public void waitDocumentReady(int ...timeoutSec) {
         int waitTime = (timeoutSec.length > 0 && timeoutSec[0] >= 0) ? timeoutSec[0] : defaultTimeoutInSec;
-        new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime)).until(driver -> {
+        waitUntil("document ready", null, waitTime, driver -> {
             JavascriptExecutor js = (JavascriptExecutor) driver;
             return js.executeScript("return document.readyState").toString().equals("complete");
         });
@@ -41,12 +89,12 @@ public class JSUtils extends BaseWebDriver {
         int waitTime = (timeoutSec.length > 0 && timeoutSec[0] >= 0) ? timeoutSec[0] : defaultTimeoutInSec;
         waitDocumentReady(waitTime);
         // Now, handle all iframes
-        List<WebElement> frames = getDriver().findElements(By.tagName("iframe"));
+        List<WebElement> frames = findElements(By.tagName("iframe"));
         for (WebElement frame : frames) {
             // Switch to each iframe
             getDriver().switchTo().frame(frame);
             // Wait for the iframe's document to be fully loaded
-            new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime)).until(new ExpectedCondition<Boolean>() {
+            waitUntil("frame document ready", frame, waitTime, new ExpectedCondition<Boolean>() {
                 public Boolean apply(WebDriver d) {
                     JavascriptExecutor js = (JavascriptExecutor) d;
                     return js.executeScript("return document.readyState").toString().equals("complete");
@@ -66,7 +114,7 @@ public class JSUtils extends BaseWebDriver {
         waitDocumentReady(waitTime);
         if (executeScript(" return typeof(jQuery)=='undefined'", new Object[]{}).get(0).toString().equals("true"))
             return;
-        new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime)).until(new ExpectedCondition<Boolean>() {
+        waitUntil("ajax idle", null, waitTime, new ExpectedCondition<Boolean>() {
             public Boolean apply(WebDriver d) {
                 JavascriptExecutor js = (JavascriptExecutor) d;
                 return (Boolean) js.executeScript("return typeof(jQuery)!='undefined' && jQuery.active == 0");
@@ -84,14 +132,14 @@ public class JSUtils extends BaseWebDriver {
         waitDocumentReadyIncludingFrames(waitTime);
         waitForAjax(waitTime);
         // Wait for AJAX requests in all iframes
-        List<WebElement> frames = getDriver().findElements(By.tagName("iframe"));
+        List<WebElement> frames = findElements(By.tagName("iframe"));
         for (WebElement frame : frames) {
             getDriver().switchTo().frame(frame);
             if (executeScript("return typeof(jQuery)=='undefined'", new Object[]{}).get(0).toString().equals("true")) {
                 getDriver().switchTo().defaultContent();
                 continue;
             }
-            new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime)).until(new ExpectedCondition<Boolean>() {
+            waitUntil("frame ajax idle", frame, waitTime, new ExpectedCondition<Boolean>() {
                 public Boolean apply(WebDriver d) {
                     JavascriptExecutor js = (JavascriptExecutor) d;
                     return (Boolean) js.executeScript("return typeof(jQuery)!='undefined' && jQuery.active == 0");
@@ -122,8 +170,7 @@ public class JSUtils extends BaseWebDriver {
                 }
             }
         };
-        WebDriverWait wait = new WebDriverWait(getDriver(), Duration.ofSeconds(7));
-        wait.until(expectation);
+        waitUntil(isDisplayed ? "element displayed" : "element hidden", elem, 7, expectation);
     }
 
 
@@ -144,8 +191,7 @@ public class JSUtils extends BaseWebDriver {
             }
         };
         try {
-            WebDriverWait wait = new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime));
-            wait.until(expectation);
+            waitUntil("element has attribute", element, waitTime, expectation);
         } catch (TimeoutException timeoutException) {
             log.error("Timeout waiting for Page Load Request to complete.", timeoutException);
         } catch (Throwable error) {
@@ -175,8 +221,7 @@ public class JSUtils extends BaseWebDriver {
             }
         };
         try {
-            WebDriverWait wait = new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime));
-            wait.until(expectation);
+            waitUntil("element attribute contains value", webElement, waitTime, expectation);
         } catch (TimeoutException e) {
             log.error("Timeout waiting for attribute '{}' to contain value '{}'.", attribName, attributeValue, e);
         } catch (Exception e) {
@@ -213,8 +258,7 @@ public class JSUtils extends BaseWebDriver {
                 return j.executeScript(sc, elemContainer, selector).toString().contains(isCountMoreThan0.toString());
             }
         };
-        WebDriverWait wait = new WebDriverWait(getDriver(), Duration.ofSeconds(maxWaitSec));
-        wait.until(expectation);
+        waitUntil(isCountMoreThan0 ? "selector displayed" : "selector hidden", selector, maxWaitSec, expectation);
     }
 
     /**
@@ -232,8 +276,7 @@ public class JSUtils extends BaseWebDriver {
                 return j.executeScript("return !!(document.getElementsByClassName('" + className + "')[0].offsetParent)").toString().contains(isDisplayed.toString());
             }
         };
-        WebDriverWait wait = new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime));
-        wait.until(expectation);
+        waitUntil(isDisplayed ? "class displayed" : "class hidden", className, waitTime, expectation);
     }
 
 
@@ -329,7 +372,7 @@ public class JSUtils extends BaseWebDriver {
     public void click(Object element) {
         WebElement webElement;
         if (element instanceof By) {
-            webElement = getDriver().findElement((By) element);
+            webElement = findElement((By) element);
         } else if (element instanceof WebElement) {
             webElement = (WebElement) element;
         } else {
@@ -351,7 +394,7 @@ public class JSUtils extends BaseWebDriver {
     public void doubleClick(Object element) {
         WebElement webElement;
         if (element instanceof By) {
-            webElement = getDriver().findElement((By) element);
+            webElement = findElement((By) element);
         } else if (element instanceof WebElement) {
             webElement = (WebElement) element;
         } else {
@@ -372,12 +415,10 @@ public class JSUtils extends BaseWebDriver {
         int waitTime = (timeoutSec.length > 0 && timeoutSec[0] >= 0) ? timeoutSec[0] : defaultTimeoutInSec;
         WebElement webElement;
         if (element instanceof By) {
-            webElement = new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOfElementLocated((By) element));
+            webElement = waitUntil(profiled((By) element, ExpectedConditions.visibilityOfElementLocated((By) element)), waitTime);
         } else if (element instanceof WebElement) {
             webElement = (WebElement) element;
-            new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOf(webElement));
+            waitUntil(ExpectedConditions.visibilityOf(webElement), waitTime);
         } else {
             throw new IllegalArgumentException("Unsupported element type: " + element.getClass().getName());
         }
@@ -399,12 +440,10 @@ public class JSUtils extends BaseWebDriver {
         int waitTime = (timeoutSec.length > 0 && timeoutSec[0] >= 0) ? timeoutSec[0] : defaultTimeoutInSec;
         WebElement webElement;
         if (element instanceof By) {
-            webElement = new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOfElementLocated((By) element));
+            webElement = waitUntil(profiled((By) element, ExpectedConditions.visibilityOfElementLocated((By) element)), waitTime);
         } else if (element instanceof WebElement) {
             webElement = (WebElement) element;
-            new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOf(webElement));
+            waitUntil(ExpectedConditions.visibilityOf(webElement), waitTime);
         } else {
             throw new IllegalArgumentException("Unsupported element type: " + element.getClass().getName());
         }
@@ -424,12 +463,10 @@ public class JSUtils extends BaseWebDriver {
         int waitTime = (timeoutSec.length > 0 && timeoutSec[0] >= 0) ? timeoutSec[0] : defaultTimeoutInSec;
         WebElement webElement;
         if (element instanceof By) {
-            webElement = new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOfElementLocated((By) element));
+            webElement = waitUntil(profiled((By) element, ExpectedConditions.visibilityOfElementLocated((By) element)), waitTime);
         } else if (element instanceof WebElement) {
             webElement = (WebElement) element;
-            new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOf(webElement));
+            waitUntil(ExpectedConditions.visibilityOf(webElement), waitTime);
         } else {
             throw new IllegalArgumentException("Unsupported element type: " + element.getClass().getName());
         }
@@ -458,6 +495,208 @@ public class JSUtils extends BaseWebDriver {
         return !options.isEmpty();
     }
 
+    /**************************
+     *      Form Scripts
+     * **********************/
+
+    private static final String resolveLocatorScript =
+            "function resolve(l){ if (l.element) return l.element; " +
+            "  switch (l.using) { " +
+            "    case 'id': return document.getElementById(l.value); " +
+            "    case 'name': return document.getElementsByName(l.value)[0] || null; " +
+            "    case 'className': return document.getElementsByClassName(l.value)[0] || null; " +
+            "    case 'tagName': return document.getElementsByTagName(l.value)[0] || null; " +
+            "    case 'cssSelector': return document.querySelector(l.value); " +
+            "    case 'xpath': return document.evaluate(l.value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue; " +
+            "  } return null; } ";
+
+    /**
+     * Converts a By locator into a map that can be resolved in-page by the form scripts.
+     * The strategy is taken from the W3C parameters of remotable locators (id, name and class name are sent as css selectors),
+     * other strategies such as ByChained, ByAll, relative and custom locators are looked up through the driver instead.
+     *
+     * @param locator By locator of the element
+     * @return map with 'using' and 'value' keys, or 'element' key for unsupported strategies
+     */
+    public Map<String, Object> toScriptLocator(By locator) {
+        Map<String, Object> scriptLocator = new HashMap<>();
+        if (locator instanceof By.Remotable remotable && remotable.getRemoteParameters().value() instanceof String value) {
+            String using = switch (remotable.getRemoteParameters().using()) {
+                case "css selector" -> "cssSelector";
+                case "xpath" -> "xpath";
+                case "tag name" -> "tagName";
+                case "id" -> "id";
+                case "name" -> "name";
+                case "class name" -> "className";
+                default -> null;
+            };
+            if (using != null) {
+                scriptLocator.put("using", using);
+                scriptLocator.put("value", value);
+                return scriptLocator;
+            }
+        }
+        scriptLocator.put("element", findElement(locator));
+        return scriptLocator;
+    }
+
+    /**
+     * Resolves all locators in one script call.
+     *
+     * @param locators list of By locators
+     * @return list of WebElements in the same order, null entries for locators which matched nothing
+     */
+    public List<WebElement> findElementsInPage(List<By> locators) {
+        List<Map<String, Object>> scriptLocators = new ArrayList<>();
+        for (By locator : locators) {
+            scriptLocators.add(toScriptLocator(locator));
+        }
+        String script = resolveLocatorScript + "return arguments[0].map(resolve);";
+        return (List<WebElement>) ((JavascriptExecutor) getDriver()).executeScript(script, scriptLocators);
+    }
+
+    /**
+     * Sets the values of many fields in one script call, using the native value setter of each element
+     * followed by 'input' and 'change' events so framework-controlled inputs (e.g. React) pick up the change.
+     *
+     * @param locators list of By locators
+     * @param values   list of values in the same order as the locators
+     * @return list of values read back from the fields, null entries for fields which were not found
+     */
+    public List<String> setValuesInPage(List<By> locators, List<String> values) {
+        List<Map<String, Object>> scriptLocators = new ArrayList<>();
+        for (By locator : locators) {
+            scriptLocators.add(toScriptLocator(locator));
+        }
+        String script = resolveLocatorScript +
+                "var values = arguments[1]; " +
+                "return arguments[0].map(function(l, i){ var el = resolve(l); if (!el) return null; " +
+                "  var proto = el instanceof HTMLTextAreaElement ? HTMLTextAreaElement.prototype " +
+                "    : el instanceof HTMLSelectElement ? HTMLSelectElement.prototype : HTMLInputElement.prototype; " +
+                "  var setter = Object.getOwnPropertyDescriptor(proto, 'value').set; " +
+                "  el.focus(); setter.call(el, values[i]); " +
+                "  el.dispatchEvent(new Event('input', {bubbles: true})); " +
+                "  el.dispatchEvent(new Event('change', {bubbles: true})); " +
+                "  el.blur(); return el.value; });";
+        return (List<String>) ((JavascriptExecutor) getDriver()).executeScript(script, scriptLocators, values);
+    }
+
+    /**
+     * Reads the current value of many elements in one script call.
+     *
+     * @param elements list of WebElements, null entries are returned as null
+     * @return list of element values in the same order
+     */
+    public List<String> getValues(List<WebElement> elements) {
+        String script = "return arguments[0].map(function(el){ return el ? el.value : null; });";
+        return (List<String>) ((JavascriptExecutor) getDriver()).executeScript(script, elements);
+    }
+
+    /**************************
+     *    Dropdown Scripts
+     * **********************/
+
+    private static final String dropDownOptionsScript =
+            "function opts(s, onlySelected){ var r = []; " +
+            "  for (var i = 0; i < s.options.length; i++) { var o = s.options[i]; " +
+            "    if (onlySelected && !o.selected) continue; " +
+            "    r.push({index: i, value: o.value, text: o.text.replace(/\\s+/g, ' ').trim(), selected: o.selected}); } " +
+            "  return r; } ";
+
+    /**
+     * Reads all options of a native select element with their value, text and selected state in one script call.
+     *
+     * @param selectElem   the select WebElement
+     * @param onlySelected true to return only the selected options
+     * @return list of DropDownOption, or null if the element is not a native select
+     */
+    public List<DropDownOption> getDropDownOptions(WebElement selectElem, boolean onlySelected) {
+        String script = dropDownOptionsScript +
+                "var s = arguments[0]; if (!s || s.tagName !== 'SELECT') return null; " +
+                "return opts(s, arguments[1]);";
+        Object result = ((JavascriptExecutor) getDriver()).executeScript(script, selectElem, onlySelected);
+        if (result == null) {
+            log.info("Element is not a native select, script-backed options are not available");
+            return null;
+        }
+        return DropDownOption.fromScriptResult(result);
+    }
+
+    /**
+     * Returns the option WebElements of a native select element in one script call,
+     * instead of checking the selected state of each option over the wire.
+     *
+     * @param selectElem   the select WebElement
+     * @param onlySelected true to return only the selected options
+     * @return list of option WebElements, or null if the element is not a native select
+     */
+    public List<WebElement> getDropDownOptionElements(WebElement selectElem, boolean onlySelected) {
+        String script = "var s = arguments[0]; if (!s || s.tagName !== 'SELECT') return null; " +
+                "return Array.prototype.slice.call(arguments[1] ? s.selectedOptions : s.options);";
+        return (List<WebElement>) ((JavascriptExecutor) getDriver()).executeScript(script, selectElem, onlySelected);
+    }
+
+    /**
+     * Selects an option of a native select element in-page by text, value or index,
+     * fires the 'input' and 'change' events and returns the resulting selection.
+     *
+     * @param selectElem the select WebElement
+     * @param mode       one of 'text', 'value' or 'index'
+     * @param key        visible text, value or index of the option
+     * @return the selected options after the change, or null if the element is not a native select
+     * @throws org.openqa.selenium.NoSuchElementException if no enabled option matched the key
+     */
+    public List<DropDownOption> selectDropDownOption(WebElement selectElem, String mode, String key) {
+        String script = dropDownOptionsScript +
+                "var s = arguments[0], mode = arguments[1], key = arguments[2]; " +
+                "if (!s || s.tagName !== 'SELECT') return null; " +
+                "var hit = -1, want = key.replace(/\\s+/g, ' ').trim(); " +
+                "for (var i = 0; i < s.options.length && hit < 0; i++) { var o = s.options[i]; " +
+                "  if ((mode === 'text' && o.text.replace(/\\s+/g, ' ').trim() === want) || " +
+                "      (mode === 'value' && o.value === key) || (mode === 'index' && i === Number(key))) hit = i; } " +
+                "if (hit < 0 || s.options[hit].disabled) return {found: false}; " +
+                "if (!s.options[hit].selected) { " +
+                "  if (s.multiple) { s.options[hit].selected = true; } else { s.selectedIndex = hit; } " +
+                "  s.dispatchEvent(new Event('input', {bubbles: true})); " +
+                "  s.dispatchEvent(new Event('change', {bubbles: true})); } " +
+                "return {found: true, selected: opts(s, true)};";
+        Object result = ((JavascriptExecutor) getDriver()).executeScript(script, selectElem, mode, key);
+        if (result == null) {
+            log.info("Element is not a native select, script-backed selection is not available");
+            return null;
+        }
+        Map<?, ?> selection = (Map<?, ?>) result;
+        if (!Boolean.TRUE.equals(selection.get("found"))) {
+            throw new org.openqa.selenium.NoSuchElementException("Cannot locate enabled option with " + mode + ": " + key);
+        }
+        List<DropDownOption> selected = DropDownOption.fromScriptResult(selection.get("selected"));
+        log.info("Selected option by {} '{}', current selection: {}", mode, key, selected);
+        return selected;
+    }
+
+    /**
+     * Selects the first enabled option at or after the given index of every required native select under the parent element,
+     * firing 'input' and 'change' events for each changed menu, disabled options are skipped.
+     *
+     * @param parentElem parent WebElement which contains the dropdown menus
+     * @param index      option index to select
+     * @return number of required menus that do not have an enabled option at or after that index yet
+     */
+    public long selectIndexInRequiredMenus(WebElement parentElem, int index) {
+        String script = "var pending = 0, start = arguments[1]; " +
+                "arguments[0].querySelectorAll('select[required]').forEach(function(s){ " +
+                "  var idx = start; " +
+                "  while (idx < s.options.length && s.options[idx].disabled) { idx++; } " +
+                "  if (idx >= s.options.length) { pending++; return; } " +
+                "  if (s.selectedIndex !== idx) { s.selectedIndex = idx; " +
+                "    s.dispatchEvent(new Event('input', {bubbles: true})); " +
+                "    s.dispatchEvent(new Event('change', {bubbles: true})); } " +
+                "}); " +
+                "return pending;";
+        Object pending = ((JavascriptExecutor) getDriver()).executeScript(script, parentElem, index);
+        return pending == null ? 0 : ((Number) pending).longValue();
+    }
+
     /**************************
      *      Get Methods
      * **********************/
@@ -472,12 +711,10 @@ public class JSUtils extends BaseWebDriver {
         int waitTime = (timeoutSec.length > 0 && timeoutSec[0] >= 0) ? timeoutSec[0] : defaultTimeoutInSec;
         WebElement webElement;
         if (element instanceof By) {
-            webElement = new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOfElementLocated((By) element));
+            webElement = waitUntil(profiled((By) element, ExpectedConditions.visibilityOfElementLocated((By) element)), waitTime);
         } else if (element instanceof WebElement) {
             webElement = (WebElement) element;
-            new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOf(webElement));
+            waitUntil(ExpectedConditions.visibilityOf(webElement), waitTime);
         } else {
             throw new IllegalArgumentException("Unsupported element type: " + element.getClass().getName());
         }
@@ -646,8 +883,7 @@ public class JSUtils extends BaseWebDriver {
         int waitTime = (timeoutSec.length > 0 && timeoutSec[0] >= 0) ? timeoutSec[0] : defaultTimeoutInSec;
         log.info("Scrolling to the element with locator '{}'.", element);
         try {
-            WebElement webElement = new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOfElementLocated(element));
+            WebElement webElement = waitUntil(profiled(element, ExpectedConditions.visibilityOfElementLocated(element)), waitTime);
             ((JavascriptExecutor) getDriver()).executeScript("arguments[0].scrollIntoView(true);", webElement);
             log.info("Successfully scrolled to the element with locator '{}'.", element);
         } catch (TimeoutException e) {
@@ -719,9 +955,14 @@ public class JSUtils extends BaseWebDriver {
      * @param url website url
      */
     public void navigateToUrl(String url) {
-        executeScript("window.location.href = '" + url + "';", new Object[]{});
-        waitDocumentReady();
-        waitTillElemDisplayedBySelector(null, "body *", "if(i.offsetParent)return true", true, 20);
+        long navigateStart = System.nanoTime();
+        try {
+            executeScript("window.location.href = '" + url + "';", new Object[]{});
+            waitDocumentReady();
+            waitTillElemDisplayedBySelector(null, "body *", "if(i.offsetParent)return true", true, 20);
+        } finally {
+            navigateTimer.record(System.nanoTime() - navigateStart);
+        }
     }
 
     /************************
@@ -731,7 +972,7 @@ public class JSUtils extends BaseWebDriver {
     public void doubleClickOnElement(By element) {
         try {
             log.info("Attempting to double-click on element with locator: {}", element);
-            WebElement webElement = getDriver().findElement(element);
+            WebElement webElement = findElement(element);
             Actions actions = new Actions(getDriver());
             actions.doubleClick(webElement).perform();
             log.info("Element with locator: {} has been double-clicked successfully.", element);
@@ -742,11 +983,18 @@ public class JSUtils extends BaseWebDriver {
     }
 
     public void clickAndHoldOnElement(By element) {
+        clickAndHoldOnElement(element, InputBackend.getDefault());
+    }
+
+    public void clickAndHoldOnElement(By element, InputBackend backend) {
         try {
             log.info("Attempting to click and hold on element with locator: {}", element);
-            WebElement webElement = getDriver().findElement(element);
-            Actions actions = new Actions(getDriver());
-            actions.clickAndHold(webElement).perform();
+            WebElement webElement = findElement(element);
+            if (devToolsInput.isActive(backend)) {
+                devToolsInput.clickAndHold(webElement);
+            } else {
+                new Actions(getDriver()).clickAndHold(webElement).perform();
+            }
             log.info("Element with locator: {} has been clicked and held successfully.", element);
         } catch (Exception e) {
             log.error("Click and hold failed on element: {}", element, e);
@@ -755,29 +1003,41 @@ public class JSUtils extends BaseWebDriver {
     }
 
     public void moveToElement(Object element, int... timeoutSec) {
+        moveToElement(element, InputBackend.getDefault(), timeoutSec);
+    }
+
+    public void moveToElement(Object element, InputBackend backend, int... timeoutSec) {
         int waitTime = (timeoutSec.length > 0 && timeoutSec[0] >= 0) ? timeoutSec[0] : defaultTimeoutInSec;
         WebElement webElement;
         if (element instanceof By) {
-            webElement = new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOfElementLocated((By) element));
+            webElement = waitUntil(profiled((By) element, ExpectedConditions.visibilityOfElementLocated((By) element)), waitTime);
         } else if (element instanceof WebElement) {
             webElement = (WebElement) element;
-            new WebDriverWait(getDriver(), Duration.ofSeconds(waitTime))
-                    .until(ExpectedConditions.visibilityOf(webElement));
+            waitUntil(ExpectedConditions.visibilityOf(webElement), waitTime);
         } else {
             throw new IllegalArgumentException("Unsupported element type: " + element.getClass().getName());
         }
-        Actions actions = new Actions(getDriver());
-        actions.moveToElement(webElement).perform();
+        if (devToolsInput.isActive(backend)) {
+            devToolsInput.moveTo(webElement);
+        } else {
+            new Actions(getDriver()).moveToElement(webElement).perform();
+        }
     }
 
     public void dragAndDropElement(By sourceElement, By targetElement) {
+        dragAndDropElement(sourceElement, targetElement, InputBackend.getDefault());
+    }
+
+    public void dragAndDropElement(By sourceElement, By targetElement, InputBackend backend) {
         try {
             log.info("Attempting to drag and drop from source element to target element.");
-            WebElement source = getDriver().findElement(sourceElement);
-            WebElement target = getDriver().findElement(targetElement);
-            Actions actions = new Actions(getDriver());
-            actions.dragAndDrop(source, target).perform();
+            WebElement source = findElement(sourceElement);
+            WebElement target = findElement(targetElement);
+            if (devToolsInput.isActive(backend)) {
+                devToolsInput.dragAndDrop(source, target);
+            } else {
+                new Actions(getDriver()).dragAndDrop(source, target).perform();
+            }
             log.info("Successfully performed drag and drop.");
         } catch (Exception e) {
             log.error("Drag and drop failed.", e);
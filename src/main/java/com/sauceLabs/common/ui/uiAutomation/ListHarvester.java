@@ -0,0 +1,138 @@
+package com.sauceLabs.common.ui.uiAutomation;
+
+import com.sauceLabs.common.ui.base.BaseWebDriver;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * harvests rows of virtualized (windowed) and infinite-scroll lists,
+ * the container is scrolled in batches and rows are keyed by their position in the scrolled content,
+ * so only a high-water mark is kept in the page and rows with equal field values are all delivered,
+ * rows are streamed to the caller batch by batch so memory use does not grow with the list size,
+ * at the bottom the page gets 'ListHarvester.IdleMs' (default 300 ms) to append more rows before the list is considered complete
+ *
+ * @author MahmoudOsama
+ */
+public class ListHarvester extends BaseWebDriver {
+    private static final int defaultMaxBatchRows = 200;
+    private static final long idleMs = Long.getLong("ListHarvester.IdleMs", 300);
+
+    /**
+     * summary of a harvest run
+     *
+     * @param rows      number of rows delivered to the caller
+     * @param batches   number of script round trips
+     * @param elapsedMs total harvest time in milliseconds
+     */
+    public record HarvestResult(long rows, int batches, long elapsedMs) {
+        public double rowsPerSecond() {
+            return elapsedMs == 0 ? rows : rows * 1000.0 / elapsedMs;
+        }
+    }
+
+    // rendered rows are read in visual order, a row is new when it lies after the last harvested row (top, then left)
+    private static final String harvestScript =
+            "var c = arguments[0] || document.scrollingElement, rowSel = arguments[1], fields = arguments[2], " +
+            "    max = arguments[3], id = arguments[4]; " +
+            "var all = window.__listHarvest = window.__listHarvest || {}; " +
+            "var st = all[id]; " +
+            "if (!st) { st = all[id] = {start: c.scrollTop, top: -Infinity, left: -Infinity}; c.scrollTop = 0; } " +
+            "var root = arguments[0] || document; var out = [], truncated = false; " +
+            "var origin = (arguments[0] ? c.getBoundingClientRect().top : 0) - c.scrollTop; " +
+            "var rows = Array.prototype.map.call(root.querySelectorAll(rowSel), function(el) { " +
+            "  var r = el.getBoundingClientRect(); " +
+            "  return {el: el, top: Math.round(r.top - origin), left: Math.round(r.left), shown: r.width > 0 || r.height > 0}; }) " +
+            "  .filter(function(r) { return r.shown && (r.top > st.top || (r.top === st.top && r.left > st.left)); }) " +
+            "  .sort(function(a, b) { return a.top - b.top || a.left - b.left; }); " +
+            "for (var i = 0; i < rows.length; i++) { " +
+            "  if (out.length >= max) { truncated = true; break; } " +
+            "  var row = {}; " +
+            "  for (var f in fields) { var el = fields[f] ? rows[i].el.querySelector(fields[f]) : rows[i].el; " +
+            "    row[f] = el ? el.innerText.trim() : null; } " +
+            "  st.top = rows[i].top; st.left = rows[i].left; out.push(row); } " +
+            "var before = c.scrollTop; " +
+            "if (!truncated) { c.scrollTop = before + Math.max(c.clientHeight * 0.9, 1); } " +
+            "var done = !truncated && c.scrollTop === before; " +
+            "if (done) { st.height = c.scrollHeight; st.count = root.querySelectorAll(rowSel).length; } " +
+            "return {rows: out, done: done};";
+
+    // resolves with true as soon as rows were appended or the content grew since the last batch reached the bottom,
+    // or with false once the list stayed idle for the given time
+    private static final String appendedRowsScript =
+            "var c = arguments[0] || document.scrollingElement, root = arguments[0] || document, rowSel = arguments[1], " +
+            "    st = window.__listHarvest[arguments[2]], done = arguments[arguments.length - 1], observer, timer; " +
+            "var grown = function() { return c.scrollHeight > st.height || root.querySelectorAll(rowSel).length > st.count; }; " +
+            "if (grown()) { done(true); return; } " +
+            "var finish = function(result) { observer.disconnect(); clearTimeout(timer); done(result); }; " +
+            "observer = new MutationObserver(function() { if (grown()) finish(true); }); " +
+            "observer.observe(arguments[0] || document.body, {childList: true, subtree: true}); " +
+            "timer = setTimeout(function() { finish(grown()); }, arguments[3]);";
+
+    private static final String restoreScript =
+            "var st = window.__listHarvest && window.__listHarvest[arguments[1]]; " +
+            "if (st) { (arguments[0] || document.scrollingElement).scrollTop = st.start; delete window.__listHarvest[arguments[1]]; }";
+
+    /**
+     * Scrolls the container from the top and streams every row to the consumer, the scroll position is restored afterwards.
+     * Once the container cannot scroll any further the harvest waits up to 'ListHarvester.IdleMs' for appended rows,
+     * so infinite-scroll pages can load their next page, and stops when nothing was appended.
+     *
+     * @param container   locator of the scrollable container, null to scroll the page itself
+     * @param rowSelector css selector of a row inside the container
+     * @param fields      map of field name to css selector inside the row, empty selector reads the row text itself
+     * @param onBatch     consumer called with every batch of new rows
+     * @return harvest summary with throughput
+     */
+    public HarvestResult harvest(By container, String rowSelector, Map<String, String> fields,
+                                 Consumer<List<Map<String, String>>> onBatch) {
+        WebElement containerElement = container == null ? null : findElement(container);
+        String harvestId = UUID.randomUUID().toString();
+        JavascriptExecutor js = (JavascriptExecutor) getDriver();
+        long start = System.nanoTime();
+        long rowCount = 0;
+        int batches = 0;
+        log.info("Harvesting rows '{}' of container: {}", rowSelector, container);
+        try {
+            boolean done = false;
+            while (!done) {
+                Map<String, Object> batch = (Map<String, Object>) js.executeScript(harvestScript,
+                        containerElement, rowSelector, fields, defaultMaxBatchRows, harvestId);
+                batches++;
+                List<Map<String, String>> rows = (List<Map<String, String>>) batch.get("rows");
+                if (!rows.isEmpty()) {
+                    rowCount += rows.size();
+                    onBatch.accept(rows);
+                }
+                done = Boolean.TRUE.equals(batch.get("done"))
+                        && !Boolean.TRUE.equals(js.executeAsyncScript(appendedRowsScript, containerElement, rowSelector, harvestId, idleMs));
+            }
+        } finally {
+            js.executeScript(restoreScript, containerElement, harvestId);
+        }
+        HarvestResult result = new HarvestResult(rowCount, batches, (System.nanoTime() - start) / 1_000_000);
+        log.info("Harvested {} rows in {} batches within {} ms ({} rows/sec)",
+                result.rows(), result.batches(), result.elapsedMs(), String.format("%.1f", result.rowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * Harvests a single field of every row into a list, convenient for sort and price checks.
+     *
+     * @param container     locator of the scrollable container, null to scroll the page itself
+     * @param rowSelector   css selector of a row inside the container
+     * @param fieldSelector css selector of the collected field inside the row
+     * @return list of field values in list order
+     */
+    public List<String> harvestField(By container, String rowSelector, String fieldSelector) {
+        List<String> values = new ArrayList<>();
+        harvest(container, rowSelector, Map.of("value", fieldSelector), rows -> rows.forEach(row -> values.add(row.get("value"))));
+        return values;
+    }
+}
@@ -2,6 +2,11 @@ package com.sauceLabs.common.ui.uiAutomation;
 
 import com.sauceLabs.common.ui.base.BaseWebDriver;
 import com.sauceLabs.common.utils.helpers.CommonUtility;
+import com.sauceLabs.common.utils.metrics.RunMetrics;
+import com.sauceLabs.common.utils.profiling.Timed;
+import com.sauceLabs.common.utils.profiling.WaitEvent;
+import com.sauceLabs.common.utils.timer.LatencyRecorder;
+import com.sauceLabs.common.utils.timer.MyTimer;
 import org.junit.jupiter.api.Assertions;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.*;
@@ -9,6 +14,7 @@ import org.openqa.selenium.support.ui.*;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -17,12 +23,16 @@ import java.util.List;
  *
  * @author ShoumanM & Ahmed Alaa
  */
+@Timed
 public class SeleUtils extends BaseWebDriver {
     JSUtils jsUtils = new JSUtils();
+    DevToolsInput devToolsInput = new DevToolsInput();
     CommonUtility commonUtility = new CommonUtility();
     private static final int defaultTimeoutInMillis = 500;
     private static final int defaultTimeoutInSec = 30;
     private static final int defaultTimeoutInMin = 1;
+    private static final boolean fastDropDown = Boolean.parseBoolean(System.getProperty("FastDropDown", "true"));
+    private static final LatencyRecorder waitTimer = MyTimer.recorder("wait");
 
 
     /**
@@ -32,17 +42,28 @@ public class SeleUtils extends BaseWebDriver {
      * @return select object
      */
     public Select getSelectObj(By by) {
-        WebElement e = getDriver().findElement(by);
+        WebElement e = findElement(by);
         Select slct = new Select(e);
         return slct;
     }
 
     /**
-     * auto select first value in mandatory dropdown menus which contains 'required' attribute
+     * auto select first value in mandatory dropdown menus which contains 'required' attribute,
+     * all menus are handled in one script unless 'FastDropDown' system property is false
      *
      * @param menuParentElement WebElement which contains the dropdown menus
      */
     public void autoSelectAllMenus(WebElement menuParentElement) {
+        if (fastDropDown) {
+            try {
+                new WebDriverWait(getDriver(), Duration.ofSeconds(5))
+                        .until(driver -> jsUtils.selectIndexInRequiredMenus(menuParentElement, 1) == 0);
+            } catch (TimeoutException e) {
+                log.error("Required dropdown menus have no enabled option to select: {}", e.getMessage());
+                Assertions.fail("Required dropdown menus have no enabled option to select under: " + menuParentElement + ". Exception: " + e.getMessage());
+            }
+            return;
+        }
         List<WebElement> mandatoryMenus = menuParentElement.findElements(By.tagName("select"));
         for (WebElement e : mandatoryMenus) {
             if (e.getAttribute("required") != null) {
@@ -128,8 +149,8 @@ public class SeleUtils extends BaseWebDriver {
     public List<WebElement> getElements(By locator, int... timeInSec) {
         List<WebElement> elements = new ArrayList<>();
         try {
-            validateStateOfElement(ExpectedConditions.visibilityOfElementLocated(locator), timeInSec);
-            elements = getDriver().findElements(locator);
+            validateStateOfElement(profiled(locator, ExpectedConditions.visibilityOfElementLocated(locator)), timeInSec);
+            elements = findElements(locator);
             log.info("Found {} elements for locator: {}", elements.size(), locator);
         } catch (Exception e) {
             log.warn("Failed to retrieve elements for locator: {}", locator, e);
@@ -260,15 +281,27 @@ public class SeleUtils extends BaseWebDriver {
      */
     public void validateStateOfElement(ExpectedCondition<?> condition, int... timeoutSec) {
         int waitTime = (timeoutSec.length > 0 && timeoutSec[0] >= 0) ? timeoutSec[0] : defaultTimeoutInSec;
+        WaitEvent waitEvent = WaitEvent.start();
+        String outcome = "error";
         try {
             log.info("Validating the element under the specified condition with timeout of {} seconds: {}", waitTime, condition);
-            setExplicitWaitSec(waitTime).until(condition);
+            long waitStart = System.nanoTime();
+            try {
+                setExplicitWaitSec(waitTime).until(condition);
+            } finally {
+                waitTimer.record(System.nanoTime() - waitStart);
+            }
+            outcome = "satisfied";
         } catch (TimeoutException e) {
+            outcome = "timeout";
+            RunMetrics.waitTimedOut();
             log.error("Element condition timed out: {}", condition, e);
             throw new AssertionError("Element condition timed out: " + condition, e);
         } catch (Exception e) {
             log.error("Failed to validate element under the specified condition: {}", condition, e);
             throw new AssertionError("Error occurred while validating element condition: " + condition, e);
+        } finally {
+            waitEvent.finish(condition, null, waitTime, outcome);
         }
     }
 
@@ -286,7 +319,7 @@ public class SeleUtils extends BaseWebDriver {
         ExpectedCondition<WebElement> condition;
 
         if (element instanceof By locator) {
-            condition = ExpectedConditions.elementToBeClickable(locator);
+            condition = profiled(locator, ExpectedConditions.elementToBeClickable(locator));
         } else if (element instanceof WebElement webElement) {
             condition = ExpectedConditions.elementToBeClickable(webElement);
         } else {
@@ -341,7 +374,7 @@ public class SeleUtils extends BaseWebDriver {
         ExpectedCondition<WebElement> condition;
 
         if (element instanceof By locator) {
-            condition = ExpectedConditions.visibilityOfElementLocated(locator);
+            condition = profiled(locator, ExpectedConditions.visibilityOfElementLocated(locator));
         } else if (element instanceof WebElement webElement) {
             condition = ExpectedConditions.visibilityOf(webElement);
         } else {
@@ -361,7 +394,7 @@ public class SeleUtils extends BaseWebDriver {
         ExpectedCondition<List<WebElement>> condition;
 
         if (elements instanceof By) {
-            condition = ExpectedConditions.visibilityOfAllElementsLocatedBy((By) elements);
+            condition = profiled((By) elements, ExpectedConditions.visibilityOfAllElementsLocatedBy((By) elements));
         } else if (elements instanceof List) {
             condition = ExpectedConditions.visibilityOfAllElements((List<WebElement>) elements);
         } else {
@@ -460,7 +493,7 @@ public class SeleUtils extends BaseWebDriver {
      * @param timeoutSec Optional timeout in seconds to wait for the element to be present. If not provided, uses a default timeout.
      */
     public void isElementPresent(By element, int... timeoutSec) {
-        ExpectedCondition<WebElement> condition = ExpectedConditions.presenceOfElementLocated(element);
+        ExpectedCondition<WebElement> condition = profiled(element, ExpectedConditions.presenceOfElementLocated(element));
         try {
             validateStateOfElement(condition, timeoutSec);
             log.info("Element is presence");
@@ -492,7 +525,7 @@ public class SeleUtils extends BaseWebDriver {
     }
 
     public void areAllElementsPresent(By element, int... timeoutSec) {
-        ExpectedCondition<List<WebElement>> condition = ExpectedConditions.presenceOfAllElementsLocatedBy(element);
+        ExpectedCondition<List<WebElement>> condition = profiled(element, ExpectedConditions.presenceOfAllElementsLocatedBy(element));
         try {
             validateStateOfElement(condition, timeoutSec);
             log.info("Elements are presence");
@@ -745,7 +778,7 @@ public class SeleUtils extends BaseWebDriver {
     public boolean isElementDisplayed(By element) {
         try {
             log.info("Checking if the element with locator: {} is displayed", element);
-            boolean displayed = getDriver().findElement(element).isDisplayed();
+            boolean displayed = findElement(element).isDisplayed();
             log.info("Element with locator: {} is displayed: {}", element, displayed);
             return displayed;
         } catch (Exception e) {
@@ -757,7 +790,7 @@ public class SeleUtils extends BaseWebDriver {
     public boolean isElementEnabled(By element) {
         try {
             log.info("Checking if the element with locator: {} is enabled", element);
-            boolean displayed = getDriver().findElement(element).isEnabled();
+            boolean displayed = findElement(element).isEnabled();
             log.info("Element with locator: {} is enabled: {}", element, displayed);
             return displayed;
         } catch (Exception e) {
@@ -769,7 +802,7 @@ public class SeleUtils extends BaseWebDriver {
     public boolean isElementSelected(By element) {
         try {
             log.info("Checking if the element with locator: {} is selected", element);
-            boolean displayed = getDriver().findElement(element).isSelected();
+            boolean displayed = findElement(element).isSelected();
             log.info("Element with locator: {} is selected: {}", element, displayed);
             return displayed;
         } catch (Exception e) {
@@ -799,7 +832,7 @@ public class SeleUtils extends BaseWebDriver {
     public void clickOnElement(By element) {
         try {
             log.info("Attempting to click on element with locator: {}", element);
-            getDriver().findElement(element).click();
+            findElement(element).click();
             log.info("Element with locator: {} has been clicked successfully.", element);
         } catch (Exception e) {
             log.error("Standard click failed on element: {}", element, e);
@@ -816,9 +849,26 @@ public class SeleUtils extends BaseWebDriver {
      * @param text    The text to be sent to the element.
      */
     public void setText(By element, String text) {
+        setText(element, text, InputBackend.getDefault());
+    }
+
+    /**
+     * Sends the specified text to the web element identified by the given locator using the given input backend.
+     * The DEVTOOLS backend inserts the whole text with one command, browsers without DevTools fall back to sendKeys.
+     *
+     * @param element The locator (By) of the element where the text will be sent.
+     * @param text    The text to be sent to the element.
+     * @param backend The input backend to use.
+     */
+    public void setText(By element, String text, InputBackend backend) {
         try {
             log.info("Setting text: '{}' to the element with locator: {}", text, element);
-            getDriver().findElement(element).sendKeys(text);
+            WebElement webElement = findElement(element);
+            if (devToolsInput.isActive(backend)) {
+                devToolsInput.insertText(webElement, text);
+            } else {
+                webElement.sendKeys(text);
+            }
             log.info("Text has been successfully sent to the element with locator: {}", element);
         } catch (Exception e) {
             log.error("Failed to send text to element: {}", element, e);
@@ -829,7 +879,7 @@ public class SeleUtils extends BaseWebDriver {
     public void setTextAndPressEnterKey(By element, String text) {
         try {
             log.info("Setting text: '{}' to the element with locator: {} then press enter ", text, element);
-            getDriver().findElement(element).sendKeys(text, Keys.ENTER);
+            findElement(element).sendKeys(text, Keys.ENTER);
             log.info("Text has been successfully sent to the element with locator: {} then enter key pressed", element);
         } catch (Exception e) {
             log.error("Failed to send text to element then press enter: {}", element, e);
@@ -837,6 +887,68 @@ public class SeleUtils extends BaseWebDriver {
         }
     }
 
+    /* ----------------Form Methods------------- */
+
+    /**
+     * Modes supported by {@link #fillForm(Map, FormFillMode)}.
+     * FAST sets all values in one script with native value setters and input/change events,
+     * FAITHFUL resolves all fields in one script then clears each field and types its value with sendKeys.
+     */
+    public enum FormFillMode {FAST, FAITHFUL}
+
+    /**
+     * Fills many fields in one call then reads back their final values.
+     * Mode is taken from the 'FormFillMode' system property, default is FAST.
+     *
+     * @param fields map of field locator to value, iteration order is the fill order
+     * @return per-field verification of the final values
+     */
+    public List<FormFieldResult> fillForm(Map<By, String> fields) {
+        return fillForm(fields, FormFillMode.valueOf(System.getProperty("FormFillMode", "FAST").toUpperCase()));
+    }
+
+    /**
+     * Fills many fields in one call then reads back their final values.
+     *
+     * @param fields map of field locator to value, iteration order is the fill order
+     * @param mode   FAST or FAITHFUL
+     * @return per-field verification of the final values
+     */
+    public List<FormFieldResult> fillForm(Map<By, String> fields, FormFillMode mode) {
+        List<By> locators = new ArrayList<>(fields.keySet());
+        List<String> values = new ArrayList<>(fields.values());
+        List<String> actualValues = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            log.info("Filling {} fields in {} mode: {}", locators.size(), mode, locators);
+            if (mode == FormFillMode.FAST) {
+                actualValues = jsUtils.setValuesInPage(locators, values);
+            } else {
+                List<WebElement> elements = jsUtils.findElementsInPage(locators);
+                for (int i = 0; i < elements.size(); i++) {
+                    if (elements.get(i) != null) {
+                        elements.get(i).clear();
+                        elements.get(i).sendKeys(values.get(i));
+                    }
+                }
+                actualValues = jsUtils.getValues(elements);
+            }
+        } catch (Exception e) {
+            log.error("Failed to fill form fields: {}", locators, e);
+            Assertions.fail("Failed to fill form fields: " + locators + ". Exception: " + e.getMessage());
+        }
+        List<FormFieldResult> results = new ArrayList<>();
+        for (int i = 0; i < locators.size(); i++) {
+            FormFieldResult result = new FormFieldResult(locators.get(i), values.get(i), actualValues.get(i));
+            if (!result.isMatched()) {
+                log.warn("Field with locator: {} has value '{}' instead of '{}'", result.locator(), result.actual(), result.expected());
+            }
+            results.add(result);
+        }
+        log.info("Filled {} fields in {} mode within {} ms", locators.size(), mode, (System.nanoTime() - start) / 1_000_000);
+        return results;
+    }
+
     /* ----------------Clear Methods------------- */
 
     /**
@@ -847,7 +959,7 @@ public class SeleUtils extends BaseWebDriver {
     public void clearText(By element) {
         try {
             log.info("Clearing text from the element with locator: {}", element);
-            getDriver().findElement(element).clear();
+            findElement(element).clear();
             log.info("Text has been successfully cleared from the element with locator: {}", element);
         } catch (Exception e) {
             log.error("Failed to clear text of element: {}", element, e);
@@ -863,7 +975,7 @@ public class SeleUtils extends BaseWebDriver {
     public void clearTextWithBackSpace(By element) {
         try {
             log.info("Clearing text using backspace from the element with locator: {}", element);
-            getDriver().findElement(element).sendKeys(Keys.chord(Keys.CONTROL, "a"), Keys.BACK_SPACE);
+            findElement(element).sendKeys(Keys.chord(Keys.CONTROL, "a"), Keys.BACK_SPACE);
             log.info("Text has been successfully cleared using backspace from the element with locator: {}", element);
         } catch (Exception e) {
             log.error("Failed to clear text using backspace of element: {}", element, e);
@@ -877,7 +989,7 @@ public class SeleUtils extends BaseWebDriver {
         try {
             isElementPresent(dropdownElement, timeoutSec);
             areAllElementsPresent(dropdownOptions, timeoutSec);
-            WebElement dropdown = getDriver().findElement(dropdownElement);
+            WebElement dropdown = findElement(dropdownElement);
             Select select = new Select(dropdown);
             boolean isPopulated = !select.getOptions().isEmpty();
             log.info("Dropdown identified by {} is {}populated.", dropdownElement, isPopulated ? "" : "not ");
@@ -887,45 +999,128 @@ public class SeleUtils extends BaseWebDriver {
         }
     }
 
-    public void selectTextFromDropDown(By dropdownElement, String text) {
+    /**
+     * Reads all options of the dropdown with their value, text and selected state.
+     * Native select elements are read in one script call, other dropdowns fall back to the Select class.
+     *
+     * @param dropdownElement The locator of the dropdown.
+     * @return list of DropDownOption, or null if the options could not be read.
+     */
+    public List<DropDownOption> getDropDownOptionsData(By dropdownElement) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
-            Select select = new Select(dropdown);
-            select.selectByVisibleText(text);
+            WebElement dropdown = findElement(dropdownElement);
+            List<DropDownOption> options = fastDropDown ? jsUtils.getDropDownOptions(dropdown, false) : null;
+            if (options == null) {
+                options = toDropDownOptions(new Select(dropdown).getOptions());
+            }
+            log.info("Successfully retrieved {} options data from dropdown identified by {}.", options.size(), dropdownElement);
+            return options;
+        } catch (Exception e) {
+            log.warn("Failed to retrieve options data from the dropdown identified by {}.", dropdownElement);
+            return null;
+        }
+    }
+
+    /**
+     * Selects the option with the given visible text.
+     *
+     * @param dropdownElement The locator of the dropdown.
+     * @param text            The visible text of the option.
+     * @return The selected options after the change, or null if the selection failed.
+     */
+    public List<DropDownOption> selectTextFromDropDown(By dropdownElement, String text) {
+        try {
+            WebElement dropdown = findElement(dropdownElement);
+            List<DropDownOption> selection = selectWithScript(dropdown, "text", text);
+            if (selection == null) {
+                Select select = new Select(dropdown);
+                select.selectByVisibleText(text);
+                selection = toDropDownOptions(select.getAllSelectedOptions());
+            }
             log.info("Successfully selected text '{}' from dropdown.", text);
+            return selection;
         } catch (Exception e) {
             log.error("The text '{}' is not found in the dropdown identified by {}.", text, dropdownElement);
             Assertions.fail("Failed to select text from dropdown of element: " + dropdownElement + ". Exception: " + e.getMessage());
+            return null;
         }
     }
 
-    public void selectValueFromDropDown(By dropdownElement, String value) {
+    /**
+     * Selects the option with the given value attribute.
+     *
+     * @param dropdownElement The locator of the dropdown.
+     * @param value           The value of the option.
+     * @return The selected options after the change, or null if the selection failed.
+     */
+    public List<DropDownOption> selectValueFromDropDown(By dropdownElement, String value) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
-            Select select = new Select(dropdown);
-            select.selectByValue(value);
+            WebElement dropdown = findElement(dropdownElement);
+            List<DropDownOption> selection = selectWithScript(dropdown, "value", value);
+            if (selection == null) {
+                Select select = new Select(dropdown);
+                select.selectByValue(value);
+                selection = toDropDownOptions(select.getAllSelectedOptions());
+            }
             log.info("Successfully selected value '{}' from dropdown.", value);
+            return selection;
         } catch (Exception e) {
             log.error("The value '{}' is not found in the dropdown identified by {}.", value, dropdownElement);
             Assertions.fail("Failed to select value from dropdown of element: " + dropdownElement + ". Exception: " + e.getMessage());
+            return null;
         }
     }
 
-    public void selectIndexFromDropDown(By dropdownElement, int index) {
+    /**
+     * Selects the option at the given index.
+     *
+     * @param dropdownElement The locator of the dropdown.
+     * @param index           The index of the option.
+     * @return The selected options after the change, or null if the selection failed.
+     */
+    public List<DropDownOption> selectIndexFromDropDown(By dropdownElement, int index) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
-            Select select = new Select(dropdown);
-            select.selectByIndex(index);
+            WebElement dropdown = findElement(dropdownElement);
+            List<DropDownOption> selection = selectWithScript(dropdown, "index", String.valueOf(index));
+            if (selection == null) {
+                Select select = new Select(dropdown);
+                select.selectByIndex(index);
+                selection = toDropDownOptions(select.getAllSelectedOptions());
+            }
             log.info("Successfully selected index '{}' from dropdown.", index);
+            return selection;
         } catch (Exception e) {
             log.error("The index '{}' is not found in the dropdown identified by {}.", index, dropdownElement);
             Assertions.fail("Failed to select index from dropdown of element: " + dropdownElement + ". Exception: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Selects an option in-page when the fast dropdown path is enabled.
+     *
+     * @return the resulting selection, or null if the Select class should be used instead.
+     */
+    private List<DropDownOption> selectWithScript(WebElement dropdown, String mode, String key) {
+        return fastDropDown ? jsUtils.selectDropDownOption(dropdown, mode, key) : null;
+    }
+
+    /**
+     * Builds option snapshots from option WebElements, used only by the Select fallback path.
+     */
+    private List<DropDownOption> toDropDownOptions(List<WebElement> optionElements) {
+        List<DropDownOption> options = new ArrayList<>();
+        for (WebElement option : optionElements) {
+            String index = option.getAttribute("index");
+            options.add(new DropDownOption(index == null ? options.size() : Integer.parseInt(index),
+                    option.getAttribute("value"), option.getText(), option.isSelected()));
         }
+        return options;
     }
 
     public void deselectTextFromDropDown(By dropdownElement, String text) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
+            WebElement dropdown = findElement(dropdownElement);
             Select select = new Select(dropdown);
             select.deselectByVisibleText(text);
             log.info("Successfully deselected text '{}' from dropdown.", text);
@@ -937,7 +1132,7 @@ public class SeleUtils extends BaseWebDriver {
 
     public void deselectValueFromDropDown(By dropdownElement, String value) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
+            WebElement dropdown = findElement(dropdownElement);
             Select select = new Select(dropdown);
             select.deselectByValue(value);
             log.info("Successfully deselected value '{}' from dropdown.", value);
@@ -949,7 +1144,7 @@ public class SeleUtils extends BaseWebDriver {
 
     public void deselectIndexFromDropDown(By dropdownElement, int index) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
+            WebElement dropdown = findElement(dropdownElement);
             Select select = new Select(dropdown);
             select.deselectByIndex(index);
             log.info("Successfully deselected index '{}' from dropdown.", index);
@@ -961,7 +1156,7 @@ public class SeleUtils extends BaseWebDriver {
 
     public void deselectAllFromDropDown(By dropdownElement) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
+            WebElement dropdown = findElement(dropdownElement);
             Select select = new Select(dropdown);
             select.deselectAll();
             log.info("Successfully deselected all from dropdown.");
@@ -973,7 +1168,7 @@ public class SeleUtils extends BaseWebDriver {
 
     public WebElement getFirstSelectedOptionFromDropDown(By dropdownElement) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
+            WebElement dropdown = findElement(dropdownElement);
             Select select = new Select(dropdown);
             WebElement selectedOptions = select.getFirstSelectedOption();
             log.info("Successfully retrieved first selected option from dropdown identified by {}.", dropdownElement);
@@ -987,9 +1182,11 @@ public class SeleUtils extends BaseWebDriver {
 
     public List<WebElement> getAllSelectedOptionsFromDropDown(By dropdownElement) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
-            Select select = new Select(dropdown);
-            List<WebElement> selectedOptions = select.getAllSelectedOptions();
+            WebElement dropdown = findElement(dropdownElement);
+            List<WebElement> selectedOptions = fastDropDown ? jsUtils.getDropDownOptionElements(dropdown, true) : null;
+            if (selectedOptions == null) {
+                selectedOptions = new Select(dropdown).getAllSelectedOptions();
+            }
             log.info("Successfully retrieved all selected options from dropdown identified by {}.", dropdownElement);
             return selectedOptions;
         } catch (Exception e) {
@@ -1000,9 +1197,11 @@ public class SeleUtils extends BaseWebDriver {
 
     public List<WebElement> getAllOptionsFromDropDown(By dropdownElement) {
         try {
-            WebElement dropdown = getDriver().findElement(dropdownElement);
-            Select select = new Select(dropdown);
-            List<WebElement> selectedOptions = select.getOptions();
+            WebElement dropdown = findElement(dropdownElement);
+            List<WebElement> selectedOptions = fastDropDown ? jsUtils.getDropDownOptionElements(dropdown, false) : null;
+            if (selectedOptions == null) {
+                selectedOptions = new Select(dropdown).getOptions();
+            }
             log.info("Successfully retrieved all options from dropdown identified by {}.", dropdownElement);
             return selectedOptions;
         } catch (Exception e) {
@@ -1025,7 +1224,7 @@ public class SeleUtils extends BaseWebDriver {
         String text = "";
         try {
             log.info("Getting text of the element with locator: {}", element);
-            text = getDriver().findElement(element).getText();
+            text = findElement(element).getText();
             log.info("Text has been successfully retrieved from the element with locator: {}", element);
         } catch (Exception e) {
             log.error("Failed to get text from the element: {}", element, e);
@@ -1043,7 +1242,7 @@ public class SeleUtils extends BaseWebDriver {
      */
     public String getElementAttribute(By element, String attributeName) {
         try {
-            return getDriver().findElement(element).getAttribute(attributeName);
+            return findElement(element).getAttribute(attributeName);
         } catch (Exception e) {
             log.error("An error occurred while getting the attribute '{}' from the element with locator '{}': {}", attributeName, element, e.getMessage());
             return null;
@@ -1173,7 +1372,7 @@ public class SeleUtils extends BaseWebDriver {
      */
     public void sendKeysToAlert(By element, String text) {
         try {
-            getDriver().findElement(element).click();
+            findElement(element).click();
             Alert alert = getDriver().switchTo().alert();
             alert.sendKeys(text);
             log.info("Sent text to alert: {}", text);
@@ -1,18 +1,50 @@
 package com.sauceLabs.common.utils.cucumber;
 
 import com.sauceLabs.common.ui.base.BaseWebDriver;
+import com.sauceLabs.common.utils.metrics.RunHistory;
+import com.sauceLabs.common.utils.metrics.RunMetrics;
+import com.sauceLabs.common.utils.profiling.BrowserResourceSampler;
+import com.sauceLabs.common.utils.profiling.FlightRecording;
+import com.sauceLabs.common.utils.profiling.LocatorProfiler;
+import com.sauceLabs.common.utils.profiling.MethodProfiler;
+import com.sauceLabs.common.utils.profiling.StepEvent;
+import com.sauceLabs.common.utils.screenshot.ArtifactStore;
+import com.sauceLabs.common.utils.screenshot.DevToolsScreenshot;
 import com.sauceLabs.common.utils.screenshot.ScreenShot;
+import com.sauceLabs.common.utils.screenshot.ScreenshotBufferPool;
+import com.sauceLabs.common.utils.screenshot.ScreenshotEncoder;
+import com.sauceLabs.common.utils.screenshot.ScreenshotPipeline;
+import com.sauceLabs.common.utils.screenshot.ScreenshotPolicy;
+import com.sauceLabs.common.utils.screenshot.ScreenshotRingBuffer;
+import com.sauceLabs.common.utils.screenshot.ScreencastRecorder;
+import com.sauceLabs.common.utils.screenshot.StepScreenshot;
 import com.sauceLabs.common.utils.timer.MyTimer;
+import com.sauceLabs.common.utils.tracing.CommandTracer;
+import com.sauceLabs.common.utils.tracing.DomTraceRecorder;
+import com.sauceLabs.common.utils.tracing.TimelineRecorder;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.AfterStep;
 import io.cucumber.java.Before;
+import io.cucumber.java.BeforeAll;
+import io.cucumber.java.BeforeStep;
 import io.cucumber.java.Scenario;
 import com.sauceLabs.common.utils.logs.MyLogger;
+import com.sauceLabs.common.utils.logs.ScenarioLogAppender;
+import org.apache.logging.log4j.ThreadContext;
 import org.apache.logging.log4j.core.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 public class CucumberHooks {
@@ -20,6 +52,18 @@ public class CucumberHooks {
     public static Logger log = new MyLogger().getLogger();
     private static String dataAttached = "";
     private static int count = 0;
+    private static final ScreenshotPolicy screenshotPolicy = ScreenshotPolicy.fromProperty();
+    private static final String screenshotScope = System.getProperty("Screenshot.Scope", "viewport").toLowerCase();
+    private static final DevToolsScreenshot clippedScreenshot = new DevToolsScreenshot().padding(Integer.getInteger("Screenshot.ElementPadding", 8));
+    private final List<CompletableFuture<StepScreenshot>> pendingScreenshots = new ArrayList<>();
+    private final ScreenshotRingBuffer screenshotRingBuffer =
+            screenshotPolicy.mode() == ScreenshotPolicy.Mode.RING_BUFFER ? new ScreenshotRingBuffer(screenshotPolicy.bufferSize()) : null;
+    private boolean failureScreenshotTaken = false;
+    private CompletableFuture<StepScreenshot> lastScreenshot;
+    private StepEvent stepEvent;
+    private int stepIndex = 0;
+    private long stepStart;
+    private long scenarioStart;
 
     public static void setTextToAttach(String content) {
         dataAttached = content;
@@ -33,26 +77,109 @@ public class CucumberHooks {
     }
 
 
-    private File attachStepScreenshot(Scenario scenario, String fileName) {
-        File screenShotFile = null;
+    private boolean attachStepScreenshot(Scenario scenario, String fileName) {
         ScreenShot screenShot = new ScreenShot();
         boolean reduceScreenshotSize = Boolean.parseBoolean(System.getProperty("ReduceScreenshotSize", "false"));
         if (baseWebDriver.isDriverActive()) {
             try {
                 if (reduceScreenshotSize) {
-                    // Attach the resized image to the scenario
-                    scenario.attach(screenShot.TakeReducedDimensionScreenShots(baseWebDriver.getDriver(), fileName), "image/png", "screenshot " + fileName);
+                    // Attach the resized image to the scenario, it is written to disk only when screenshots are kept there
+                    boolean writeToDisk = Boolean.parseBoolean(System.getProperty("Screenshot.WriteToDisk", "true"));
+                    ScreenshotEncoder.EncodedImage image = screenShot.TakeReducedDimensionScreenShots(baseWebDriver.getDriver(),
+                            writeToDisk ? fileName : null);
+                    scenario.attach(image.bytes(), image.mediaType(), "screenshot " + fileName + "." + image.extension());
                     log.info("Attached the resized screenShot to the scenario");
                 } else {
-                    screenShotFile = new ScreenShot().takeWebScreenShot(baseWebDriver.getDriver(), fileName);
+                    File screenShotFile = screenShot.takeWebScreenShot(baseWebDriver.getDriver(), fileName);
                     scenario.attach(Files.readAllBytes(screenShotFile.toPath()), "image/png", "screenshot " + screenShotFile.getName());
                     log.info("Attached the normal size of screenShot to the scenario");
                 }
+                return true;
             } catch (IOException e) {
                 log.error("Error attaching screenshot.\n {}", e.getMessage());
             }
         }
-        return screenShotFile;
+        return false;
+    }
+
+    /**
+     * Captures the screenshot bytes on the scenario thread and queues the rest of the work on the screenshot pipeline,
+     * the hook waits only for a small budget and screenshots which are not ready yet are attached by a later hook.
+     */
+    private boolean queueStepScreenshot(Scenario scenario, String fileName) {
+        if (!baseWebDriver.isDriverActive()) {
+            return false;
+        }
+        boolean reduceScreenshotSize = Boolean.parseBoolean(System.getProperty("ReduceScreenshotSize", "false"));
+        ScreenshotBufferPool.Lease screenshot = ScreenshotPipeline.capture(this::captureStepScreenshot);
+        CompletableFuture<StepScreenshot> future = ScreenshotPipeline.submit(screenshot, fileName, reduceScreenshotSize, lastScreenshot);
+        lastScreenshot = future;
+        StepScreenshot stepScreenshot = ScreenshotPipeline.await(future);
+        if (stepScreenshot != null) {
+            attachScreenshot(scenario, stepScreenshot);
+        } else {
+            pendingScreenshots.add(future);
+        }
+        return true;
+    }
+
+    /**
+     * Captures the step screenshot in the scope of 'Screenshot.Scope': the viewport (default), the last interacted element
+     * ('element', falling back to the viewport when there is none or it is gone) or the whole page ('fullpage').
+     * Clipped captures are png like viewport captures so the pipeline encodes them the same way.
+     */
+    private ScreenshotBufferPool.Lease captureStepScreenshot() {
+        WebDriver driver = baseWebDriver.getDriver();
+        if (screenshotScope.equals("element")) {
+            WebElement element = baseWebDriver.getLastElement();
+            if (element != null) {
+                try {
+                    return clippedScreenshot.captureElementBuffer(driver, element);
+                } catch (WebDriverException e) {
+                    log.debug("Last interacted element can not be captured, capturing the viewport: {}", e.getMessage());
+                }
+            }
+        } else if (screenshotScope.equals("fullpage")) {
+            return clippedScreenshot.captureFullPageBuffer(driver);
+        }
+        return new ScreenShot().takeWebScreenShotBuffer(driver);
+    }
+
+    /**
+     * Attaches queued screenshots of previous steps, attachments keep their capture order.
+     *
+     * @param waitForAll true to wait for every pending screenshot, false to attach only the finished ones
+     */
+    private void attachPendingScreenshots(Scenario scenario, boolean waitForAll) {
+        Iterator<CompletableFuture<StepScreenshot>> iterator = pendingScreenshots.iterator();
+        while (iterator.hasNext()) {
+            CompletableFuture<StepScreenshot> future = iterator.next();
+            if (!waitForAll && !future.isDone()) {
+                break;
+            }
+            StepScreenshot stepScreenshot = ScreenshotPipeline.flush(future);
+            if (stepScreenshot != null) {
+                attachScreenshot(scenario, stepScreenshot);
+            }
+            iterator.remove();
+        }
+    }
+
+    private void attachScreenshot(Scenario scenario, StepScreenshot stepScreenshot) {
+        if (stepScreenshot.isDuplicate()) {
+            // the screen did not change, reference the earlier image instead of attaching the same bytes again
+            scenario.attach("Screen unchanged, same as screenshot " + stepScreenshot.duplicateOf().name(),
+                    "text/plain", "screenshot " + stepScreenshot.name());
+            return;
+        }
+        if (stepScreenshot.bytes() == null) {
+            // kept in the artifact store, the report links the stored object instead of embedding the image
+            scenario.attach(stepScreenshot.file().toPath().toAbsolutePath().toUri().toString(), "text/uri-list",
+                    "screenshot " + stepScreenshot.name());
+        } else {
+            scenario.attach(stepScreenshot.bytes(), stepScreenshot.mediaType(), "screenshot " + stepScreenshot.name());
+        }
+        log.info("Attached screenshot {} to the scenario", stepScreenshot.name());
     }
 
 
@@ -74,23 +201,170 @@ public class CucumberHooks {
             fileName = fileName.substring(0, 170);
         }
 
-        log.info("Creating screenshot with file name: {}", fileName);
-
+        long start = System.nanoTime();
         try {
-            if (attachStepScreenshot(scenario, fileName) != null) {
-                log.info("After step screenshot attached.");
-            } else {
-                log.warn("Failed to attach screenshot for scenario: {}", scenario.getName());
+            switch (screenshotPolicy.mode()) {
+                case EVERY_STEP -> takeStepScreenshot(scenario, fileName);
+                case ON_FAILURE -> {
+                    // only the first failed step is captured, the following steps are skipped anyway
+                    if (scenario.isFailed() && !failureScreenshotTaken) {
+                        failureScreenshotTaken = true;
+                        takeStepScreenshot(scenario, fileName);
+                    }
+                }
+                case RING_BUFFER -> {
+                    if (baseWebDriver.isDriverActive()) {
+                        try (ScreenshotBufferPool.Lease screenshot = captureStepScreenshot()) {
+                            screenshotRingBuffer.add(fileName, screenshot.toBytes());
+                        }
+                    }
+                }
             }
         } catch (Exception e) {
             log.warn("Error attaching screenshot for scenario: {}\n{}", scenario.getName(), e.getMessage());
         }
+        ScreenshotPipeline.recordStepOverhead(System.nanoTime() - start);
+        TimelineRecorder.record("screenshot", screenshotPolicy.mode(), "step " + stepIndex + " screenshot", start);
+    }
+
+    private void takeStepScreenshot(Scenario scenario, String fileName) {
+        log.info("Creating screenshot with file name: {}", fileName);
+        if (ScreenshotPipeline.isEnabled()) {
+            attachPendingScreenshots(scenario, false);
+            if (!queueStepScreenshot(scenario, fileName)) {
+                log.warn("Failed to capture screenshot for scenario: {}", scenario.getName());
+            }
+        } else if (attachStepScreenshot(scenario, fileName)) {
+            log.info("After step screenshot attached.");
+        } else {
+            log.warn("Failed to attach screenshot for scenario: {}", scenario.getName());
+        }
+    }
+
+    @After("@ui or @UI or @Ui")
+    public void attachRemainingScreenshots(Scenario scenario) {
+        if (screenshotRingBuffer != null) {
+            // drain always, so a passed scenario releases its share of the global screenshot byte cap
+            List<ScreenshotRingBuffer.BufferedScreenshot> bufferedScreenshots = screenshotRingBuffer.drain();
+            if (scenario.isFailed()) {
+                log.info("Scenario failed, attaching the last {} step screenshots", bufferedScreenshots.size());
+                boolean reduceScreenshotSize = Boolean.parseBoolean(System.getProperty("ReduceScreenshotSize", "false"));
+                for (ScreenshotRingBuffer.BufferedScreenshot bufferedScreenshot : bufferedScreenshots) {
+                    lastScreenshot = ScreenshotPipeline.submit(bufferedScreenshot.png(), bufferedScreenshot.fileName(), reduceScreenshotSize, lastScreenshot);
+                    pendingScreenshots.add(lastScreenshot);
+                }
+            }
+        }
+        attachPendingScreenshots(scenario, true);
+    }
+
+    /**
+     * Stops the screencast recording before the browser is closed (higher order after hooks run first),
+     * the recording is linked from the report when it is kept.
+     */
+    @After(value = "@ui or @UI or @Ui", order = 20000)
+    public void stopScreencast(Scenario scenario) {
+        String recordingName = new MyTimer().getCurrentTimeInString() + scenario.getName().replaceAll("[^A-Za-z0-9_-]", "_");
+        Path recording = ScreencastRecorder.stopRecording(scenario.isFailed(), recordingName);
+        if (recording != null) {
+            scenario.attach(recording.toAbsolutePath().toUri().toString(), "text/uri-list", "screencast " + recordingName);
+            log.info("Screencast recording kept in: {}", recording);
+        }
+    }
+
+    /**
+     * Closes the DOM trace with a final snapshot while the browser is still open,
+     * the trace is linked from the report when it is kept.
+     */
+    @After(value = "@ui or @UI or @Ui", order = 20000)
+    public void stopDomTrace(Scenario scenario) {
+        if (!DomTraceRecorder.isEnabled()) {
+            return;
+        }
+        String traceName = new MyTimer().getCurrentTimeInString() + scenario.getName().replaceAll("[^A-Za-z0-9_-]", "_");
+        Path trace = DomTraceRecorder.stop(baseWebDriver.isDriverActive() ? baseWebDriver.getDriver() : null, scenario.isFailed(), traceName);
+        if (trace != null) {
+            scenario.attach(trace.toAbsolutePath().toUri().toString(), "text/uri-list", "DOM trace " + traceName);
+            log.info("DOM trace kept in: {}, open it with viewer.html in the same directory", trace);
+        }
+    }
+
+    @Before(value = "@ui or @UI or @Ui", order = 1)
+    public void startCommandTrace(Scenario scenario) {
+        if (CommandTracer.isEnabled()) {
+            CommandTracer.startScenario(scenario.getName());
+        }
+    }
+
+    @BeforeStep("@ui or @UI or @Ui")
+    public void startCommandTraceStep() {
+        CommandTracer.startStep();
+    }
+
+    /**
+     * Ends the command trace step before the screenshot hooks run (higher order after step hooks run first),
+     * so step histograms only contain the commands of the step itself.
+     */
+    @AfterStep(value = "@ui or @UI or @Ui", order = 20000)
+    public void endCommandTraceStep() {
+        CommandTracer.endStep();
+    }
+
+    /**
+     * Writes the command trace before the browser is closed, the latency summary is attached to the report
+     * and the OTLP JSON trace is linked from it.
+     */
+    @After(value = "@ui or @UI or @Ui", order = 20000)
+    public void finishCommandTrace(Scenario scenario) {
+        String traceName = new MyTimer().getCurrentTimeInString() + scenario.getName().replaceAll("[^A-Za-z0-9_-]", "_");
+        CommandTracer.TraceSummary trace = CommandTracer.finishScenario(scenario.isFailed(), traceName);
+        if (trace == null) {
+            return;
+        }
+        scenario.attach(trace.summary(), "text/plain", "command latencies " + traceName);
+        if (trace.file() != null) {
+            scenario.attach(trace.file().toAbsolutePath().toUri().toString(), "text/uri-list", "command trace " + traceName);
+        }
+        log.info(trace.summary());
+    }
+
+    /**
+     * Replaces the browser before the step when the resource sampler found it above the recycle threshold,
+     * the page, its cookies and its web storage are carried over to the new browser.
+     */
+    @BeforeStep("@ui or @UI or @Ui")
+    public void recycleOversizedBrowser() {
+        if (BrowserResourceSampler.shouldRecycle(baseWebDriver.getDriver())) {
+            long start = System.nanoTime();
+            baseWebDriver.recycleDriver();
+            TimelineRecorder.record("browser", "recycled", "recycle browser", start);
+        }
+    }
+
+    /**
+     * Stops sampling the browser resources before the browser is closed (higher order after hooks run first),
+     * the summary and the samples of every session of the scenario are attached to the report.
+     */
+    @After(value = "@ui or @UI or @Ui", order = 20000)
+    public void finishBrowserResources(Scenario scenario) {
+        if (!BrowserResourceSampler.isEnabled()) {
+            return;
+        }
+        int session = 0;
+        for (BrowserResourceSampler.SessionReport report : BrowserResourceSampler.finishScenario(scenario.getUri().toString())) {
+            session++;
+            scenario.attach(report.summary(), "text/plain", "browser resources " + session);
+            scenario.attach(report.csv(), "text/csv", "browser resource samples " + session);
+            log.info(report.summary());
+        }
     }
 
     @After("@ui or @UI or @Ui")
     public void closeBrowser() {
         if (baseWebDriver.isDriverActive()) {
+            long start = System.nanoTime();
             baseWebDriver.quitAndRemoveDriver();
+            TimelineRecorder.record("browser", "quit", "quit browser", start);
             log.info("WebDriver quit successfully.");
         } else {
             log.info("No active WebDriver instance to quit.");
@@ -101,6 +375,32 @@ public class CucumberHooks {
      * Generic Cucumber Hooks
      * *****************************/
 
+    @BeforeStep
+    public void stepStarted() {
+        stepIndex++;
+        stepStart = System.nanoTime();
+        // no event is allocated per step unless a flight recorder runs
+        stepEvent = FlightRecording.isActive() ? new StepEvent() : null;
+        if (stepEvent != null) {
+            stepEvent.begin();
+        }
+    }
+
+    /**
+     * Ends the step event and records the step duration before the screenshot hooks run (higher order after step hooks run first).
+     */
+    @AfterStep(order = 20000)
+    public void stepFinished(Scenario scenario) {
+        long stepNanos = System.nanoTime() - stepStart;
+        RunMetrics.stepFinished(stepNanos);
+        RunHistory.stepFinished(stepNanos, scenario.isFailed());
+        TimelineRecorder.record("step", scenario.getStatus(), scenario.getName() + " - step " + stepIndex, stepStart);
+        if (stepEvent != null) {
+            stepEvent.finish(scenario.getName(), stepIndex, scenario.getStatus());
+            stepEvent = null;
+        }
+    }
+
     @AfterStep
     public static void afterStep(Scenario scenario) {
         addTextBox(scenario);
@@ -111,8 +411,17 @@ public class CucumberHooks {
      * Logs organizer Cucumber Hooks
      * *****************************/
 
-    @Before
-    public void executionStarted() {
+    /**
+     * Puts the scenario name in the thread context so every log line of the scenario carries it,
+     * and the scenario id so the lines are routed to the scenario log buffer.
+     */
+    @Before(order = 0)
+    public void executionStarted(Scenario scenario) {
+        scenarioStart = System.nanoTime();
+        ThreadContext.put("scenario", scenario.getName());
+        ThreadContext.put(ScenarioLogAppender.scenarioIdKey, scenario.getId());
+        ScenarioLogAppender.open(scenario.getId());
+        RunMetrics.scenarioStarted();
         log.info("""
                 ###########################################################
                 ###########################################################
@@ -122,8 +431,12 @@ public class CucumberHooks {
                 """);
     }
 
-    @After
-    public void executionFinished() {
+    /**
+     * Runs after the other after hooks (lower order after hooks run last), so their log lines still carry the scenario name
+     * and are part of the scenario log, which is attached when the scenario failed and discarded or spilled otherwise.
+     */
+    @After(order = 0)
+    public void executionFinished(Scenario scenario) {
         log.info("""
                 ############################################################
                 ############################################################
@@ -131,5 +444,55 @@ public class CucumberHooks {
                 ############################################################
                 ############################################################
                 """);
+        RunMetrics.scenarioFinished(scenario.isFailed());
+        MethodProfiler.flush();
+        RunHistory.scenarioFinished(scenario.getUri(), scenario.getLine(), scenario.getName(),
+                scenario.getStatus().name(), System.nanoTime() - scenarioStart);
+        TimelineRecorder.record("scenario", scenario.getStatus(), scenario.getName(), scenarioStart);
+        String scenarioLog = ScenarioLogAppender.close(scenario.getId());
+        ThreadContext.remove("scenario");
+        ThreadContext.remove(ScenarioLogAppender.scenarioIdKey);
+        if (scenarioLog.isEmpty()) {
+            return;
+        }
+        if (scenario.isFailed()) {
+            scenario.attach(scenarioLog, "text/plain", "scenario log");
+        } else if (ScenarioLogAppender.isSpillOnSuccess()) {
+            try {
+                ScenarioLogAppender.spill(scenario.getName(), scenarioLog);
+            } catch (IOException e) {
+                log.error("Failed to spill the scenario log: {}", e.getMessage());
+            }
+        }
+    }
+
+    /*******************************
+     * Run reports Cucumber Hooks
+     * *****************************/
+
+    @BeforeAll
+    public static void startRunRecording() {
+        FlightRecording.start();
+        RunMetrics.start();
+    }
+
+    @AfterAll
+    public static void writeRunReports() {
+        FlightRecording.stop();
+        RunMetrics.stop();
+        TimelineRecorder.finish();
+        RunHistory.finish();
+        LocatorProfiler.writeReport();
+        MethodProfiler.writeReport();
+        MyTimer.writeReport();
+        BrowserResourceSampler.writeReport();
+        ScreenshotPipeline.logSummary();
+        if (ArtifactStore.isEnabled()) {
+            try {
+                ArtifactStore.prune();
+            } catch (IOException e) {
+                log.error("Failed to prune the artifact store: {}", e.getMessage());
+            }
+        }
     }
 }
@@ -274,6 +274,30 @@ public class FileUtil {
         return output.toString();
     }
 
+    /**
+     * Writes an end of run report such as a profile or a slowdown list, creating its directory,
+     * failures are logged and never break the run.
+     *
+     * @param reportPath  The path of the report file.
+     * @param report      The report text.
+     * @param description What the report holds, used in the log messages.
+     * @return The written report file, or null if it could not be written.
+     */
+    public static Path writeReport(String reportPath, String report, String description) {
+        Path reportFile = Paths.get(reportPath);
+        try {
+            if (reportFile.getParent() != null) {
+                Files.createDirectories(reportFile.getParent());
+            }
+            Files.write(reportFile, report.getBytes(StandardCharsets.UTF_8));
+            log.info("{} written to: {}", description, reportFile.toAbsolutePath());
+            return reportFile;
+        } catch (IOException e) {
+            log.error("Failed to write {}: {}", description, e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Writes content to a file with the specified path, name, and extension.
      *
@@ -6,6 +6,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
 import org.apache.logging.log4j.core.appender.ConsoleAppender;
 import org.apache.logging.log4j.core.appender.FileAppender;
 import org.apache.logging.log4j.core.config.AppenderRef;
@@ -21,7 +22,13 @@ import java.util.Collection;
 
 /**
  * log4j implementation to log into text file and email, to log from any class just call 'getLogger' method,
- * class support logging in temp file then sending it in email
+ * class support logging in temp file then sending it in email,
+ * with 'AsyncLogs' system property the file is written by a background thread which drains a pre-allocated queue
+ * of 'AsyncLogs.BufferSize' events and flushes buffered writes once per batch,
+ * caller class and line are logged unless 'LogLocation=false' (default false in async mode, the stack walk is the costly part),
+ * every line carries the scenario name which CucumberHooks puts in the thread context,
+ * lines are also routed to per scenario buffers (see ScenarioLogAppender) unless 'ScenarioLogs=false',
+ * in async mode the buffers are fed by the same background thread as the file
  *
  * @author MahmoudOsama
  */
@@ -35,6 +42,10 @@ public class MyLogger {
     private static LoggerConfig loggerConfig;
     private static ConfigurationBuilder<BuiltConfiguration> builder;
     private static Boolean isFirstRun = true;
+    private static final boolean asyncLogs = Boolean.parseBoolean(System.getProperty("AsyncLogs", "false"));
+    private static final boolean includeLocation = Boolean.parseBoolean(System.getProperty("LogLocation", String.valueOf(!asyncLogs)));
+    private static final int asyncBufferSize = Integer.getInteger("AsyncLogs.BufferSize", 8192);
+    private static final boolean scenarioLogs = Boolean.parseBoolean(System.getProperty("ScenarioLogs", "true"));
     private final PropertiesManager propertiesManager = new PropertiesManager();
 
     /**
@@ -60,6 +71,7 @@ public class MyLogger {
      * - It creates a pattern layout to define the format of the log messages.
      * - For the first run, it adds a file appender and a console appender based on the property `Console.Logs` from the properties file:
      *   - If `Console.Logs` is set to `true`, it adds the console appender to log DEBUG level messages and above.
+     *   - If `ScenarioLogs` is not set to `false`, it adds the per scenario buffer appender, behind the async appender in async mode.
      *   - Appenders are added only if they do not already exist.
      */
     private void appenderCreator() {
@@ -67,32 +79,61 @@ public class MyLogger {
             initializeLogger();
         }
 
-        String pattern = "[%-5level] %d{yyyy-MM-dd HH:mm:ss} %C{2} - line=%L - %m%n";
-        PatternLayout layout = PatternLayout.newBuilder().withPattern(pattern).build();
+        PatternLayout layout = PatternLayout.newBuilder().withPattern(logPattern()).build();
 
         if (!isFirstRun) {
-            // Create and add file appender
-            fileAppender = fileAppender("file", layout, config);
+            // Create and add file appender, behind an async appender in async mode which also feeds the per scenario buffers
             if (!isAppenderExist("file")) {
-                loggerProperties(fileAppender, Level.DEBUG);
+                fileAppender = fileAppender("file", layout, config);
+                if (asyncLogs && scenarioLogs) {
+                    Appender scenarioAppender = new ScenarioLogAppender("scenario-buffer", layout);
+                    scenarioAppender.start();
+                    Appender asyncAppender = asyncAppender("async-file", fileAppender, scenarioAppender);
+                    ScenarioLogAppender.flushThrough(asyncAppender);
+                    loggerProperties(asyncAppender, Level.DEBUG);
+                } else {
+                    loggerProperties(asyncLogs ? asyncAppender("async-file", fileAppender) : fileAppender, Level.DEBUG);
+                }
             }
 
             // Create and add console appender
-            Appender consoleAppender = consoleAppender("console", layout, config);
             if (!isAppenderExist("console") && Boolean.parseBoolean(System.getProperty("ConsoleLogs", "false"))) {
+                Appender consoleAppender = consoleAppender("console", layout, config);
                 loggerProperties(consoleAppender, Level.DEBUG);  // Log DEBUG level and above
                 System.out.println("Console appender added.");
             }
+
+            // Create and add the per scenario buffer appender outside async mode, it is synchronous so a buffer is complete when the scenario ends
+            if (!asyncLogs && scenarioLogs && !isAppenderExist("scenario-buffer")) {
+                Appender scenarioAppender = new ScenarioLogAppender("scenario-buffer", layout);
+                scenarioAppender.start();
+                loggerProperties(scenarioAppender, Level.DEBUG);
+            }
         }
         isFirstRun = false;
     }
 
 
+    /**
+     * Builds the log line pattern.
+     * - Caller class and line ('%C', '%L') are only included when location logging is enabled.
+     * - Without location the thread name is logged instead, so interleaved parallel scenarios can still be told apart.
+     * - The scenario name is taken from the thread context key 'scenario' and omitted when it is not set.
+     *
+     * @return The pattern for all appenders.
+     */
+    static String logPattern() {
+        return includeLocation
+                ? "[%-5level] %d{yyyy-MM-dd HH:mm:ss} %notEmpty{[%X{scenario}] }%C{2} - line=%L - %m%n"
+                : "[%-5level] %d{yyyy-MM-dd HH:mm:ss} [%t] %notEmpty{[%X{scenario}] }- %m%n";
+    }
+
+
 
     /**
      * Configures and adds the specified appender to the logger.
      * - The logger context and configuration are retrieved.
-     * - The appender is started and added to the configuration.
+     * - The appender is started unless it is running already, and added to the configuration.
      * - An `AppenderRef` is created to associate the appender with the specified log level.
      * - If `loggerConfig` is null, a new root logger configuration is created, allowing logging for all levels (`Level.ALL`) and attaching the appender.
      * - The appender is then added to the logger with the specified log level, and the logger configuration is updated in the context.
@@ -105,14 +146,17 @@ public class MyLogger {
         ctx = (LoggerContext) LogManager.getContext(false);
         config = ctx.getConfiguration();
 
-        appender.start();
+        // appenders come started from their factory methods, starting an AsyncAppender again would add a second dispatcher thread
+        if (!appender.isStarted()) {
+            appender.start();
+        }
         config.addAppender(appender);
 
         AppenderRef ref = AppenderRef.createAppenderRef(appender.getName(), level, null);
         AppenderRef[] refs = new AppenderRef[]{ref};
 
         if (loggerConfig == null) {
-            loggerConfig = LoggerConfig.RootLogger.createLogger(false, Level.ALL, "testlog", "true", refs, null, config, null);
+            loggerConfig = LoggerConfig.RootLogger.createLogger(false, Level.ALL, "testlog", String.valueOf(includeLocation), refs, null, config, null);
         }
         loggerConfig.addAppender(appender, level, null);
 
@@ -139,7 +183,7 @@ public class MyLogger {
         builder.setStatusLevel(Level.FATAL);
 
         LayoutComponentBuilder layout = builder.newLayout("PatternLayout");
-        layout.addAttribute("pattern", "[%-5level] %d{yyyy-MM-dd HH:mm:ss} %C{2} - line=%L - %m%n");
+        layout.addAttribute("pattern", logPattern());
         AppenderComponentBuilder console = builder.newAppender("stdout", "Console").addAttribute("target",
                 ConsoleAppender.Target.SYSTEM_OUT);
         console.add(layout);
@@ -160,6 +204,7 @@ public class MyLogger {
      * - The method constructs a file appender that writes log messages to a file located at "log.txt" in the current directory.
      * - The `appenderName` is used to identify the appender.
      * - A `PatternLayout` is used to format the log messages based on the provided layout pattern.
+     * - In async mode the writes are buffered and only flushed at the end of each batch drained by the async appender.
      *
      * @param appenderName The name of the appender.
      * @param layout The pattern layout for formatting log messages.
@@ -169,12 +214,49 @@ public class MyLogger {
     private Appender fileAppender(String appenderName, PatternLayout layout, Configuration config) {
         String tmpPath = System.getProperty("user.dir") + File.separator + "log.txt";
         FileAppender appenderFile = FileAppender.newBuilder().setConfiguration(config).withName(appenderName)
-                .withLayout(layout).withFileName(tmpPath).build();
+                .withLayout(layout).withFileName(tmpPath)
+                .setImmediateFlush(!asyncLogs).setBufferedIo(true).setBufferSize(asyncLogs ? 64 * 1024 : 8 * 1024).build();
         appenderFile.start();
         return appenderFile;
     }
 
 
+    /**
+     * Creates an async appender which hands log events over to a background thread.
+     *
+     * - The events are queued in a pre-allocated array queue of 'AsyncLogs.BufferSize' events.
+     * - The background thread forwards them to the target appender and marks the last event of every drained batch,
+     *   so a buffered target appender flushes once per batch instead of once per event.
+     * - The caller blocks when the queue is full, no event is dropped.
+     * - The target appenders are added to the configuration because the async appender resolves them by name.
+     * - Every event is copied once into a memento with its context data and handed to all targets in order.
+     *
+     * @param appenderName The name of the async appender.
+     * @param targets The appenders receiving the events.
+     * @return The configured and active `AsyncAppender`.
+     */
+    private Appender asyncAppender(String appenderName, Appender... targets) {
+        Configuration configuration = ((LoggerContext) LogManager.getContext(false)).getConfiguration();
+        AppenderRef[] refs = new AppenderRef[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            configuration.addAppender(targets[i]);
+            refs[i] = AppenderRef.createAppenderRef(targets[i].getName(), null, null);
+        }
+        AsyncAppender appender = AsyncAppender.newBuilder()
+                .setName(appenderName)
+                .setAppenderRefs(refs)
+                .setConfiguration(configuration)
+                .setBufferSize(asyncBufferSize)
+                .setBlocking(true)
+                .setIncludeLocation(includeLocation)
+                .build();
+        appender.start();
+        // the context built by initializeLogger has no log4j shutdown hook, stopping it drains the queue before the targets stop
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> ((LoggerContext) LogManager.getContext(false)).stop(), appenderName + "-shutdown"));
+        return appender;
+    }
+
+
     /**
      * Creates and returns a ConsoleAppender with the specified name, layout, and configuration.
      *
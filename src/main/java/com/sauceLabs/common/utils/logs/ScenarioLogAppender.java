@@ -0,0 +1,177 @@
+package com.sauceLabs.common.utils.logs;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.impl.ContextDataFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.StringMap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * log4j appender routing log lines to a bounded in-memory buffer per scenario, keyed by the 'scenarioId' thread context value,
+ * CucumberHooks opens the buffer when the scenario starts and attaches it to the report when the scenario fails,
+ * logs of passed scenarios are discarded or, with 'ScenarioLogs.OnSuccess=spill', appended to a gzip file rolled by size,
+ * a buffer holds at most 'ScenarioLogs.MaxBytes' (default 2 MB), the oldest lines are dropped beyond that,
+ * behind an async appender closing a buffer waits until the lines queued before it are appended
+ *
+ * @author MahmoudOsama
+ */
+public class ScenarioLogAppender extends AbstractAppender {
+    public static final String scenarioIdKey = "scenarioId";
+    private static final long maxBytes = Long.getLong("ScenarioLogs.MaxBytes", 2L * 1024 * 1024);
+    private static final boolean spillOnSuccess = System.getProperty("ScenarioLogs.OnSuccess", "discard").equalsIgnoreCase("spill");
+    private static final Path spillDirectory = Paths.get(System.getProperty("ScenarioLogs.Directory", "target/scenario-logs"));
+    private static final long rollBytes = Long.getLong("ScenarioLogs.RollBytes", 16L * 1024 * 1024);
+    private static final long flushTimeoutMs = Long.getLong("ScenarioLogs.FlushTimeoutMs", 5000);
+    private static final Marker flushMarker = MarkerManager.getMarker("SCENARIO_LOG_FLUSH");
+    private static final Map<String, ScenarioBuffer> buffers = new ConcurrentHashMap<>();
+    private static volatile Appender asyncAppender;
+    private static int spillFileIndex = 0;
+
+    /**
+     * bounded log lines of one scenario, sizes are counted as two bytes per char
+     */
+    private static final class ScenarioBuffer {
+        private final ArrayDeque<String> lines = new ArrayDeque<>();
+        private final CountDownLatch flushed = new CountDownLatch(1);
+        private long bytes;
+        private int droppedLines;
+
+        synchronized void add(String line) {
+            long lineBytes = 2L * line.length();
+            if (lineBytes > maxBytes) {
+                droppedLines++;
+                return;
+            }
+            while (bytes + lineBytes > maxBytes) {
+                bytes -= 2L * lines.removeFirst().length();
+                droppedLines++;
+            }
+            lines.addLast(line);
+            bytes += lineBytes;
+        }
+
+        synchronized String content() {
+            StringBuilder content = new StringBuilder((int) (bytes / 2) + 64);
+            if (droppedLines > 0) {
+                content.append("... ").append(droppedLines).append(" earlier lines dropped, the scenario log is limited to ")
+                        .append(maxBytes / 1024).append(" KB").append(System.lineSeparator());
+            }
+            lines.forEach(content::append);
+            return content.toString();
+        }
+    }
+
+    public ScenarioLogAppender(String name, PatternLayout layout) {
+        super(name, null, layout, true, Property.EMPTY_ARRAY);
+    }
+
+    /**
+     * Routes the flush event of closing buffers through the async appender in front of this appender.
+     *
+     * @param appender async appender forwarding to this appender
+     */
+    static void flushThrough(Appender appender) {
+        asyncAppender = appender;
+    }
+
+    /**
+     * Starts buffering the log lines of the scenario, lines are routed by the 'scenarioId' thread context value.
+     *
+     * @param scenarioId unique scenario id
+     */
+    public static void open(String scenarioId) {
+        buffers.put(scenarioId, new ScenarioBuffer());
+    }
+
+    /**
+     * Stops buffering the scenario and returns its log.
+     *
+     * @param scenarioId unique scenario id
+     * @return buffered log lines, empty if the scenario was not opened
+     */
+    public static String close(String scenarioId) {
+        ScenarioBuffer buffer = buffers.get(scenarioId);
+        if (buffer == null) {
+            return "";
+        }
+        Appender async = asyncAppender;
+        if (async != null) {
+            // the flush event is queued behind the lines already logged by the scenario, once it arrives the buffer is complete
+            StringMap contextData = ContextDataFactory.createContextData();
+            contextData.putValue(scenarioIdKey, scenarioId);
+            async.append(Log4jLogEvent.newBuilder().setLoggerName(ScenarioLogAppender.class.getName()).setMarker(flushMarker)
+                    .setLevel(Level.INFO).setContextData(contextData).setMessage(new SimpleMessage("")).build());
+            try {
+                buffer.flushed.await(flushTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        buffers.remove(scenarioId);
+        return buffer.content();
+    }
+
+    /**
+     * @return true if logs of passed scenarios are spilled to disk instead of discarded
+     */
+    public static boolean isSpillOnSuccess() {
+        return spillOnSuccess;
+    }
+
+    /**
+     * Appends the scenario log to the current gzip spill file as its own gzip member,
+     * a new file is started once the current one exceeds 'ScenarioLogs.RollBytes'.
+     *
+     * @param scenarioName scenario name written as header
+     * @param log          scenario log
+     */
+    public static synchronized void spill(String scenarioName, String log) throws IOException {
+        Files.createDirectories(spillDirectory);
+        Path spillFile = spillDirectory.resolve("passed-scenarios-" + spillFileIndex + ".log.gz");
+        while (Files.exists(spillFile) && Files.size(spillFile) >= rollBytes) {
+            spillFile = spillDirectory.resolve("passed-scenarios-" + ++spillFileIndex + ".log.gz");
+        }
+        // concatenated gzip members form a valid gzip file, so every scenario is appended without rewriting the file
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(spillFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            out.write(("==== " + scenarioName + System.lineSeparator() + log).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        String scenarioId = event.getContextData().getValue(scenarioIdKey);
+        if (scenarioId == null) {
+            return;
+        }
+        ScenarioBuffer buffer = buffers.get(scenarioId);
+        if (buffer == null) {
+            return;
+        }
+        if (flushMarker.equals(event.getMarker())) {
+            buffer.flushed.countDown();
+        } else {
+            buffer.add(((PatternLayout) getLayout()).toSerializable(event));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sauceLabs.common.utils.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * prometheus style histogram with fixed bucket bounds in seconds, every bucket is a LongAdder
+ * so parallel scenarios record without locks or contention on a shared counter
+ *
+ * @author MahmoudOsama
+ */
+class MetricHistogram {
+    private final double[] boundsSeconds;
+    private final long[] boundsNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos = new LongAdder();
+
+    MetricHistogram(double... boundsSeconds) {
+        this.boundsSeconds = boundsSeconds;
+        this.boundsNanos = new long[boundsSeconds.length];
+        for (int i = 0; i < boundsSeconds.length; i++) {
+            boundsNanos[i] = (long) (boundsSeconds[i] * 1_000_000_000L);
+        }
+        // the last bucket is +Inf
+        this.buckets = new LongAdder[boundsSeconds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        int index = Arrays.binarySearch(boundsNanos, nanos);
+        // bounds are inclusive upper limits, a value between two bounds belongs to the higher one
+        buckets[index >= 0 ? index : -index - 1].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Appends the histogram series in prometheus text format, bucket counts are cumulative.
+     *
+     * @param out    exposition text
+     * @param name   metric name without the _bucket, _sum and _count suffixes
+     * @param labels labels without braces, e.g. 'command="WebElement.click"', empty for none
+     */
+    void write(StringBuilder out, String name, String labels) {
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String bound = i < boundsSeconds.length ? Double.toString(boundsSeconds[i]) : "+Inf";
+            out.append(name).append("_bucket{").append(labels).append(separator)
+                    .append("le=\"").append(bound).append("\"} ").append(cumulative).append('\n');
+        }
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+        // the count is the +Inf bucket, so both stay equal even when a scrape races a record
+        out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+    }
+}
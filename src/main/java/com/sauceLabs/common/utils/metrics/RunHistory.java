@@ -0,0 +1,437 @@
+package com.sauceLabs.common.utils.metrics;
+
+import com.sauceLabs.common.utils.files.FileUtil;
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * keeps the duration, outcome, browser and environment of every scenario and its steps across runs and flags slowdowns
+ * when the suite ends, every scenario is one json line appended to a monthly file 'runs-yyyy-MM.ndjson' in
+ * 'RunHistory.Directory' (default 'run-history'), closed months are compacted to gzip,
+ * the last 'RunHistory.Window' (default 20) passed durations of every scenario and step per environment and browser
+ * are kept in 'baseline.ndjson', so the summary reads one small file instead of months of history,
+ * it is rebuilt from the monthly files when it is missing or the window changed,
+ * a duration is a slowdown when its robust z-score against the median and MAD of at least 'RunHistory.MinRuns' (default 5)
+ * baseline durations is above 'RunHistory.Threshold' (default 3.5) and it is 'RunHistory.MinSlowdownMs' (default 200) slower,
+ * slowdowns are logged and written to 'target/cucumber/slowdowns.txt', enabled with 'RunHistory' system property
+ *
+ * @author MahmoudOsama
+ */
+public class RunHistory {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("RunHistory", "false"));
+    private static final Path directory = Paths.get(System.getProperty("RunHistory.Directory", "run-history"));
+    private static final int window = Integer.getInteger("RunHistory.Window", 20);
+    private static final int minRuns = Integer.getInteger("RunHistory.MinRuns", 5);
+    private static final double threshold = Double.parseDouble(System.getProperty("RunHistory.Threshold", "3.5"));
+    private static final long minSlowdownMs = Long.getLong("RunHistory.MinSlowdownMs", 200);
+    private static final String reportPath = System.getProperty("RunHistory.Report", "target/cucumber/slowdowns.txt");
+    private static final String environment = System.getProperty("env", "e2e").toLowerCase();
+    private static final String baselineFile = "baseline.ndjson";
+    private static final String runId = Instant.now().toString();
+    private static final URI workingDirectory = Paths.get("").toAbsolutePath().toUri();
+    private static final ThreadLocal<List<Long>> stepMillis = ThreadLocal.withInitial(ArrayList::new);
+    private static final ThreadLocal<Integer> failedStep = new ThreadLocal<>();
+    private static final ThreadLocal<String> browser = new ThreadLocal<>();
+    private static final Queue<JSONObject> runRecords = new ConcurrentLinkedQueue<>();
+    private static BufferedWriter writer;
+    // set when the run is finished or the history could not be written, later scenarios are dropped
+    private static boolean stopped;
+
+    /**
+     * a duration of this run which is significantly slower than its baseline
+     *
+     * @param name     scenario name, with the step number for steps
+     * @param browser  browser of the scenario
+     * @param millis   duration in this run
+     * @param median   median of the baseline
+     * @param mad      median absolute deviation of the baseline
+     * @param score    robust z-score, 0.6745 * (millis - median) / mad
+     * @param baseline number of baseline durations
+     */
+    public record Slowdown(String name, String browser, long millis, long median, double mad, double score, int baseline) {
+    }
+
+    /**
+     * last passed durations of one scenario or step, oldest first
+     */
+    private static final class Baseline {
+        final String name;
+        final ArrayDeque<Long> millis = new ArrayDeque<>();
+
+        Baseline(String name) {
+            this.name = name;
+        }
+
+        void add(long duration) {
+            if (millis.size() == window) {
+                millis.removeFirst();
+            }
+            millis.addLast(duration);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param browserName browser the current scenario opened
+     */
+    public static void browserOpened(String browserName) {
+        if (enabled) {
+            browser.set(browserName.toLowerCase());
+        }
+    }
+
+    /**
+     * @param nanos  duration of the step
+     * @param failed true if the scenario failed in this step
+     */
+    public static void stepFinished(long nanos, boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> steps = stepMillis.get();
+        if (failed && failedStep.get() == null) {
+            failedStep.set(steps.size());
+        }
+        steps.add(nanos / 1_000_000);
+    }
+
+    /**
+     * Appends the scenario and the steps recorded on the current thread to the history.
+     *
+     * @param uri    feature file of the scenario
+     * @param line   line of the scenario, tells the examples of an outline apart
+     * @param name   scenario name
+     * @param status scenario status, only passed scenarios are added to the baseline
+     * @param nanos  duration of the scenario
+     */
+    public static void scenarioFinished(URI uri, int line, String name, String status, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        JSONObject record = new JSONObject()
+                .put("run", runId)
+                .put("time", System.currentTimeMillis())
+                .put("env", environment)
+                .put("browser", browser.get() == null ? "none" : browser.get())
+                .put("key", workingDirectory.relativize(uri) + ":" + line)
+                .put("name", name)
+                .put("status", status)
+                .put("ms", nanos / 1_000_000)
+                .put("steps", new JSONArray(stepMillis.get()));
+        if (failedStep.get() != null) {
+            record.put("failedStep", failedStep.get());
+        }
+        stepMillis.remove();
+        failedStep.remove();
+        browser.remove();
+        runRecords.add(record);
+        append(record.toString() + "\n");
+    }
+
+    private static synchronized void append(String line) {
+        if (stopped) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                Files.createDirectories(directory);
+                writer = Files.newBufferedWriter(directory.resolve(segmentName(YearMonth.now())), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(line);
+        } catch (IOException e) {
+            stopped = true;
+            log.error("Run history recording stopped: {}", e.getMessage());
+        }
+    }
+
+    private static String segmentName(YearMonth month) {
+        return "runs-" + month + ".ndjson";
+    }
+
+    /**
+     * Closes the history of this run, compares it with the baseline, writes the slowdown report,
+     * adds the passed durations of this run to the baseline and compacts the closed months.
+     *
+     * @return slowdowns of this run, most significant first
+     */
+    public static synchronized List<Slowdown> finish() {
+        List<Slowdown> slowdowns = new ArrayList<>();
+        if (writer == null) {
+            return slowdowns;
+        }
+        stopped = true;
+        try {
+            writer.close();
+            writer = null;
+            Map<String, Baseline> baselines = readBaseline(directory, runId);
+            for (JSONObject record : runRecords) {
+                compare(baselines, record, slowdowns);
+            }
+            runRecords.forEach(record -> addToBaseline(baselines, record));
+            writeBaseline(directory, baselines, runId);
+            compact(directory);
+        } catch (IOException | JSONException e) {
+            log.error("Failed to update the run history: {}", e.getMessage());
+        }
+        slowdowns.sort(Comparator.comparingDouble(Slowdown::score).reversed());
+        writeReport(slowdowns);
+        return slowdowns;
+    }
+
+    private static String baselineKey(JSONObject record) {
+        return record.getString("env") + "|" + record.getString("browser") + "|" + record.getString("key");
+    }
+
+    private static void compare(Map<String, Baseline> baselines, JSONObject record, List<Slowdown> slowdowns) {
+        if (!record.getString("status").equals("PASSED")) {
+            return;
+        }
+        String key = baselineKey(record);
+        String browserName = record.getString("browser");
+        check(baselines.get(key), record.getString("name"), browserName, record.getLong("ms"), slowdowns);
+        JSONArray steps = record.getJSONArray("steps");
+        for (int i = 0; i < steps.length(); i++) {
+            check(baselines.get(key + "#" + (i + 1)), record.getString("name") + " - step " + (i + 1), browserName, steps.getLong(i), slowdowns);
+        }
+    }
+
+    private static void check(Baseline baseline, String name, String browserName, long millis, List<Slowdown> slowdowns) {
+        if (baseline == null || baseline.millis.size() < minRuns) {
+            return;
+        }
+        Slowdown slowdown = slowdown(baseline.millis.stream().mapToLong(Long::longValue).toArray(), name, browserName, millis);
+        if (slowdown != null) {
+            slowdowns.add(slowdown);
+        }
+    }
+
+    /**
+     * Scores the duration against the baseline durations with a robust z-score.
+     *
+     * @return slowdown, or null if the duration is within the threshold or the minimum slowdown
+     */
+    static Slowdown slowdown(long[] durations, String name, String browserName, long millis) {
+        long median = median(durations);
+        // stable durations have a MAD of zero, the minimum slowdown keeps them from flagging every millisecond
+        double mad = Math.max(1, mad(durations, median));
+        double score = 0.6745 * (millis - median) / mad;
+        if (score > threshold && millis - median >= minSlowdownMs) {
+            return new Slowdown(name, browserName, millis, median, mad, score, durations.length);
+        }
+        return null;
+    }
+
+    static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * @return median absolute deviation of the values from their median
+     */
+    static long mad(long[] values, long median) {
+        return median(Arrays.stream(values).map(value -> Math.abs(value - median)).toArray());
+    }
+
+    private static void addToBaseline(Map<String, Baseline> baselines, JSONObject record) {
+        if (!record.getString("status").equals("PASSED")) {
+            return;
+        }
+        String key = baselineKey(record);
+        String name = record.getString("name");
+        baselines.computeIfAbsent(key, k -> new Baseline(name)).add(record.getLong("ms"));
+        JSONArray steps = record.getJSONArray("steps");
+        for (int i = 0; i < steps.length(); i++) {
+            baselines.computeIfAbsent(key + "#" + (i + 1), k -> new Baseline(name)).add(steps.getLong(i));
+        }
+    }
+
+    /**
+     * Reads the baseline, rebuilds it from the monthly files when it is missing, unreadable or kept with another window.
+     *
+     * @param historyDirectory history directory
+     * @param excludedRun      run whose records are left out of a rebuild, the run which is compared against the baseline
+     */
+    private static Map<String, Baseline> readBaseline(Path historyDirectory, String excludedRun) throws IOException {
+        Map<String, Baseline> baselines = new TreeMap<>();
+        Path file = historyDirectory.resolve(baselineFile);
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                JSONObject header = new JSONObject(reader.readLine());
+                if (header.getInt("window") == window) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        JSONObject entry = new JSONObject(line);
+                        Baseline baseline = new Baseline(entry.getString("name"));
+                        entry.getJSONArray("ms").forEach(duration -> baseline.add(((Number) duration).longValue()));
+                        baselines.put(entry.getString("key"), baseline);
+                    }
+                    return baselines;
+                }
+            } catch (JSONException | NullPointerException e) {
+                log.warn("Run history baseline is unreadable, rebuilding it: {}", e.getMessage());
+                baselines.clear();
+            }
+        }
+        for (Path segment : segments(historyDirectory)) {
+            try (BufferedReader reader = openSegment(segment)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        JSONObject record = new JSONObject(line);
+                        if (!record.getString("run").equals(excludedRun)) {
+                            addToBaseline(baselines, record);
+                        }
+                    } catch (JSONException e) {
+                        // a line cut off by a killed run
+                    }
+                }
+            }
+        }
+        log.info("Run history baseline rebuilt from {} monthly files", segments(historyDirectory).size());
+        return baselines;
+    }
+
+    /**
+     * @return monthly files of the history directory, oldest first
+     */
+    private static List<Path> segments(Path historyDirectory) throws IOException {
+        if (!Files.isDirectory(historyDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(historyDirectory)) {
+            return files.filter(file -> file.getFileName().toString().matches("runs-\\d{4}-\\d{2}\\.ndjson(\\.gz)?"))
+                    .sorted().toList();
+        }
+    }
+
+    private static BufferedReader openSegment(Path segment) throws IOException {
+        InputStream input = Files.newInputStream(segment);
+        if (segment.toString().endsWith(".gz")) {
+            input = new GZIPInputStream(input, 65536);
+        }
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Replaces the baseline atomically, so a killed run leaves the previous baseline in place.
+     */
+    private static void writeBaseline(Path historyDirectory, Map<String, Baseline> baselines, String lastRun) throws IOException {
+        Path temporary = historyDirectory.resolve(baselineFile + ".tmp");
+        try (BufferedWriter baselineWriter = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            baselineWriter.write(new JSONObject().put("window", window).put("lastRun", lastRun) + "\n");
+            for (Map.Entry<String, Baseline> entry : baselines.entrySet()) {
+                baselineWriter.write(new JSONObject()
+                        .put("key", entry.getKey())
+                        .put("name", entry.getValue().name)
+                        .put("ms", new JSONArray(entry.getValue().millis)) + "\n");
+            }
+        }
+        Files.move(temporary, historyDirectory.resolve(baselineFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Compresses the files of the months before the current one, they are only read again to rebuild the baseline.
+     */
+    private static void compact(Path historyDirectory) throws IOException {
+        String current = segmentName(YearMonth.now());
+        for (Path segment : segments(historyDirectory)) {
+            String name = segment.getFileName().toString();
+            if (name.endsWith(".gz") || name.compareTo(current) >= 0) {
+                continue;
+            }
+            Path compressed = historyDirectory.resolve(name + ".gz");
+            Path temporary = historyDirectory.resolve(name + ".gz.tmp");
+            try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(temporary), 65536)) {
+                Files.copy(segment, output);
+            }
+            Files.move(temporary, compressed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(segment);
+            log.info("Run history of {} compacted to {}", name, compressed.getFileName());
+        }
+    }
+
+    /**
+     * Builds the slowdown report.
+     *
+     * @return report text
+     */
+    public static String buildReport(List<Slowdown> slowdowns) {
+        StringBuilder report = new StringBuilder(String.format("%-10s %-10s %-8s %-8s %-8s %-9s %s%n",
+                "now(ms)", "median", "MAD", "score", "slower", "browser", "scenario / step"));
+        for (Slowdown slowdown : slowdowns) {
+            report.append(String.format("%-10d %-10d %-8.0f %-8.1f %-8s %-9s %s%n", slowdown.millis(), slowdown.median(), slowdown.mad(),
+                    slowdown.score(), String.format("+%.0f%%", 100.0 * (slowdown.millis() - slowdown.median()) / Math.max(1, slowdown.median())),
+                    slowdown.browser(), slowdown.name()));
+        }
+        return report.toString();
+    }
+
+    private static void writeReport(List<Slowdown> slowdowns) {
+        if (slowdowns.isEmpty()) {
+            log.info("No slowdowns against the run history baseline");
+            return;
+        }
+        String report = buildReport(slowdowns);
+        log.warn("{} scenarios and steps are significantly slower than their baseline:\n{}", slowdowns.size(), report);
+        FileUtil.writeReport(reportPath, report, "Slowdown report");
+    }
+
+    /**
+     * Prints the baseline of a history directory, rebuilding it from the monthly files first when needed:
+     * 'RunHistory [directory] [name filter]'.
+     */
+    public static void main(String[] args) throws IOException {
+        Path historyDirectory = Paths.get(args.length > 0 ? args[0] : directory.toString());
+        String filter = args.length > 1 ? args[1].toLowerCase() : "";
+        Map<String, Baseline> baselines = readBaseline(historyDirectory, "");
+        System.out.printf("%-8s %-10s %-8s %s%n", "runs", "median", "MAD", "key / name");
+        baselines.forEach((key, baseline) -> {
+            if (!key.toLowerCase().contains(filter) && !baseline.name.toLowerCase().contains(filter)) {
+                return;
+            }
+            long[] durations = baseline.millis.stream().mapToLong(Long::longValue).toArray();
+            long median = median(durations);
+            System.out.printf("%-8d %-10d %-8d %s %s%n", durations.length, median,
+                    mad(durations, median), key, baseline.name);
+        });
+    }
+}
@@ -0,0 +1,221 @@
+package com.sauceLabs.common.utils.metrics;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.core.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * live metrics of the running suite in prometheus text format, so long nightly runs can be watched while they run,
+ * counts scenarios, step durations, wait timeouts, screenshots, open browser sessions and driver command latencies,
+ * every metric is a LongAdder or a LongAdder histogram so recording never blocks parallel scenarios,
+ * enabled with 'Metrics' system property, served on 'http://localhost:<Metrics.Port>/metrics' when the port is set
+ * and written every 'Metrics.FileIntervalSeconds' (default 15) to 'Metrics.File' when the file is set,
+ * the file is replaced atomically so it can be read by the node exporter textfile collector
+ *
+ * @author MahmoudOsama
+ */
+public class RunMetrics {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("Metrics", "false"));
+    private static final int port = Integer.getInteger("Metrics.Port", -1);
+    private static final String file = System.getProperty("Metrics.File", "");
+    private static final long fileIntervalSeconds = Long.getLong("Metrics.FileIntervalSeconds", 15);
+    private static final LongAdder scenariosStarted = new LongAdder();
+    private static final LongAdder scenariosPassed = new LongAdder();
+    private static final LongAdder scenariosFailed = new LongAdder();
+    private static final LongAdder waitTimeouts = new LongAdder();
+    private static final LongAdder screenshots = new LongAdder();
+    private static final LongAdder sessionsOpen = new LongAdder();
+    private static final MetricHistogram stepDurations =
+            new MetricHistogram(0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120);
+    private static final Map<String, MetricHistogram> commandDurations = new ConcurrentHashMap<>();
+    private static HttpServer server;
+    private static ScheduledExecutorService fileWriter;
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void scenarioStarted() {
+        if (enabled) {
+            scenariosStarted.increment();
+        }
+    }
+
+    public static void scenarioFinished(boolean failed) {
+        if (enabled) {
+            (failed ? scenariosFailed : scenariosPassed).increment();
+        }
+    }
+
+    public static void stepFinished(long nanos) {
+        if (enabled) {
+            stepDurations.record(nanos);
+        }
+    }
+
+    public static void waitTimedOut() {
+        if (enabled) {
+            waitTimeouts.increment();
+        }
+    }
+
+    public static void screenshotTaken() {
+        if (enabled) {
+            screenshots.increment();
+        }
+    }
+
+    public static void sessionOpened() {
+        if (enabled) {
+            sessionsOpen.increment();
+        }
+    }
+
+    public static void sessionClosed() {
+        if (enabled) {
+            sessionsOpen.decrement();
+        }
+    }
+
+    /**
+     * @param command command name, e.g. 'WebElement.click'
+     * @param nanos   command duration
+     */
+    public static void commandFinished(String command, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        MetricHistogram histogram = commandDurations.get(command);
+        if (histogram == null) {
+            // only the first command of a kind takes the map bin lock, later lookups are plain reads
+            histogram = commandDurations.computeIfAbsent(command,
+                    name -> new MetricHistogram(0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30));
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * @return all metrics in prometheus text exposition format
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        counter(out, "test_scenarios_started_total", "Scenarios started.", scenariosStarted.sum());
+        counter(out, "test_scenarios_passed_total", "Scenarios passed.", scenariosPassed.sum());
+        counter(out, "test_scenarios_failed_total", "Scenarios failed.", scenariosFailed.sum());
+        counter(out, "test_wait_timeouts_total", "Explicit waits which timed out.", waitTimeouts.sum());
+        counter(out, "test_screenshots_total", "Screenshots taken.", screenshots.sum());
+        out.append("# HELP test_browser_sessions_open Browser sessions currently open.\n")
+                .append("# TYPE test_browser_sessions_open gauge\n")
+                .append("test_browser_sessions_open ").append(sessionsOpen.sum()).append('\n');
+        out.append("# HELP test_step_duration_seconds Duration of cucumber steps.\n")
+                .append("# TYPE test_step_duration_seconds histogram\n");
+        stepDurations.write(out, "test_step_duration_seconds", "");
+        out.append("# HELP test_driver_command_duration_seconds Duration of WebDriver commands.\n")
+                .append("# TYPE test_driver_command_duration_seconds histogram\n");
+        // sorted so consecutive scrapes list the commands in the same order
+        new TreeMap<>(commandDurations).forEach((command, histogram) ->
+                histogram.write(out, "test_driver_command_duration_seconds", "command=\"" + escapeLabel(command) + "\""));
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" counter\n")
+                .append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Starts the HTTP endpoint and the textfile writer which are configured, does nothing if metrics are disabled or already started.
+     */
+    public static synchronized void start() {
+        if (!enabled || server != null || fileWriter != null) {
+            return;
+        }
+        if (port >= 0) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+                server.createContext("/metrics", exchange -> {
+                    byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream responseBody = exchange.getResponseBody()) {
+                        responseBody.write(body);
+                    }
+                });
+                server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "metrics-endpoint");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+                server.start();
+                log.info("Metrics served on: http://localhost:{}/metrics", server.getAddress().getPort());
+            } catch (IOException e) {
+                log.error("Failed to start the metrics endpoint: {}", e.getMessage());
+                server = null;
+            }
+        }
+        if (!file.isEmpty()) {
+            fileWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-file-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fileWriter.scheduleWithFixedDelay(RunMetrics::writeFile, fileIntervalSeconds, fileIntervalSeconds, TimeUnit.SECONDS);
+            log.info("Metrics written every {} seconds to: {}", fileIntervalSeconds, Paths.get(file).toAbsolutePath());
+        }
+    }
+
+    /**
+     * Stops the endpoint and the textfile writer, the file gets the final values of the run.
+     */
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (fileWriter != null) {
+            fileWriter.shutdown();
+            try {
+                fileWriter.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            fileWriter = null;
+            writeFile();
+        }
+    }
+
+    private static void writeFile() {
+        try {
+            Path target = Paths.get(file).toAbsolutePath();
+            Files.createDirectories(target.getParent());
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.writeString(temporary, scrape());
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to write the metrics file: {}", e.getMessage());
+        }
+    }
+}
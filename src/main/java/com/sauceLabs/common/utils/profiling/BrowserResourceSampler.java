@@ -0,0 +1,394 @@
+package com.sauceLabs.common.utils.profiling;
+
+import com.sauceLabs.common.ui.base.BaseWebDriver;
+import com.sauceLabs.common.utils.files.FileUtil;
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * samples CPU time, RSS and thread count of the driver process of every browser session and all the browser processes under it
+ * from '/proc/<pid>/stat' on a background thread, every round reads '/proc' once for all sessions and builds the process trees
+ * from the parent pids of the same read, the samples of a scenario are attached to it
+ * and totals per feature are written at the end of the run, a session above 'BrowserResources.WarnRssMb' (default 2048) is
+ * logged as a warning and a session above 'BrowserResources.RecycleRssMb' (default 0, off) is recycled before the next step,
+ * the sampler measures its own CPU time and doubles the 'BrowserResources.IntervalMs' (default 2000) interval while it
+ * would use more than 1% of a core, enabled with 'BrowserResources' system property, linux only
+ *
+ * @author MahmoudOsama
+ */
+public class BrowserResourceSampler {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("BrowserResources", "false"))
+            && Files.isDirectory(Paths.get("/proc/self"));
+    private static final long baseIntervalMs = Long.getLong("BrowserResources.IntervalMs", 2000);
+    private static final long maxIntervalMs = 30_000;
+    private static final long warnRssKb = Long.getLong("BrowserResources.WarnRssMb", 2048) * 1024;
+    private static final long recycleRssKb = Long.getLong("BrowserResources.RecycleRssMb", 0) * 1024;
+    private static final long clockTicks = Long.getLong("BrowserResources.ClockTicks", 100);
+    private static final long pageSizeKb = Long.getLong("BrowserResources.PageSizeKb", 4);
+    private static final String reportPath = System.getProperty("BrowserResources.Report", "target/cucumber/browser-resources.txt");
+    private static final double maxOverhead = 0.01;
+    private static final int maxSamples = 720;
+    private static final Map<WebDriver, Session> sessions = new ConcurrentHashMap<>();
+    private static final ThreadLocal<List<Session>> scenarioSessions = ThreadLocal.withInitial(ArrayList::new);
+    private static final Map<String, FeatureStats> features = new ConcurrentHashMap<>();
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private static ScheduledExecutorService scheduler;
+    private static volatile long intervalMs = baseIntervalMs;
+    private static volatile long samplerCpuNanos;
+    private static volatile long samplerStartNanos;
+
+    /**
+     * resources of one finished session
+     *
+     * @param summary one line summary
+     * @param csv     samples as 'seconds,rss_mb,cpu_percent,threads,processes'
+     */
+    public record SessionReport(String summary, String csv) {
+    }
+
+    /**
+     * one browser session, sampled on the sampler thread and read when the scenario ends
+     */
+    private static final class Session {
+        final String browser;
+        final ProcessHandle driverProcess;
+        final long startNanos = System.nanoTime();
+        // last cpu ticks per pid, only growth is counted so processes which come and go are summed correctly
+        final Map<Long, Long> lastTicks = new HashMap<>();
+        final List<long[]> samples = new ArrayList<>();
+        long cpuTicks;
+        long lastSampleNanos = startNanos;
+        long lastSampleTicks;
+        // only every stride-th sample is stored, doubled whenever the stored samples are thinned out
+        int stride = 1;
+        int sampleCount;
+        long peakRssKb;
+        int peakThreads;
+        int peakProcesses;
+        boolean warned;
+        volatile boolean recycle;
+        boolean closed;
+
+        Session(String browser, ProcessHandle driverProcess) {
+            this.browser = browser;
+            this.driverProcess = driverProcess;
+        }
+
+        /**
+         * @param usage    usage of every process of the host by pid: parent pid, cpu ticks, RSS in kB and threads
+         * @param children child pids by parent pid
+         */
+        synchronized void sample(Map<Long, long[]> usage, Map<Long, List<Long>> children) {
+            if (closed) {
+                return;
+            }
+            if (!usage.containsKey(driverProcess.pid()) || !driverProcess.isAlive()) {
+                closed = true;
+                return;
+            }
+            long rssKb = 0;
+            int threads = 0;
+            int processes = 0;
+            ArrayDeque<Long> tree = new ArrayDeque<>();
+            tree.push(driverProcess.pid());
+            while (!tree.isEmpty()) {
+                long pid = tree.pop();
+                long[] processUsage = usage.get(pid);
+                if (processUsage == null) {
+                    continue;
+                }
+                Long previous = lastTicks.put(pid, processUsage[1]);
+                cpuTicks += Math.max(0, processUsage[1] - (previous == null ? 0 : previous));
+                rssKb += processUsage[2];
+                threads += (int) processUsage[3];
+                processes++;
+                children.getOrDefault(pid, List.of()).forEach(tree::push);
+            }
+            long now = System.nanoTime();
+            double cpuPercent = 100.0 * (cpuTicks - lastSampleTicks) / clockTicks / Math.max(1e-9, (now - lastSampleNanos) / 1e9);
+            lastSampleNanos = now;
+            lastSampleTicks = cpuTicks;
+            peakRssKb = Math.max(peakRssKb, rssKb);
+            peakThreads = Math.max(peakThreads, threads);
+            peakProcesses = Math.max(peakProcesses, processes);
+            if (sampleCount++ % stride == 0) {
+                if (samples.size() == maxSamples) {
+                    // keep the shape of long sessions: drop every other sample and store half as often
+                    for (int i = samples.size() - 1; i > 0; i -= 2) {
+                        samples.remove(i);
+                    }
+                    stride *= 2;
+                }
+                samples.add(new long[]{(now - startNanos) / 1_000_000, rssKb, Math.round(cpuPercent * 10), threads, processes});
+            }
+            if (warnRssKb > 0 && rssKb > warnRssKb && !warned) {
+                warned = true;
+                log.warn("{} session uses {} MB RSS in {} processes, above the {} MB warning threshold",
+                        browser, rssKb / 1024, processes, warnRssKb / 1024);
+            }
+            if (recycleRssKb > 0 && rssKb > recycleRssKb && !recycle) {
+                recycle = true;
+                log.warn("{} session uses {} MB RSS, above the {} MB recycle threshold, it is recycled before the next step",
+                        browser, rssKb / 1024, recycleRssKb / 1024);
+            }
+        }
+
+        synchronized SessionReport report() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            String summary = String.format("%s session: %.0f s, CPU %.1f s (%.1f%% of a core), peak RSS %d MB, peak threads %d, peak processes %d, %d samples",
+                    browser, seconds, (double) cpuTicks / clockTicks, 100.0 * cpuTicks / clockTicks / Math.max(1e-9, seconds),
+                    peakRssKb / 1024, peakThreads, peakProcesses, samples.size());
+            StringBuilder csv = new StringBuilder("seconds,rss_mb,cpu_percent,threads,processes\n");
+            for (long[] sample : samples) {
+                csv.append(String.format("%.1f,%.1f,%.1f,%d,%d%n", sample[0] / 1000.0, sample[1] / 1024.0, sample[2] / 10.0, sample[3], sample[4]));
+            }
+            return new SessionReport(summary, csv.toString());
+        }
+    }
+
+    /**
+     * sessions of one feature file
+     */
+    private static final class FeatureStats {
+        int sessions;
+        long cpuTicks;
+        long peakRssKbSum;
+        long peakRssKbMax;
+        int peakThreadsMax;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts sampling the processes of a new session, the driver process is the child of this JVM
+     * listening on the port of the session, remote sessions can not be sampled and are skipped.
+     *
+     * @param driver  new session
+     * @param browser browser name
+     */
+    public static void track(WebDriver driver, String browser) {
+        if (!enabled) {
+            return;
+        }
+        WebDriver browserDriver = BaseWebDriver.unwrap(driver);
+        Optional<ProcessHandle> driverProcess = findDriverProcess(browserDriver);
+        if (driverProcess.isEmpty()) {
+            log.debug("No local driver process found for the {} session, resources are not sampled", browser);
+            return;
+        }
+        Session session = new Session(browser, driverProcess.get());
+        sessions.put(browserDriver, session);
+        scenarioSessions.get().add(session);
+        startScheduler();
+    }
+
+    private static Optional<ProcessHandle> findDriverProcess(WebDriver driver) {
+        if (!(driver instanceof RemoteWebDriver remoteWebDriver)) {
+            return Optional.empty();
+        }
+        CommandExecutor executor = remoteWebDriver.getCommandExecutor();
+        if (!(executor instanceof HttpCommandExecutor httpCommandExecutor)) {
+            return Optional.empty();
+        }
+        String host = httpCommandExecutor.getAddressOfRemoteServer().getHost();
+        if (!host.equals("localhost") && !host.equals("127.0.0.1") && !host.equals("[::1]")) {
+            return Optional.empty();
+        }
+        int port = httpCommandExecutor.getAddressOfRemoteServer().getPort();
+        return ProcessHandle.current().children()
+                .filter(process -> process.info().arguments()
+                        .map(arguments -> String.join(" ", arguments))
+                        .map(commandLine -> commandLine.contains("--port=" + port) || commandLine.contains("--port " + port))
+                        .orElse(false))
+                .findFirst();
+    }
+
+    private static synchronized void startScheduler() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "browser-resource-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        samplerStartNanos = System.nanoTime();
+        scheduler.schedule(BrowserResourceSampler::sampleAll, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void sampleAll() {
+        long cpuStart = threadMXBean.getCurrentThreadCpuTime();
+        try {
+            if (!sessions.isEmpty()) {
+                Map<Long, long[]> usage = readProcesses();
+                Map<Long, List<Long>> children = new HashMap<>();
+                usage.forEach((pid, processUsage) -> children.computeIfAbsent(processUsage[0], parent -> new ArrayList<>()).add(pid));
+                sessions.values().removeIf(session -> {
+                    session.sample(usage, children);
+                    synchronized (session) {
+                        return session.closed;
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            log.debug("Browser resource sample failed: {}", e.getMessage());
+        }
+        long cpuUsed = threadMXBean.getCurrentThreadCpuTime() - cpuStart;
+        samplerCpuNanos += cpuUsed;
+        // back off while one round costs more than 1% of the interval, recover when it is cheap again
+        if (cpuUsed > maxOverhead * intervalMs * 1_000_000 && intervalMs < maxIntervalMs) {
+            intervalMs = Math.min(maxIntervalMs, intervalMs * 2);
+            log.info("Browser resource sampling took {} ms, sampling every {} ms", cpuUsed / 1_000_000, intervalMs);
+        } else if (cpuUsed < maxOverhead * intervalMs * 250_000 && intervalMs > baseIntervalMs) {
+            intervalMs = Math.max(baseIntervalMs, intervalMs / 2);
+        }
+        scheduler.schedule(BrowserResourceSampler::sampleAll, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * reads '/proc/<pid>/stat' of every process of the host
+     *
+     * @return parent pid, cpu ticks (user + system), RSS in kB and thread count by pid
+     */
+    private static Map<Long, long[]> readProcesses() {
+        Map<Long, long[]> usage = new HashMap<>();
+        File[] entries = new File("/proc").listFiles((directory, name) -> !name.isEmpty() && Character.isDigit(name.charAt(0)));
+        if (entries == null) {
+            return usage;
+        }
+        long[] fields = new long[22];
+        for (File entry : entries) {
+            try {
+                byte[] stat = Files.readAllBytes(new File(entry, "stat").toPath());
+                if (parseStat(stat, fields)) {
+                    usage.put(Long.parseLong(entry.getName()), new long[]{fields[1], fields[11] + fields[12], fields[21] * pageSizeKb, fields[17]});
+                }
+            } catch (IOException | NumberFormatException e) {
+                // the process exited between listing and reading
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * parses the numeric fields after the command name, which is in brackets and may contain spaces,
+     * field 0 is the state, 1 the parent pid, 11 and 12 user and system ticks, 17 the thread count and 21 the RSS pages
+     */
+    private static boolean parseStat(byte[] stat, long[] fields) {
+        int i = stat.length - 1;
+        while (i >= 0 && stat[i] != ')') {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        int field = 0;
+        long value = 0;
+        for (i += 2; i < stat.length && field < fields.length; i++) {
+            byte c = stat[i];
+            if (c == ' ' || c == '\n') {
+                fields[field++] = value;
+                value = 0;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+            }
+        }
+        return field == fields.length;
+    }
+
+    /**
+     * @param driver session of the current thread
+     * @return true if the session went above the recycle threshold
+     */
+    public static boolean shouldRecycle(WebDriver driver) {
+        if (!enabled || recycleRssKb <= 0 || driver == null) {
+            return false;
+        }
+        Session session = sessions.get(BaseWebDriver.unwrap(driver));
+        return session != null && session.recycle;
+    }
+
+    /**
+     * Stops sampling the sessions the current thread opened during the scenario and adds them to the feature totals.
+     *
+     * @param feature feature file of the scenario
+     * @return resources of every session of the scenario
+     */
+    public static List<SessionReport> finishScenario(String feature) {
+        List<SessionReport> reports = new ArrayList<>();
+        if (!enabled) {
+            return reports;
+        }
+        for (Session session : scenarioSessions.get()) {
+            sessions.values().remove(session);
+            synchronized (session) {
+                session.closed = true;
+                FeatureStats featureStats = features.computeIfAbsent(feature, key -> new FeatureStats());
+                synchronized (featureStats) {
+                    featureStats.sessions++;
+                    featureStats.cpuTicks += session.cpuTicks;
+                    featureStats.peakRssKbSum += session.peakRssKb;
+                    featureStats.peakRssKbMax = Math.max(featureStats.peakRssKbMax, session.peakRssKb);
+                    featureStats.peakThreadsMax = Math.max(featureStats.peakThreadsMax, session.peakThreads);
+                }
+            }
+            reports.add(session.report());
+        }
+        scenarioSessions.remove();
+        return reports;
+    }
+
+    /**
+     * Builds the per feature report.
+     *
+     * @return report text
+     */
+    public static String buildReport() {
+        StringBuilder report = new StringBuilder(String.format("%-9s %-10s %-14s %-14s %-12s %s%n",
+                "sessions", "cpu(s)", "mean peak(MB)", "max peak(MB)", "max threads", "feature"));
+        new TreeMap<>(features).forEach((feature, stats) -> {
+            synchronized (stats) {
+                report.append(String.format("%-9d %-10.1f %-14d %-14d %-12d %s%n", stats.sessions, (double) stats.cpuTicks / clockTicks,
+                        stats.peakRssKbSum / Math.max(1, stats.sessions) / 1024, stats.peakRssKbMax / 1024, stats.peakThreadsMax, feature));
+            }
+        });
+        double seconds = Math.max(1e-9, (System.nanoTime() - samplerStartNanos) / 1e9);
+        report.append(String.format("sampler overhead: %.2f s CPU, %.3f%% of a core%n", samplerCpuNanos / 1e9, 100 * samplerCpuNanos / 1e9 / seconds));
+        return report.toString();
+    }
+
+    /**
+     * Writes the report to the configured path, does nothing if sampling is disabled or no session was sampled.
+     */
+    public static void writeReport() {
+        if (!enabled || features.isEmpty()) {
+            return;
+        }
+        FileUtil.writeReport(reportPath, buildReport(), "Browser resources of " + features.size() + " features");
+    }
+}
@@ -0,0 +1,46 @@
+package com.sauceLabs.common.utils.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * flight recorder event spanning one WebDriver command, emitted by DriverCommandListener
+ *
+ * @author MahmoudOsama
+ */
+@Name("com.sauceLabs.DriverCommand")
+@Label("Driver Command")
+@Category({"Test Automation", "WebDriver"})
+@Description("WebDriver command round trip")
+@StackTrace(false)
+public class DriverCommandEvent extends Event {
+    @Label("Command")
+    String command;
+
+    @Label("Locator")
+    String locator;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Ends the event and commits it with its fields if a recording is interested in it.
+     *
+     * @param command command name, e.g. WebElement.click
+     * @param locator locator argument, null if the command has none
+     * @param outcome ok or the exception name
+     */
+    public void finish(String command, Object locator, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.command = command;
+            this.locator = locator == null ? null : locator.toString();
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
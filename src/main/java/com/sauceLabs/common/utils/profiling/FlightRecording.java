@@ -0,0 +1,98 @@
+package com.sauceLabs.common.utils.profiling;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.apache.logging.log4j.core.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * starts a java flight recording for the whole run, so step, wait, screenshot and driver command events
+ * can be lined up with GC, thread and I/O events in JMC without attaching a profiler,
+ * the recording uses the JDK 'FlightRecording.Settings' configuration (default 'profile') plus all framework events
+ * and is dumped to 'FlightRecording.Directory' (default 'target') when the run ends or the JVM exits,
+ * enabled with 'FlightRecording' system property, framework events are also recorded by recordings started with '-XX:StartFlightRecording',
+ * driver command events only for drivers opened while a recorder is running
+ *
+ * @author MahmoudOsama
+ */
+public class FlightRecording {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("FlightRecording", "false"));
+    private static final String settings = System.getProperty("FlightRecording.Settings", "profile");
+    private static final String directory = System.getProperty("FlightRecording.Directory", "target");
+    private static final List<Class<? extends Event>> frameworkEvents =
+            List.of(StepEvent.class, WaitEvent.class, ScreenshotEvent.class, DriverCommandEvent.class);
+    private static Recording recording;
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Checks whether the flight recorder runs in this JVM, started by this class, '-XX:StartFlightRecording' or jcmd,
+     * cheap enough to check before allocating an event which is kept across hooks.
+     *
+     * @return true if the flight recorder is initialized
+     */
+    public static boolean isActive() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Starts the run recording, does nothing if it is disabled or already running.
+     */
+    public static synchronized void start() {
+        if (!enabled || recording != null) {
+            return;
+        }
+        try {
+            Path destination = Paths.get(directory, "flight-recording-"
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".jfr");
+            Files.createDirectories(destination.getParent());
+            Recording runRecording = new Recording(Configuration.getConfiguration(settings));
+            runRecording.setName("test-run");
+            for (Class<? extends Event> eventType : frameworkEvents) {
+                runRecording.enable(eventType).withThreshold(Duration.ZERO);
+            }
+            runRecording.setToDisk(true);
+            runRecording.setDestination(destination);
+            runRecording.setDumpOnExit(true);
+            runRecording.start();
+            recording = runRecording;
+            log.info("Flight recording started, it is written to: {}", destination.toAbsolutePath());
+        } catch (IOException | ParseException | RuntimeException e) {
+            log.error("Failed to start the flight recording: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the run recording and writes it to its destination.
+     */
+    public static synchronized void stop() {
+        if (recording == null) {
+            return;
+        }
+        Path destination = recording.getDestination();
+        try {
+            recording.stop();
+            log.info("Flight recording written to: {}", destination.toAbsolutePath());
+        } catch (RuntimeException e) {
+            log.error("Failed to write the flight recording: {}", e.getMessage());
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+}
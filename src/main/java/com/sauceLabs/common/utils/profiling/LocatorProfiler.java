@@ -0,0 +1,287 @@
+package com.sauceLabs.common.utils.profiling;
+
+import com.sauceLabs.common.utils.files.FileUtil;
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * records resolution time and match count of every locator looked up through SeleUtils/JSUtils, including every poll of
+ * the waits resolving a locator, lookups which find nothing are recorded with no match,
+ * flags slow and ambiguous locators and suggests an equivalent css selector for xpath locators,
+ * enabled with 'LocatorProfiler' system property, report is written at the end of the run
+ *
+ * @author MahmoudOsama
+ */
+public class LocatorProfiler {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("LocatorProfiler", "false"));
+    private static final long slowThresholdNanos = Long.getLong("LocatorProfiler.SlowMs", 50) * 1_000_000;
+    private static final String reportPath = System.getProperty("LocatorProfiler.Report", "target/cucumber/locator-profile.txt");
+    private static final Map<String, LocatorStats> stats = new ConcurrentHashMap<>();
+
+    private static final Pattern stepName = Pattern.compile("^([\\w\\-]+|\\*)");
+    private static final Pattern unquotedOperator = Pattern.compile("\\bor\\b|\\|");
+    private static final Pattern unquotedAnd = Pattern.compile("\\s+and\\s+");
+    private static final Pattern attrEquals = Pattern.compile("^@([\\w\\-]+)\\s*=\\s*(['\"])([^'\"]*)\\2$");
+    private static final Pattern attrFunction = Pattern.compile("^(contains|starts-with)\\(\\s*@([\\w\\-]+)\\s*,\\s*(['\"])([^'\"]*)\\3\\s*\\)$");
+    private static final Pattern attrExists = Pattern.compile("^@([\\w\\-]+)$");
+
+    /**
+     * per locator aggregated counters, updated without locking from parallel scenarios
+     */
+    private static class LocatorStats {
+        final String locator;
+        final LongAdder calls = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final AtomicInteger maxMatches = new AtomicInteger(-1);
+
+        LocatorStats(String locator) {
+            this.locator = locator;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records one lookup of the given locator.
+     *
+     * @param locator     locator which was resolved
+     * @param nanos       resolution time in nanoseconds
+     * @param matchCount  number of matched elements, -1 if unknown
+     */
+    public static void record(By locator, long nanos, int matchCount) {
+        LocatorStats locatorStats = stats.computeIfAbsent(locator.toString(), LocatorStats::new);
+        locatorStats.calls.increment();
+        locatorStats.totalNanos.add(nanos);
+        locatorStats.maxNanos.accumulate(nanos);
+        if (matchCount >= 0) {
+            locatorStats.maxMatches.accumulateAndGet(matchCount, Math::max);
+        }
+    }
+
+    /**
+     * Checks whether the match count of the locator is still unknown,
+     * used to probe single element lookups once for ambiguity.
+     *
+     * @param locator locator to check
+     * @return true if no match count was recorded yet
+     */
+    public static boolean needsMatchCount(By locator) {
+        LocatorStats locatorStats = stats.get(locator.toString());
+        return locatorStats == null || locatorStats.maxMatches.get() < 0;
+    }
+
+    /**
+     * Suggests a css selector that matches exactly the same elements as the given xpath.
+     * Only descendant/child steps with attribute equality, contains, starts-with and existence predicates joined by 'and'
+     * are supported, predicates with 'or', unions, nested brackets or positions get no suggestion.
+     *
+     * @param xpath xpath expression
+     * @return equivalent css selector, or null if the xpath has no css equivalent
+     */
+    public static String suggestCss(String xpath) {
+        String expression = xpath.trim();
+        if (!expression.startsWith("/")) {
+            return null;
+        }
+        StringBuilder css = new StringBuilder();
+        int i = 0;
+        while (i < expression.length()) {
+            boolean descendant = expression.startsWith("//", i);
+            i += descendant ? 2 : 1;
+            int end = stepEnd(expression, i);
+            String step = expression.substring(i, end);
+            String cssStep = stepToCss(step);
+            if (cssStep == null) {
+                return null;
+            }
+            if (css.length() > 0) {
+                css.append(descendant ? " " : " > ");
+            } else if (!descendant) {
+                css.append(":root > ");
+            }
+            css.append(cssStep);
+            i = end;
+        }
+        return css.toString().replace(":root > html", "html");
+    }
+
+    private static int stepEnd(String expression, int from) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = from; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            } else if (c == '/' && depth == 0) {
+                return i;
+            }
+        }
+        return expression.length();
+    }
+
+    private static String stepToCss(String step) {
+        Matcher nameMatcher = stepName.matcher(step);
+        if (!nameMatcher.lookingAt()) {
+            return null;
+        }
+        StringBuilder css = new StringBuilder(nameMatcher.group(1));
+        int i = nameMatcher.end();
+        while (i < step.length()) {
+            if (step.charAt(i) != '[') {
+                return null;
+            }
+            int end = predicateEnd(step, i + 1);
+            if (end < 0) {
+                return null;
+            }
+            List<String> conditions = splitConditions(step.substring(i + 1, end));
+            if (conditions == null) {
+                return null;
+            }
+            for (String condition : conditions) {
+                String cssCondition = conditionToCss(condition.trim());
+                if (cssCondition == null) {
+                    return null;
+                }
+                css.append(cssCondition);
+            }
+            i = end + 1;
+        }
+        return css.toString();
+    }
+
+    /**
+     * @return index of the ']' closing the predicate which starts at the given index, brackets inside quotes are skipped,
+     * -1 if the predicate is not closed or has nested brackets
+     */
+    private static int predicateEnd(String step, int from) {
+        char quote = 0;
+        for (int i = from; i < step.length(); i++) {
+            char c = step.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                return -1;
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits a predicate on the 'and' operators outside quotes.
+     *
+     * @return conditions of the predicate, null if it has an 'or' or a union outside quotes
+     */
+    private static List<String> splitConditions(String predicate) {
+        // quoted text is masked so operators inside values are not taken as operators
+        StringBuilder masked = new StringBuilder(predicate.length());
+        char quote = 0;
+        for (int i = 0; i < predicate.length(); i++) {
+            char c = predicate.charAt(i);
+            if (quote != 0) {
+                masked.append(c == quote ? c : '_');
+                if (c == quote) quote = 0;
+            } else {
+                masked.append(c);
+                if (c == '\'' || c == '"') quote = c;
+            }
+        }
+        if (unquotedOperator.matcher(masked).find()) {
+            return null;
+        }
+        List<String> conditions = new ArrayList<>();
+        Matcher and = unquotedAnd.matcher(masked);
+        int start = 0;
+        while (and.find()) {
+            conditions.add(predicate.substring(start, and.start()));
+            start = and.end();
+        }
+        conditions.add(predicate.substring(start));
+        return conditions;
+    }
+
+    private static String conditionToCss(String condition) {
+        Matcher matcher = attrEquals.matcher(condition);
+        if (matcher.matches()) {
+            return "[" + matcher.group(1) + "=" + quote(matcher.group(3)) + "]";
+        }
+        matcher = attrFunction.matcher(condition);
+        if (matcher.matches()) {
+            String operator = matcher.group(1).equals("contains") ? "*=" : "^=";
+            return "[" + matcher.group(2) + operator + quote(matcher.group(4)) + "]";
+        }
+        matcher = attrExists.matcher(condition);
+        if (matcher.matches()) {
+            return "[" + matcher.group(1) + "]";
+        }
+        return null;
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    /**
+     * Builds the per-run report sorted by total time spent, slow and ambiguous locators are flagged.
+     *
+     * @return report text
+     */
+    public static String buildReport() {
+        List<LocatorStats> sorted = new ArrayList<>(stats.values());
+        sorted.sort(Comparator.comparingLong((LocatorStats s) -> s.totalNanos.sum()).reversed());
+        StringBuilder report = new StringBuilder(String.format("%-10s %-8s %-10s %-10s %-8s %-10s %s%n",
+                "total(ms)", "calls", "mean(ms)", "max(ms)", "matches", "flags", "locator / css suggestion"));
+        for (LocatorStats s : sorted) {
+            long calls = s.calls.sum();
+            long total = s.totalNanos.sum();
+            long mean = calls == 0 ? 0 : total / calls;
+            String flags = (mean > slowThresholdNanos ? "SLOW " : "") + (s.maxMatches.get() > 1 ? "AMBIGUOUS" : "");
+            report.append(String.format("%-10.1f %-8d %-10.2f %-10.1f %-8s %-10s %s%n",
+                    total / 1e6, calls, mean / 1e6, s.maxNanos.get() / 1e6,
+                    s.maxMatches.get() < 0 ? "?" : String.valueOf(s.maxMatches.get()), flags.trim(), s.locator));
+            if (s.locator.startsWith("By.xpath: ")) {
+                String css = suggestCss(s.locator.substring("By.xpath: ".length()));
+                if (css != null) {
+                    report.append(String.format("%61s -> By.cssSelector: %s%n", "", css));
+                }
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes the report to the configured path, does nothing if profiling is disabled or nothing was recorded.
+     */
+    public static void writeReport() {
+        if (!enabled || stats.isEmpty()) {
+            return;
+        }
+        FileUtil.writeReport(reportPath, buildReport(), "Locator profile for " + stats.size() + " locators");
+    }
+}
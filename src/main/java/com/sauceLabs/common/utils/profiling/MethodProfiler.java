@@ -0,0 +1,224 @@
+package com.sauceLabs.common.utils.profiling;
+
+import com.sauceLabs.common.utils.files.FileUtil;
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * hot spot profile of the methods marked with Timed: calls, failures, total and self time, max and the arguments of the slowest call,
+ * calls are counted in a per thread buffer without locking and merged into the run totals when the scenario ends,
+ * self time is the time of a method minus the timed methods it called, so a page object action and the
+ * SeleUtils calls it makes are not counted twice,
+ * enabled with 'MethodProfiler' system property, report is written at the end of the run
+ *
+ * @author MahmoudOsama
+ */
+public class MethodProfiler {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("MethodProfiler", "false"));
+    private static final String reportPath = System.getProperty("MethodProfiler.Report", "target/cucumber/method-profile.txt");
+    private static final int maxArgumentLength = 40;
+    private static final Map<String, MethodStats> stats = new ConcurrentHashMap<>();
+    private static final ThreadLocal<ThreadBuffer> buffers = ThreadLocal.withInitial(ThreadBuffer::new);
+
+    /**
+     * counters of one method, per thread in the buffer and merged per run
+     */
+    private static class MethodStats {
+        final String method;
+        final boolean step;
+        long calls;
+        long failures;
+        long totalNanos;
+        long selfNanos;
+        long maxNanos;
+        // arguments are kept as objects and only turned into text when the profile is merged
+        Object[] slowestArguments;
+        String slowestCall = "";
+        String lastFailure = "";
+
+        MethodStats(String method, boolean step) {
+            this.method = method;
+            this.step = step;
+        }
+
+        synchronized void merge(MethodStats other) {
+            calls += other.calls;
+            failures += other.failures;
+            totalNanos += other.totalNanos;
+            selfNanos += other.selfNanos;
+            if (other.maxNanos > maxNanos) {
+                maxNanos = other.maxNanos;
+                slowestCall = summarize(other.slowestArguments);
+            }
+            if (!other.lastFailure.isEmpty()) {
+                lastFailure = other.lastFailure;
+            }
+        }
+    }
+
+    /**
+     * calls of the current thread since the last flush, keyed by the join point which ajc creates once per method,
+     * plus the stack of nested timed calls used for the self time
+     */
+    private static class ThreadBuffer {
+        final Map<JoinPoint.StaticPart, MethodStats> methods = new IdentityHashMap<>();
+        long[] startNanos = new long[16];
+        long[] childNanos = new long[16];
+        int depth;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Opens a timed call on the current thread.
+     */
+    static void enter() {
+        ThreadBuffer buffer = buffers.get();
+        if (buffer.depth == buffer.childNanos.length) {
+            buffer.startNanos = Arrays.copyOf(buffer.startNanos, buffer.depth * 2);
+            buffer.childNanos = Arrays.copyOf(buffer.childNanos, buffer.depth * 2);
+        }
+        buffer.childNanos[buffer.depth] = 0;
+        buffer.startNanos[buffer.depth++] = System.nanoTime();
+    }
+
+    /**
+     * Closes the timed call opened last on the current thread and counts it.
+     *
+     * @param joinPoint executed method
+     * @param failure   thrown exception, null if the call returned
+     */
+    static void exit(JoinPoint joinPoint, Throwable failure) {
+        long end = System.nanoTime();
+        ThreadBuffer buffer = buffers.get();
+        long nanos = end - buffer.startNanos[--buffer.depth];
+        long childNanos = buffer.childNanos[buffer.depth];
+        if (buffer.depth > 0) {
+            buffer.childNanos[buffer.depth - 1] += nanos;
+        }
+        MethodStats methodStats = buffer.methods.get(joinPoint.getStaticPart());
+        if (methodStats == null) {
+            methodStats = new MethodStats(joinPoint.getSignature().getDeclaringType().getSimpleName()
+                    + "." + joinPoint.getSignature().getName(), isStep(joinPoint));
+            buffer.methods.put(joinPoint.getStaticPart(), methodStats);
+        }
+        methodStats.calls++;
+        methodStats.totalNanos += nanos;
+        methodStats.selfNanos += nanos - childNanos;
+        if (nanos > methodStats.maxNanos) {
+            methodStats.maxNanos = nanos;
+            methodStats.slowestArguments = joinPoint.getArgs();
+        }
+        if (failure != null) {
+            methodStats.failures++;
+            methodStats.lastFailure = failure.getClass().getSimpleName() + " with (" + summarize(joinPoint.getArgs()) + ")";
+        }
+    }
+
+    /**
+     * Merges the calls of the current thread into the run totals, called when the scenario ends.
+     */
+    public static void flush() {
+        if (!enabled) {
+            return;
+        }
+        ThreadBuffer buffer = buffers.get();
+        for (MethodStats methodStats : buffer.methods.values()) {
+            stats.computeIfAbsent(methodStats.method, method -> new MethodStats(method, methodStats.step)).merge(methodStats);
+        }
+        buffer.methods.clear();
+    }
+
+    /**
+     * @return step flag of the Timed annotation on the method, or on its class when the method is not annotated
+     */
+    private static boolean isStep(JoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timed timed = method.getAnnotation(Timed.class);
+        if (timed == null) {
+            timed = method.getDeclaringClass().getAnnotation(Timed.class);
+        }
+        return timed != null && timed.step();
+    }
+
+    private static String summarize(Object[] arguments) {
+        if (arguments == null) {
+            return "";
+        }
+        StringJoiner summary = new StringJoiner(", ");
+        for (Object argument : arguments) {
+            summary.add(summarize(argument));
+        }
+        return summary.toString();
+    }
+
+    private static String summarize(Object argument) {
+        String text;
+        if (argument == null) {
+            return "null";
+        } else if (argument instanceof String value) {
+            text = "\"" + value + "\"";
+        } else if (argument instanceof By || argument instanceof Number || argument instanceof Boolean || argument instanceof Enum) {
+            text = argument.toString();
+        } else if (argument instanceof WebElement) {
+            text = "WebElement";
+        } else if (argument.getClass().isArray()) {
+            text = argument.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(argument) + "]";
+        } else {
+            text = argument.getClass().getSimpleName();
+        }
+        return text.length() > maxArgumentLength ? text.substring(0, maxArgumentLength) + "..." : text;
+    }
+
+    /**
+     * Builds the per-run report sorted by self time, page object actions are flagged as steps.
+     *
+     * @return report text
+     */
+    public static String buildReport() {
+        List<MethodStats> sorted = new ArrayList<>(stats.values());
+        sorted.sort(Comparator.comparingLong((MethodStats s) -> s.selfNanos).reversed());
+        StringBuilder report = new StringBuilder(String.format("%-10s %-10s %-8s %-8s %-10s %-10s %-5s %s%n",
+                "self(ms)", "total(ms)", "calls", "failed", "mean(ms)", "max(ms)", "step", "method / slowest call"));
+        for (MethodStats s : sorted) {
+            synchronized (s) {
+                report.append(String.format("%-10.1f %-10.1f %-8d %-8d %-10.2f %-10.1f %-5s %s(%s)%n",
+                        s.selfNanos / 1e6, s.totalNanos / 1e6, s.calls, s.failures,
+                        s.calls == 0 ? 0 : s.totalNanos / 1e6 / s.calls, s.maxNanos / 1e6,
+                        s.step ? "yes" : "", s.method, s.slowestCall));
+                if (!s.lastFailure.isEmpty()) {
+                    report.append(String.format("%68s last failure: %s%n", "", s.lastFailure));
+                }
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes the report to the configured path, does nothing if profiling is disabled or nothing was recorded.
+     */
+    public static void writeReport() {
+        if (!enabled || stats.isEmpty()) {
+            return;
+        }
+        FileUtil.writeReport(reportPath, buildReport(), "Method profile for " + stats.size() + " methods");
+    }
+}
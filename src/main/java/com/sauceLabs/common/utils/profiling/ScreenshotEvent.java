@@ -0,0 +1,55 @@
+package com.sauceLabs.common.utils.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * flight recorder event spanning one screenshot capture,
+ * committing is a no-op when no recording is running
+ *
+ * @author MahmoudOsama
+ */
+@Name("com.sauceLabs.Screenshot")
+@Label("Screenshot")
+@Category({"Test Automation", "WebDriver"})
+@Description("Screenshot capture from the browser")
+@StackTrace(false)
+public class ScreenshotEvent extends Event {
+    @Label("Kind")
+    String kind;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    /**
+     * Creates and begins a screenshot event.
+     *
+     * @return started event
+     */
+    public static ScreenshotEvent start() {
+        ScreenshotEvent event = new ScreenshotEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it with its fields if a recording is interested in it.
+     *
+     * @param kind capture kind, e.g. viewport or element
+     * @param size captured bytes, -1 if the capture failed
+     */
+    public void finish(String kind, long size) {
+        end();
+        if (shouldCommit()) {
+            this.kind = kind;
+            this.size = size;
+            commit();
+        }
+    }
+}
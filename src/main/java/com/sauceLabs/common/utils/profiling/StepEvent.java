@@ -0,0 +1,47 @@
+package com.sauceLabs.common.utils.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * flight recorder event spanning one cucumber step, emitted by CucumberHooks,
+ * committing is a no-op when no recording is running
+ *
+ * @author MahmoudOsama
+ */
+@Name("com.sauceLabs.Step")
+@Label("Step")
+@Category({"Test Automation", "Cucumber"})
+@Description("Execution of one cucumber step")
+@StackTrace(false)
+public class StepEvent extends Event {
+    @Label("Scenario")
+    String scenario;
+
+    @Label("Step Index")
+    int stepIndex;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Ends the event and commits it with its fields if a recording is interested in it.
+     *
+     * @param scenario  scenario name
+     * @param stepIndex index of the step in the scenario, starting at 1
+     * @param outcome   scenario status after the step
+     */
+    public void finish(String scenario, int stepIndex, Object outcome) {
+        end();
+        if (shouldCommit()) {
+            this.scenario = scenario;
+            this.stepIndex = stepIndex;
+            this.outcome = String.valueOf(outcome);
+            commit();
+        }
+    }
+}
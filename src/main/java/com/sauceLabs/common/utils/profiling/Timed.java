@@ -0,0 +1,24 @@
+package com.sauceLabs.common.utils.profiling;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * marks public instance methods to be timed by MethodProfiler, on a class it applies to all its public instance methods,
+ * the timing code is woven in at build time by the aspectj-maven-plugin so there is no agent or reflection at runtime
+ *
+ * @author MahmoudOsama
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Timed {
+    /**
+     * @return true for page object actions, they are listed as steps in the hot spot report
+     * and their self time excludes the timed utility calls they make
+     */
+    boolean step() default false;
+}
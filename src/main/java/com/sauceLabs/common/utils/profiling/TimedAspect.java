@@ -0,0 +1,45 @@
+package com.sauceLabs.common.utils.profiling;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.annotation.Pointcut;
+
+/**
+ * times every public instance method annotated with Timed, or declared in a class annotated with it,
+ * woven at build time as before and after advice guarded by an if() pointcut on MethodProfiler.isEnabled,
+ * ajc builds the join point lazily after that test for before and after advice, never for around advice,
+ * so when the profiler is disabled a call only tests the flag and allocates nothing
+ *
+ * @author MahmoudOsama
+ */
+@Aspect
+public class TimedAspect {
+
+    @Pointcut("if()")
+    public static boolean profilerEnabled() {
+        return MethodProfiler.isEnabled();
+    }
+
+    @Pointcut("execution(public !static * *(..)) && (@annotation(com.sauceLabs.common.utils.profiling.Timed) "
+            + "|| @within(com.sauceLabs.common.utils.profiling.Timed)) && profilerEnabled()")
+    public void timedMethod() {
+    }
+
+    @Before("timedMethod()")
+    public void enter() {
+        MethodProfiler.enter();
+    }
+
+    @AfterReturning("timedMethod()")
+    public void returned(JoinPoint joinPoint) {
+        MethodProfiler.exit(joinPoint, null);
+    }
+
+    @AfterThrowing(pointcut = "timedMethod()", throwing = "failure")
+    public void threw(JoinPoint joinPoint, Throwable failure) {
+        MethodProfiler.exit(joinPoint, failure);
+    }
+}
@@ -0,0 +1,65 @@
+package com.sauceLabs.common.utils.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * flight recorder event spanning one explicit wait of SeleUtils/JSUtils,
+ * fields are only converted to text when a recording is running
+ *
+ * @author MahmoudOsama
+ */
+@Name("com.sauceLabs.Wait")
+@Label("Wait")
+@Category({"Test Automation", "WebDriver"})
+@Description("Explicit wait for a condition")
+@StackTrace(false)
+public class WaitEvent extends Event {
+    @Label("Condition")
+    String condition;
+
+    @Label("Target")
+    String target;
+
+    @Label("Timeout")
+    @Timespan(Timespan.SECONDS)
+    long timeout;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Creates and begins a wait event.
+     *
+     * @return started event
+     */
+    public static WaitEvent start() {
+        WaitEvent event = new WaitEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it with its fields if a recording is interested in it.
+     *
+     * @param condition  waited condition, e.g. an ExpectedCondition
+     * @param target     locator or element, null if the condition is not about an element
+     * @param timeoutSec wait timeout in seconds
+     * @param outcome    satisfied, timeout or error
+     */
+    public void finish(Object condition, Object target, long timeoutSec, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.condition = String.valueOf(condition);
+            this.target = target == null ? null : target.toString();
+            this.timeout = timeoutSec;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * content-addressed artifact store shared across runs, every artifact is written once under its sha-256 hash
+ * through a temp file and an atomic rename, so identical screenshots of different steps and runs share one file,
+ * every run records the hashes it references in a manifest and old runs are pruned with mark-and-sweep,
+ * enabled with 'ArtifactStore' system property, the store lives in 'ArtifactStore.Directory' (default 'artifact-store',
+ * next to 'run-history' and outside 'target' so 'mvn clean' keeps it)
+ *
+ * @author MahmoudOsama
+ */
+public class ArtifactStore {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("ArtifactStore", "false"));
+    private static final Path root = Paths.get(System.getProperty("ArtifactStore.Directory", "artifact-store"));
+    private static final int keepRuns = Integer.getInteger("ArtifactStore.KeepRuns", 10);
+    private static final Duration gracePeriod = Duration.ofHours(Long.getLong("ArtifactStore.GraceHours", 24));
+    private static final String runId = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+            + "_" + UUID.randomUUID().toString().substring(0, 8);
+    private static final Set<String> runReferences = ConcurrentHashMap.newKeySet();
+
+    /**
+     * stored artifact reference
+     *
+     * @param hash sha-256 hash of the content
+     * @param path path of the stored object
+     * @param isNew true if this call wrote the object, false if it was already stored
+     */
+    public record StoredArtifact(String hash, Path path, boolean isNew) {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stores the content under its hash, the object is only written if it does not exist yet,
+     * and the hash is added to the manifest of the current run.
+     * A reused object gets a fresh modification time, so the grace period of a concurrent prune protects it
+     * until the manifest referencing it is written.
+     *
+     * @param content   artifact bytes
+     * @param extension file extension without the dot
+     * @return stored artifact reference
+     */
+    public static StoredArtifact put(byte[] content, String extension) throws IOException {
+        return put(ByteBuffer.wrap(content), extension);
+    }
+
+    /**
+     * Stores the buffer content under its hash, direct buffers are hashed and written without a heap copy.
+     *
+     * @param content   buffer positioned at the start of the artifact bytes
+     * @param extension file extension without the dot
+     * @return stored artifact reference
+     */
+    public static StoredArtifact put(ByteBuffer content, String extension) throws IOException {
+        return put(root, content, extension);
+    }
+
+    static StoredArtifact put(Path root, ByteBuffer content, String extension) throws IOException {
+        String hash = sha256(content.duplicate());
+        Path object = objectPath(root, hash, extension);
+        boolean isNew = false;
+        if (!touch(object)) {
+            Files.createDirectories(object.getParent());
+            Path temp = Files.createTempFile(object.getParent(), hash, ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    while (content.hasRemaining()) {
+                        channel.write(content);
+                    }
+                }
+                Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+                isNew = true;
+            } catch (FileAlreadyExistsException e) {
+                // another thread or run stored the same content meanwhile
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        if (runReferences.add(hash + "." + extension)) {
+            Path manifest = root.resolve("runs").resolve(runId + ".txt");
+            Files.createDirectories(manifest.getParent());
+            synchronized (runReferences) {
+                Files.writeString(manifest, hash + "." + extension + System.lineSeparator(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        }
+        return new StoredArtifact(hash, object, isNew);
+    }
+
+    /**
+     * @return true if the object exists and its modification time was set to now, false if it does not exist
+     */
+    private static boolean touch(Path object) throws IOException {
+        try {
+            Files.setLastModifiedTime(object, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static Path objectPath(Path root, String hash, String extension) {
+        return root.resolve("objects").resolve(hash.substring(0, 2)).resolve(hash.substring(2) + "." + extension);
+    }
+
+    private static String sha256(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Prunes the store with mark-and-sweep: manifests beyond the newest 'ArtifactStore.KeepRuns' runs are deleted,
+     * objects referenced by the kept manifests are marked and unmarked objects older than the grace period are swept,
+     * the grace period protects objects of runs which are still writing their manifest.
+     *
+     * @return number of deleted objects
+     */
+    public static int prune() throws IOException {
+        return prune(root, keepRuns, gracePeriod);
+    }
+
+    static int prune(Path root, int keepRuns, Duration gracePeriod) throws IOException {
+        Path runs = root.resolve("runs");
+        Path objects = root.resolve("objects");
+        if (!Files.isDirectory(runs) || !Files.isDirectory(objects)) {
+            return 0;
+        }
+        List<Path> manifests;
+        try (Stream<Path> files = Files.list(runs)) {
+            // run ids start with the run time, so name order is age order
+            manifests = files.filter(file -> file.toString().endsWith(".txt"))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .collect(Collectors.toList());
+        }
+        Set<String> marked = new HashSet<>();
+        for (int i = 0; i < manifests.size(); i++) {
+            if (i < keepRuns || manifests.get(i).getFileName().toString().startsWith(runId)) {
+                marked.addAll(Files.readAllLines(manifests.get(i), StandardCharsets.UTF_8));
+            } else {
+                Files.delete(manifests.get(i));
+            }
+        }
+        Instant sweepBefore = Instant.now().minus(gracePeriod);
+        int deleted = 0;
+        long freedBytes = 0;
+        try (Stream<Path> files = Files.walk(objects, 2)) {
+            for (Path object : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String reference = object.getParent().getFileName().toString() + object.getFileName();
+                if (!marked.contains(reference) && Files.getLastModifiedTime(object).toInstant().isBefore(sweepBefore)) {
+                    freedBytes += Files.size(object);
+                    Files.delete(object);
+                    deleted++;
+                }
+            }
+        }
+        log.info("Artifact store pruned: kept {} runs, deleted {} objects ({} bytes)", Math.min(keepRuns, manifests.size()), deleted, freedBytes);
+        return deleted;
+    }
+}
@@ -0,0 +1,280 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import com.sauceLabs.common.ui.base.BaseWebDriver;
+import com.sauceLabs.common.utils.logs.MyLogger;
+import com.sauceLabs.common.utils.metrics.RunMetrics;
+import com.sauceLabs.common.utils.profiling.ScreenshotEvent;
+import com.sauceLabs.common.utils.timer.LatencyRecorder;
+import com.sauceLabs.common.utils.timer.MyTimer;
+import org.apache.logging.log4j.core.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.ConverterFunctions;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.firefox.HasFullPageScreenshot;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * element, region and full page screenshots with the DevTools 'Page.captureScreenshot' command,
+ * only the clipped area is rendered and encoded so a small element is captured much faster than the whole viewport,
+ * the output format (png, jpeg, webp), quality and scale are configurable,
+ * browsers without DevTools fall back to WebDriver element screenshots and firefox full page screenshots which are always png,
+ * firefox region screenshots are cropped from its full page screenshot
+ *
+ * @author MahmoudOsama
+ */
+public class DevToolsScreenshot {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final LatencyRecorder screenshotTimer = MyTimer.recorder("screenshot.devtools");
+    private static final Set<String> formats = Set.of("png", "jpeg", "webp");
+    private String format = "png";
+    private int quality = 80;
+    private double scale = 1;
+    private int padding = 0;
+
+    /**
+     * @param format image format: png, jpeg or webp
+     * @return this capture
+     */
+    public DevToolsScreenshot format(String format) {
+        String normalized = format.toLowerCase().equals("jpg") ? "jpeg" : format.toLowerCase();
+        if (!formats.contains(normalized)) {
+            throw new IllegalArgumentException("Unsupported screenshot format: " + format);
+        }
+        this.format = normalized;
+        return this;
+    }
+
+    /**
+     * @param quality compression quality of jpeg and webp images (0-100)
+     * @return this capture
+     */
+    public DevToolsScreenshot quality(int quality) {
+        this.quality = Math.max(0, Math.min(100, quality));
+        return this;
+    }
+
+    /**
+     * @param scale scale of the captured area, e.g. 0.5 halves width and height
+     * @return this capture
+     */
+    public DevToolsScreenshot scale(double scale) {
+        this.scale = scale;
+        return this;
+    }
+
+    /**
+     * @param padding css pixels captured around elements for context
+     * @return this capture
+     */
+    public DevToolsScreenshot padding(int padding) {
+        this.padding = Math.max(0, padding);
+        return this;
+    }
+
+    /**
+     * @param driver WebDriver object the screenshots are taken with
+     * @return media type of the captured bytes, png when the driver has no DevTools
+     */
+    public String mediaType(WebDriver driver) {
+        return "image/" + format(driver);
+    }
+
+    /**
+     * @param driver WebDriver object the screenshots are taken with
+     * @return file extension of the captured bytes, png when the driver has no DevTools
+     */
+    public String extension(WebDriver driver) {
+        String format = format(driver);
+        return format.equals("jpeg") ? "jpg" : format;
+    }
+
+    /**
+     * the WebDriver and firefox fallbacks always return png, only DevTools encodes the configured format
+     */
+    private String format(WebDriver driver) {
+        return BaseWebDriver.unwrap(driver) instanceof ChromiumDriver ? format : "png";
+    }
+
+    /**
+     * Captures the first element matching the locator.
+     *
+     * @param driver  WebDriver object
+     * @param locator element locator
+     * @return image bytes
+     */
+    public byte[] captureElement(WebDriver driver, By locator) {
+        return captureElement(driver, driver.findElement(locator));
+    }
+
+    /**
+     * Captures the element, it is scrolled into view when needed.
+     *
+     * @param driver  WebDriver object
+     * @param element element to capture
+     * @return image bytes
+     */
+    public byte[] captureElement(WebDriver driver, WebElement element) {
+        try (ScreenshotBufferPool.Lease screenshot = captureElementBuffer(driver, element)) {
+            return screenshot.toBytes();
+        }
+    }
+
+    /**
+     * Captures the element into a pooled buffer, the caller must close the lease.
+     * Without DevTools the WebDriver element screenshot is used, which is always png.
+     *
+     * @param driver  WebDriver object
+     * @param element element to capture
+     * @return leased buffer with the image bytes
+     */
+    public ScreenshotBufferPool.Lease captureElementBuffer(WebDriver driver, WebElement element) {
+        driver = BaseWebDriver.unwrap(driver);
+        if (!(driver instanceof ChromiumDriver)) {
+            return ScreenshotBufferPool.Lease.wrap(element.getScreenshotAs(OutputType.BYTES));
+        }
+        // clip coordinates are page coordinates, so add the scroll offset to the viewport relative rect
+        List<Number> rect = (List<Number>) ((JavascriptExecutor) driver).executeScript(
+                "arguments[0].scrollIntoView({block: 'nearest', inline: 'nearest'}); " +
+                "var r = arguments[0].getBoundingClientRect(); " +
+                "return [r.left + window.scrollX, r.top + window.scrollY, r.width, r.height, window.innerWidth, window.innerHeight];",
+                element);
+        double x = Math.max(0, rect.get(0).doubleValue() - padding);
+        double y = Math.max(0, rect.get(1).doubleValue() - padding);
+        double width = rect.get(2).doubleValue() + 2 * padding;
+        double height = rect.get(3).doubleValue() + 2 * padding;
+        boolean beyondViewport = width > rect.get(4).doubleValue() || height > rect.get(5).doubleValue();
+        return capture(driver, x, y, width, height, beyondViewport);
+    }
+
+    /**
+     * Captures a region of the page, firefox crops it from its full page screenshot as png.
+     *
+     * @param driver WebDriver object
+     * @param region region in css pixels relative to the top left corner of the page
+     * @return image bytes
+     */
+    public byte[] captureRegion(WebDriver driver, Rectangle region) {
+        driver = BaseWebDriver.unwrap(driver);
+        if (!(driver instanceof ChromiumDriver)) {
+            if (driver instanceof HasFullPageScreenshot) {
+                return cropFullPage(driver, region);
+            }
+            throw new UnsupportedOperationException("Region screenshots are not supported for " + driver.getClass().getSimpleName());
+        }
+        try (ScreenshotBufferPool.Lease screenshot = capture(driver, region.getX(), region.getY(), region.getWidth(), region.getHeight(), true)) {
+            return screenshot.toBytes();
+        }
+    }
+
+    /**
+     * Crops the region out of the full page screenshot, which is in device pixels,
+     * so the region is scaled by the ratio of the image width to the css width of the page.
+     */
+    private byte[] cropFullPage(WebDriver driver, Rectangle region) {
+        Number pageWidth = (Number) ((JavascriptExecutor) driver).executeScript(
+                "var e = document.documentElement; return Math.max(e.scrollWidth, e.clientWidth);");
+        try {
+            BufferedImage page = ScreenshotEncoder.decode(((HasFullPageScreenshot) driver).getFullPageScreenshotAs(OutputType.BYTES));
+            double ratio = page.getWidth() / pageWidth.doubleValue();
+            int x = Math.min(page.getWidth() - 1, Math.max(0, (int) Math.round(region.getX() * ratio)));
+            int y = Math.min(page.getHeight() - 1, Math.max(0, (int) Math.round(region.getY() * ratio)));
+            int width = Math.min(page.getWidth() - x, Math.max(1, (int) Math.round(region.getWidth() * ratio)));
+            int height = Math.min(page.getHeight() - y, Math.max(1, (int) Math.round(region.getHeight() * ratio)));
+            BufferedImage crop = page.getSubimage(x, y, width, height);
+            if (scale != 1) {
+                crop = ScreenshotEncoder.downscale(crop, Math.max(1, (int) Math.round(width * scale)), Math.max(1, (int) Math.round(height * scale)));
+            }
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(crop, "png", png);
+            RunMetrics.screenshotTaken();
+            log.info("Cropped {}x{} px region from the full page screenshot ({} bytes)", width, height, png.size());
+            return png.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Captures the whole scrollable page, not only the viewport.
+     *
+     * @param driver WebDriver object
+     * @return image bytes
+     */
+    public byte[] captureFullPage(WebDriver driver) {
+        try (ScreenshotBufferPool.Lease screenshot = captureFullPageBuffer(driver)) {
+            return screenshot.toBytes();
+        }
+    }
+
+    /**
+     * Captures the whole scrollable page into a pooled buffer, the caller must close the lease.
+     * Firefox uses its own full page screenshot and other browsers fall back to the viewport, both png.
+     *
+     * @param driver WebDriver object
+     * @return leased buffer with the image bytes
+     */
+    public ScreenshotBufferPool.Lease captureFullPageBuffer(WebDriver driver) {
+        driver = BaseWebDriver.unwrap(driver);
+        if (!(driver instanceof ChromiumDriver)) {
+            if (driver instanceof HasFullPageScreenshot) {
+                return ScreenshotBufferPool.Lease.wrap(((HasFullPageScreenshot) driver).getFullPageScreenshotAs(OutputType.BYTES));
+            }
+            log.info("Full page screenshots are not supported for {}, capturing the viewport", driver.getClass().getSimpleName());
+            return ScreenshotBufferPool.Lease.wrap(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES));
+        }
+        List<Number> size = (List<Number>) ((JavascriptExecutor) driver).executeScript(
+                "var e = document.documentElement; " +
+                "return [Math.max(e.scrollWidth, e.clientWidth), Math.max(e.scrollHeight, e.clientHeight)];");
+        return capture(driver, 0, 0, size.get(0).doubleValue(), size.get(1).doubleValue(), true);
+    }
+
+    private ScreenshotBufferPool.Lease capture(WebDriver driver, double x, double y, double width, double height, boolean beyondViewport) {
+        DevTools devTools = ((HasDevTools) driver).getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        Map<String, Object> clip = new HashMap<>();
+        clip.put("x", x);
+        clip.put("y", y);
+        clip.put("width", Math.max(1, width));
+        clip.put("height", Math.max(1, height));
+        clip.put("scale", scale);
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", format);
+        if (!format.equals("png")) {
+            params.put("quality", quality);
+        }
+        params.put("clip", clip);
+        params.put("captureBeyondViewport", beyondViewport);
+        params.put("optimizeForSpeed", true);
+        ScreenshotEvent screenshotEvent = ScreenshotEvent.start();
+        ScreenshotBufferPool.Lease screenshot;
+        long screenshotStart = System.nanoTime();
+        try {
+            String base64 = devTools.send(new Command<>("Page.captureScreenshot", params, ConverterFunctions.map("data", String.class)));
+            screenshot = ScreenshotBufferPool.decodeBase64(base64);
+        } finally {
+            screenshotTimer.record(System.nanoTime() - screenshotStart);
+        }
+        screenshotEvent.finish(beyondViewport ? "devtools clip beyond viewport" : "devtools clip", screenshot.size());
+        RunMetrics.screenshotTaken();
+        log.info("Captured {}x{} css px {} screenshot ({} bytes)", (int) width, (int) height, format, screenshot.size());
+        return screenshot;
+    }
+}
@@ -2,24 +2,29 @@ package com.sauceLabs.common.utils.screenshot;
 
 import com.sauceLabs.common.utils.logs.MyLogger;
 import com.sauceLabs.common.utils.files.FileUtil;
+import com.sauceLabs.common.utils.metrics.RunMetrics;
+import com.sauceLabs.common.utils.profiling.ScreenshotEvent;
 import com.sauceLabs.common.utils.properties.PropertiesManager;
+import com.sauceLabs.common.utils.timer.LatencyRecorder;
+import com.sauceLabs.common.utils.timer.MyTimer;
 import org.apache.logging.log4j.core.Logger;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 /**
  * @author MahmoudOsama
  */
 public class ScreenShot {
     private static final Logger log = new MyLogger().getLogger();
+    private static final LatencyRecorder screenshotTimer = MyTimer.recorder("screenshot.viewport");
+    private static final ScreenshotEncoder encoder = ScreenshotEncoder.fromProperties();
     private final PropertiesManager propertiesManager = new PropertiesManager();
     String screenShotDirectory = propertiesManager.getProp("Screenshot.Directory");
     /**
@@ -35,7 +40,16 @@ public class ScreenShot {
         FileUtil parentOutputDirectory = new FileUtil();
         parentOutputDirectory.createDirectory(screenShotDirectory);
         log.info("Directory created.");
-        File scFile = tsc.getScreenshotAs(OutputType.FILE);
+        ScreenshotEvent screenshotEvent = ScreenshotEvent.start();
+        File scFile;
+        long screenshotStart = System.nanoTime();
+        try {
+            scFile = tsc.getScreenshotAs(OutputType.FILE);
+        } finally {
+            screenshotTimer.record(System.nanoTime() - screenshotStart);
+        }
+        screenshotEvent.finish("viewport file", scFile.length());
+        RunMetrics.screenshotTaken();
         log.info("Screenshot captured");
         File screenshotFile = parentOutputDirectory.createFile(screenShotDirectory+"/", FileName + ".png");
         log.info("Screenshot file created");
@@ -43,21 +57,109 @@ public class ScreenShot {
         return screenshotFile;
     }
 
-    public byte[] TakeReducedDimensionScreenShots(WebDriver driver, String FileName) throws IOException {
-        File screenShotFile = takeWebScreenShot(driver, FileName);
-        // Read the screenshot file into a BufferedImage
-        BufferedImage originalImage = ImageIO.read(screenShotFile);
-        // Resize the image
-        int newWidth = (int) (originalImage.getWidth() *0.6);
-        int newHeight = (int) (originalImage.getHeight() *0.6);
-        Image resizedImage = originalImage.getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
-        BufferedImage resizedBufferedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = resizedBufferedImage.createGraphics();
-        g2d.drawImage(resizedImage, 0, 0, null);
-        g2d.dispose();
-        // Convert the resized BufferedImage back to a byte array
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(resizedBufferedImage, "png", baos);
-        return baos.toByteArray();
+    /**
+     * take screenshot from browser as png bytes without going through a temp file
+     *
+     * @param driver WebDriver object
+     * @return png bytes of the screenshot
+     */
+    public byte[] takeWebScreenShotBytes(WebDriver driver) {
+        ScreenshotEvent screenshotEvent = ScreenshotEvent.start();
+        byte[] screenshot;
+        long screenshotStart = System.nanoTime();
+        try {
+            screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+        } finally {
+            screenshotTimer.record(System.nanoTime() - screenshotStart);
+        }
+        screenshotEvent.finish("viewport bytes", screenshot.length);
+        RunMetrics.screenshotTaken();
+        log.info("Screenshot captured in memory ({} bytes)", screenshot.length);
+        return screenshot;
+    }
+
+    /**
+     * take screenshot from browser into a pooled buffer, the base64 response is decoded straight into the buffer
+     * so no intermediate byte array is allocated, the caller must close the lease
+     *
+     * @param driver WebDriver object
+     * @return leased buffer with the png bytes
+     */
+    public ScreenshotBufferPool.Lease takeWebScreenShotBuffer(WebDriver driver) {
+        if (!ScreenshotBufferPool.isEnabled()) {
+            return ScreenshotBufferPool.Lease.wrap(takeWebScreenShotBytes(driver));
+        }
+        ScreenshotEvent screenshotEvent = ScreenshotEvent.start();
+        ScreenshotBufferPool.Lease screenshot;
+        long screenshotStart = System.nanoTime();
+        try {
+            screenshot = ScreenshotBufferPool.decodeBase64(((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64));
+        } finally {
+            screenshotTimer.record(System.nanoTime() - screenshotStart);
+        }
+        screenshotEvent.finish("viewport buffer", screenshot.size());
+        RunMetrics.screenshotTaken();
+        log.info("Screenshot captured in pooled buffer ({} bytes)", screenshot.size());
+        return screenshot;
+    }
+
+    /**
+     * write already captured screenshot bytes into the screenshots directory
+     *
+     * @param screenshot image bytes
+     * @param fileName   file name including the extension
+     * @return written screenshot file
+     */
+    public File saveScreenShot(byte[] screenshot, String fileName) throws IOException {
+        return saveScreenShot(ByteBuffer.wrap(screenshot), fileName);
+    }
+
+    /**
+     * write screenshot bytes from a buffer into the screenshots directory through a file channel,
+     * direct buffers are written without a heap copy
+     *
+     * @param screenshot buffer positioned at the start of the image bytes
+     * @param fileName   file name including the extension
+     * @return written screenshot file
+     */
+    public File saveScreenShot(ByteBuffer screenshot, String fileName) throws IOException {
+        File directory = new File(screenShotDirectory);
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Screenshot directory could not be created: " + directory.getPath());
+        }
+        File screenshotFile = new File(directory, fileName);
+        try (FileChannel channel = FileChannel.open(screenshotFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (screenshot.hasRemaining()) {
+                channel.write(screenshot);
+            }
+        }
+        return screenshotFile;
+    }
+
+    /**
+     * take a reduced screenshot in memory, it is scaled and encoded by the screenshot encoder
+     * ('Screenshot.Format', 'Screenshot.Scale', 'Screenshot.MaxDimension'...) and written to disk only when a file name is given
+     *
+     * @param driver   WebDriver object
+     * @param FileName screenshot name without the extension, null to keep the screenshot in memory only
+     * @return encoded screenshot
+     */
+    public ScreenshotEncoder.EncodedImage TakeReducedDimensionScreenShots(WebDriver driver, String FileName) throws IOException {
+        ScreenshotEncoder.EncodedImage image = encoder.encode(takeWebScreenShotBytes(driver), true);
+        if (FileName != null) {
+            saveScreenShot(image.bytes(), FileName + "." + image.extension());
+        }
+        return image;
+    }
+
+    /**
+     * reduce png screenshot bytes with the reduce scale of the screenshot encoder and encode them in its format
+     *
+     * @param screenshot png bytes
+     * @return reduced image bytes in the 'Screenshot.Format' format
+     */
+    public byte[] reduceDimension(byte[] screenshot) throws IOException {
+        return encoder.encode(screenshot, true).bytes();
     }
 }
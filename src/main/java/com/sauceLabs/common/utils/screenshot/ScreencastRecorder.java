@@ -0,0 +1,289 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * records the browser with the DevTools 'Page.startScreencast' command as a per scenario alternative to step screenshots,
+ * frames are handed over to a background writer through a bounded queue and dropped when the writer falls behind,
+ * so recording never blocks the scenario thread,
+ * the recording is written as one MJPEG file ('Screencast.Format=mjpeg', default) or numbered jpeg frames ('frames'),
+ * both with an 'index.csv' timing index, enabled with 'Screencast' system property, Chromium browsers only
+ *
+ * @author MahmoudOsama
+ */
+public class ScreencastRecorder {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("Screencast", "false"));
+    private static final boolean keepOnFailureOnly = Boolean.parseBoolean(System.getProperty("Screencast.KeepOnFailureOnly", "true"));
+    private static final String format = System.getProperty("Screencast.Format", "mjpeg").toLowerCase();
+    private static final int framesPerSecond = Integer.getInteger("Screencast.Fps", 5);
+    private static final int quality = Integer.getInteger("Screencast.Quality", 60);
+    private static final int maxWidth = Integer.getInteger("Screencast.MaxWidth", 1280);
+    private static final int maxHeight = Integer.getInteger("Screencast.MaxHeight", 720);
+    private static final int queueSize = Integer.getInteger("Screencast.QueueSize", 32);
+    private static final String directory = System.getProperty("Screencast.Directory", "target/cucumber/screencasts");
+    private static final Event<Map<String, Object>> screencastFrame =
+            new Event<>("Page.screencastFrame", input -> input.read(Json.MAP_TYPE));
+    private static final Map<DevTools, AtomicReference<ScreencastRecorder>> activeRecorders = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ThreadLocal<ScreencastRecorder> currentRecorder = new ThreadLocal<>();
+    private static final Frame endOfRecording = new Frame(null, 0);
+
+    // replaced when the browser is recycled mid scenario, read by the DevTools event thread for the frame acks
+    private volatile DevTools devTools;
+    private final Path workDirectory;
+    private final BlockingQueue<Frame> frames = new ArrayBlockingQueue<>(queueSize);
+    private final AtomicInteger droppedFrames = new AtomicInteger();
+    private final Thread writer;
+    private final long minFrameIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, framesPerSecond);
+    private final long startNanos = System.nanoTime();
+    private volatile long lastFrameNanos = startNanos - minFrameIntervalNanos;
+    private volatile int writtenFrames;
+    private volatile IOException writeError;
+
+    private record Frame(String base64Jpeg, long receivedNanos) {
+    }
+
+    private ScreencastRecorder(DevTools devTools, Path workDirectory) {
+        this.devTools = devTools;
+        this.workDirectory = workDirectory;
+        this.writer = new Thread(this::writeFrames, "screencast-writer-" + workDirectory.getFileName());
+        this.writer.setDaemon(true);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts recording the given driver for the current thread, does nothing if recording is disabled
+     * or the browser is not Chromium based.
+     *
+     * @param driver WebDriver to record
+     */
+    public static void startRecording(WebDriver driver) {
+        if (!enabled || currentRecorder.get() != null) {
+            return;
+        }
+        if (!(driver instanceof ChromiumDriver)) {
+            log.info("Screencast is not supported for {}, recording skipped", driver.getClass().getSimpleName());
+            return;
+        }
+        ScreencastRecorder recorder = null;
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            Path workDirectory = Files.createDirectories(Paths.get(directory, "recording-" + UUID.randomUUID()));
+            recorder = new ScreencastRecorder(devTools, workDirectory);
+            recorder.writer.start();
+            recorder.attach(devTools);
+            currentRecorder.set(recorder);
+            log.info("Screencast recording started in: {}", workDirectory);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to start screencast recording: {}", e.getMessage());
+            if (recorder != null) {
+                recorder.stop(false, null);
+            }
+        }
+    }
+
+    /**
+     * Moves the recording of the current thread to a new browser after the old one was recycled mid scenario,
+     * frames go on into the same recording, a recording is started if the thread had none.
+     *
+     * @param driver WebDriver of the new browser
+     */
+    public static void switchDriver(WebDriver driver) {
+        ScreencastRecorder recorder = currentRecorder.get();
+        if (recorder == null) {
+            startRecording(driver);
+            return;
+        }
+        AtomicReference<ScreencastRecorder> previous = activeRecorders.get(recorder.devTools);
+        if (previous != null) {
+            previous.compareAndSet(recorder, null);
+        }
+        if (!(driver instanceof ChromiumDriver)) {
+            return;
+        }
+        try {
+            recorder.attach(((HasDevTools) driver).getDevTools());
+            log.info("Screencast recording moved to the new browser session");
+        } catch (RuntimeException e) {
+            log.error("Failed to move screencast recording to the new browser: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Routes the frames of the DevTools session to this recorder and starts the screencast on it.
+     */
+    private void attach(DevTools devTools) {
+        devTools.createSessionIfThereIsNotOne();
+        AtomicReference<ScreencastRecorder> active = activeRecorders.get(devTools);
+        if (active == null) {
+            // listeners can only be cleared all at once, so register a single frame listener per session
+            active = new AtomicReference<>();
+            activeRecorders.put(devTools, active);
+            AtomicReference<ScreencastRecorder> sessionRecorder = active;
+            devTools.addListener(screencastFrame, frame -> {
+                ScreencastRecorder target = sessionRecorder.get();
+                if (target != null) {
+                    target.onFrame(frame);
+                }
+            });
+        }
+        this.devTools = devTools;
+        active.set(this);
+        devTools.send(new Command<Void>("Page.startScreencast", Map.of(
+                "format", "jpeg", "quality", quality, "maxWidth", maxWidth, "maxHeight", maxHeight, "everyNthFrame", 1)));
+    }
+
+    /**
+     * Stops the recording of the current thread and keeps or deletes it.
+     *
+     * @param failed true if the scenario failed
+     * @param name   directory name of the kept recording
+     * @return directory of the kept recording, null if nothing was recorded or it was deleted
+     */
+    public static Path stopRecording(boolean failed, String name) {
+        ScreencastRecorder recorder = currentRecorder.get();
+        currentRecorder.remove();
+        if (recorder == null) {
+            return null;
+        }
+        return recorder.stop(failed || !keepOnFailureOnly, name);
+    }
+
+    /**
+     * Called on the DevTools event thread, the frame is acknowledged right away so chrome keeps sending frames,
+     * frames above the configured rate or arriving while the queue is full are dropped.
+     */
+    private void onFrame(Map<String, Object> frame) {
+        Map<String, Object> ack = new HashMap<>();
+        ack.put("sessionId", frame.get("sessionId"));
+        long now = System.nanoTime();
+        if (now - lastFrameNanos >= minFrameIntervalNanos) {
+            if (frames.offer(new Frame((String) frame.get("data"), now))) {
+                lastFrameNanos = now;
+            } else {
+                droppedFrames.incrementAndGet();
+            }
+        }
+        try {
+            devTools.send(new Command<Void>("Page.screencastFrameAck", ack));
+        } catch (RuntimeException e) {
+            log.debug("Screencast frame ack failed: {}", e.getMessage());
+        }
+    }
+
+    private void writeFrames() {
+        boolean mjpeg = !format.equals("frames");
+        Base64.Decoder decoder = Base64.getDecoder();
+        long offset = 0;
+        try (PrintWriter index = new PrintWriter(Files.newBufferedWriter(workDirectory.resolve("index.csv"), StandardCharsets.UTF_8));
+             OutputStream video = mjpeg ? new BufferedOutputStream(Files.newOutputStream(workDirectory.resolve("recording.mjpeg"))) : null) {
+            index.println("frame,elapsed_ms,file,offset,length");
+            while (true) {
+                Frame frame = frames.take();
+                if (frame == endOfRecording) {
+                    break;
+                }
+                byte[] jpeg = decoder.decode(frame.base64Jpeg());
+                String file;
+                if (mjpeg) {
+                    video.write(jpeg);
+                    file = "recording.mjpeg";
+                } else {
+                    file = String.format("frame_%06d.jpg", writtenFrames);
+                    Files.write(workDirectory.resolve(file), jpeg);
+                }
+                index.printf("%d,%d,%s,%d,%d%n", writtenFrames, (frame.receivedNanos() - startNanos) / 1_000_000,
+                        file, mjpeg ? offset : 0, jpeg.length);
+                offset += jpeg.length;
+                writtenFrames++;
+            }
+        } catch (IOException e) {
+            writeError = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Path stop(boolean keep, String name) {
+        AtomicReference<ScreencastRecorder> active = activeRecorders.get(devTools);
+        if (active != null) {
+            active.compareAndSet(this, null);
+        }
+        try {
+            devTools.send(new Command<Void>("Page.stopScreencast", Map.of()));
+        } catch (RuntimeException e) {
+            log.debug("Screencast could not be stopped, the browser may be closed already: {}", e.getMessage());
+        }
+        try {
+            // the queue may be full, wait for the writer to take frames before sending the end marker
+            if (!frames.offer(endOfRecording, 5, TimeUnit.SECONDS)) {
+                writer.interrupt();
+            }
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Screencast recorded {} frames, {} dropped", writtenFrames, droppedFrames.get());
+        if (writeError != null) {
+            log.error("Screencast recording could not be written: {}", writeError.getMessage());
+            keep = false;
+        }
+        try {
+            if (!keep || writtenFrames == 0) {
+                deleteRecording(workDirectory);
+                return null;
+            }
+            Path target = workDirectory.resolveSibling(name);
+            deleteRecording(target);
+            return Files.move(workDirectory, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to finish screencast recording: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void deleteRecording(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
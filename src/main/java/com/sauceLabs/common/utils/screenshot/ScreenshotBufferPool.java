@@ -0,0 +1,219 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * bounded pool of direct byte buffers for screenshot bytes, buffers are size classed in powers of two
+ * from 1 MB so a capture reuses a buffer of a previous capture instead of allocating a new multi-megabyte array,
+ * the pool holds at most 'ScreenshotBufferPool.MaxBytes' (default 64 MB), larger or additional requests fall back to heap buffers,
+ * enabled by default and switched off with 'ScreenshotBufferPool=false'
+ *
+ * @author MahmoudOsama
+ */
+public class ScreenshotBufferPool {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("ScreenshotBufferPool", "true"));
+    private static final long maxPoolBytes = Long.getLong("ScreenshotBufferPool.MaxBytes", 64L * 1024 * 1024);
+    private static final int minClassShift = 20;
+    private static final int maxClassShift = 25;
+    private static final Queue<ByteBuffer>[] freeBuffers = createClasses();
+    private static final AtomicLong allocatedBytes = new AtomicLong();
+    private static final int base64ChunkChars = 1 << 16;
+
+    @SuppressWarnings("unchecked")
+    private static Queue<ByteBuffer>[] createClasses() {
+        Queue<ByteBuffer>[] classes = (Queue<ByteBuffer>[]) new Queue<?>[maxClassShift - minClassShift + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ConcurrentLinkedQueue<>();
+        }
+        return classes;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * leased buffer, closing the lease returns a pooled buffer to the pool,
+     * the buffer is ready to read from position 0 to its limit
+     */
+    public static final class Lease implements AutoCloseable {
+        private final ByteBuffer buffer;
+        private final int sizeClass;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(ByteBuffer buffer, int sizeClass) {
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+        }
+
+        /**
+         * Wraps heap bytes without copying, closing the lease does nothing.
+         *
+         * @param bytes content
+         * @return lease over the bytes
+         */
+        public static Lease wrap(byte[] bytes) {
+            return new Lease(ByteBuffer.wrap(bytes), -1);
+        }
+
+        /**
+         * @return read only view of the content, positioned at 0
+         */
+        public ByteBuffer buffer() {
+            return buffer.asReadOnlyBuffer();
+        }
+
+        public int size() {
+            return buffer.limit();
+        }
+
+        /**
+         * Copies the content to the heap, only needed where an api takes a byte array such as report attachments.
+         *
+         * @return content bytes
+         */
+        public byte[] toBytes() {
+            if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.limit()) {
+                return buffer.array();
+            }
+            byte[] bytes = new byte[buffer.limit()];
+            buffer.get(0, bytes);
+            return bytes;
+        }
+
+        /**
+         * @return image input stream reading the content in place, without the copy ImageIO makes for plain input streams
+         */
+        public ImageInputStream imageInputStream() {
+            return new ByteBufferImageInputStream(buffer());
+        }
+
+        @Override
+        public void close() {
+            if (sizeClass >= 0 && released.compareAndSet(false, true)) {
+                buffer.clear();
+                freeBuffers[sizeClass].offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Leases a buffer able to hold the given number of bytes, the limit is set to the size.
+     *
+     * @param size required size in bytes
+     * @return leased buffer
+     */
+    public static Lease acquire(int size) {
+        int sizeClass = sizeClass(size);
+        if (!enabled || sizeClass < 0) {
+            return new Lease(ByteBuffer.allocate(size), -1);
+        }
+        ByteBuffer buffer = freeBuffers[sizeClass].poll();
+        if (buffer == null) {
+            long capacity = 1L << (sizeClass + minClassShift);
+            if (allocatedBytes.addAndGet(capacity) > maxPoolBytes) {
+                allocatedBytes.addAndGet(-capacity);
+                log.debug("Screenshot buffer pool is exhausted, using a heap buffer of {} bytes", size);
+                return new Lease(ByteBuffer.allocate(size), -1);
+            }
+            buffer = ByteBuffer.allocateDirect((int) capacity);
+        }
+        buffer.clear().limit(size);
+        return new Lease(buffer, sizeClass);
+    }
+
+    private static int sizeClass(int size) {
+        int shift = Math.max(minClassShift, 32 - Integer.numberOfLeadingZeros(Math.max(1, size - 1)));
+        return shift > maxClassShift ? -1 : shift - minClassShift;
+    }
+
+    /**
+     * Decodes a base64 screenshot straight into a pooled buffer, skipping the intermediate byte array
+     * the WebDriver BYTES output type allocates, the JDK decoder runs on small chunks so only the chunk arrays are allocated,
+     * input with line breaks is decoded with the MIME decoder like WebDriver does.
+     *
+     * @param base64 base64 encoded content
+     * @return leased buffer with the decoded bytes
+     */
+    public static Lease decodeBase64(String base64) {
+        Lease lease = acquire(base64.length() / 4 * 3 + 3);
+        try {
+            decodeChunks(base64, lease.buffer);
+        } catch (IllegalArgumentException e) {
+            lease.buffer.clear();
+            lease.buffer.put(Base64.getMimeDecoder().decode(base64));
+        }
+        lease.buffer.flip();
+        return lease;
+    }
+
+    /**
+     * Decodes chunks of a multiple of four characters, so padding can only end the last chunk.
+     */
+    private static void decodeChunks(String base64, ByteBuffer target) {
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] chars = new byte[base64ChunkChars];
+        byte[] decoded = new byte[base64ChunkChars / 4 * 3];
+        int length = base64.length();
+        for (int start = 0; start < length; start += base64ChunkChars) {
+            int end = Math.min(length, start + base64ChunkChars);
+            byte[] chunk = end - start == chars.length ? chars : new byte[end - start];
+            int nonAscii = 0;
+            for (int i = start; i < end; i++) {
+                char c = base64.charAt(i);
+                nonAscii |= c & 0xff80;
+                chunk[i - start] = (byte) c;
+            }
+            if (nonAscii != 0) {
+                throw new IllegalArgumentException("Non ascii character in base64 content");
+            }
+            target.put(decoded, 0, decoder.decode(chunk, decoded));
+        }
+    }
+
+    /**
+     * seekable ImageIO stream over a byte buffer
+     */
+    private static final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+        private final ByteBuffer buffer;
+
+        ByteBufferImageInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            bitOffset = 0;
+            return streamPos < buffer.limit() ? buffer.get((int) streamPos++) & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            bitOffset = 0;
+            int available = buffer.limit() - (int) streamPos;
+            if (available <= 0) {
+                return -1;
+            }
+            int count = Math.min(length, available);
+            buffer.get((int) streamPos, bytes, offset, count);
+            streamPos += count;
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return buffer.limit();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * in-memory screenshot scaling and encoding, nothing is written to disk,
+ * images are downscaled with repeated bilinear halving (close to area averaging and much faster than SCALE_SMOOTH)
+ * and encoded as jpeg with configurable quality or png with a configurable deflate level,
+ * settings are read from 'Screenshot.Format', 'Screenshot.JpegQuality', 'Screenshot.PngCompression',
+ * 'Screenshot.Scale' and 'Screenshot.MaxDimension' system properties
+ *
+ * @author MahmoudOsama
+ */
+public class ScreenshotEncoder {
+    private static final Logger log = new MyLogger().getLogger();
+    private final String format;
+    private final float jpegQuality;
+    private final int pngCompression;
+    private final double reduceScale;
+    private final int maxDimension;
+
+    static {
+        // keep ImageIO from creating temp cache files while decoding and encoding
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * encoded screenshot
+     *
+     * @param bytes     encoded image bytes
+     * @param mediaType media type of the bytes
+     * @param extension file extension without the dot
+     */
+    public record EncodedImage(byte[] bytes, String mediaType, String extension) {
+    }
+
+    /**
+     * @param format         'png' or 'jpeg'
+     * @param jpegQuality    jpeg quality between 0 and 1
+     * @param pngCompression png deflate level between 0 (fastest) and 9 (smallest)
+     * @param reduceScale    scale applied when a reduced screenshot is requested
+     * @param maxDimension   max width/height of the output, 0 for no cap
+     */
+    public ScreenshotEncoder(String format, float jpegQuality, int pngCompression, double reduceScale, int maxDimension) {
+        this.format = format.equalsIgnoreCase("jpg") ? "jpeg" : format.toLowerCase();
+        if (!this.format.equals("png") && !this.format.equals("jpeg")) {
+            throw new IllegalArgumentException("Unsupported screenshot format: " + format);
+        }
+        this.jpegQuality = jpegQuality;
+        this.pngCompression = pngCompression;
+        this.reduceScale = reduceScale;
+        this.maxDimension = maxDimension;
+    }
+
+    public static ScreenshotEncoder fromProperties() {
+        return new ScreenshotEncoder(
+                System.getProperty("Screenshot.Format", "png"),
+                Float.parseFloat(System.getProperty("Screenshot.JpegQuality", "0.8")),
+                Integer.getInteger("Screenshot.PngCompression", 3),
+                Double.parseDouble(System.getProperty("Screenshot.Scale", "0.6")),
+                Integer.getInteger("Screenshot.MaxDimension", 0));
+    }
+
+    /**
+     * @param reduce true if the reduce scale is applied
+     * @return true if the captured png is used as it is
+     */
+    public boolean isPassThrough(boolean reduce) {
+        return !reduce && maxDimension <= 0 && format.equals("png");
+    }
+
+    /**
+     * Scales and encodes captured png bytes, the original bytes are returned untouched when
+     * no scaling is needed and the output format is png.
+     *
+     * @param png    captured png bytes
+     * @param reduce true to apply the reduce scale
+     * @return encoded image
+     */
+    public EncodedImage encode(byte[] png, boolean reduce) throws IOException {
+        return encode(png, null, reduce);
+    }
+
+    /**
+     * Scales and encodes captured png bytes reusing an already decoded image.
+     *
+     * @param png     captured png bytes
+     * @param decoded decoded png, null to decode it only if needed
+     * @param reduce  true to apply the reduce scale
+     * @return encoded image
+     */
+    public EncodedImage encode(byte[] png, BufferedImage decoded, boolean reduce) throws IOException {
+        if (isPassThrough(reduce)) {
+            return new EncodedImage(png, "image/png", "png");
+        }
+        BufferedImage image = decoded != null ? decoded : decode(png);
+        double scale = reduce ? reduceScale : 1.0;
+        int longestSide = Math.max(image.getWidth(), image.getHeight());
+        if (maxDimension > 0 && longestSide * scale > maxDimension) {
+            scale = (double) maxDimension / longestSide;
+        }
+        BufferedImage scaled = downscale(image,
+                Math.max(1, (int) Math.round(image.getWidth() * scale)),
+                Math.max(1, (int) Math.round(image.getHeight() * scale)));
+        // the png writer truncates 9 * (1 - quality) to the deflate level, the half step keeps float error from lowering it
+        return format.equals("jpeg")
+                ? new EncodedImage(write(scaled, "jpeg", jpegQuality), "image/jpeg", "jpg")
+                : new EncodedImage(write(scaled, "png", Math.max(0f, 1f - (pngCompression + 0.5f) / 9f)), "image/png", "png");
+    }
+
+    /**
+     * Decodes image bytes without touching disk.
+     *
+     * @param bytes encoded image bytes
+     * @return decoded image
+     */
+    public static BufferedImage decode(byte[] bytes) throws IOException {
+        return decode(ImageIO.createImageInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Decodes an image from an image input stream.
+     *
+     * @param input image input stream, closed after reading
+     * @return decoded image
+     */
+    public static BufferedImage decode(ImageInputStream input) throws IOException {
+        BufferedImage image = ImageIO.read(input);
+        if (image == null) {
+            throw new IOException("Screenshot bytes are not a readable image");
+        }
+        return image;
+    }
+
+    /**
+     * Downscales the image by halving it with bilinear interpolation until the last step is at most 2x,
+     * the result is always an opaque RGB image so it can be encoded as jpeg.
+     *
+     * @param source image to scale
+     * @param width  target width
+     * @param height target height
+     * @return scaled RGB image
+     */
+    public static BufferedImage downscale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = currentWidth / 2 >= width ? currentWidth / 2 : width;
+            currentHeight = currentHeight / 2 >= height ? currentHeight / 2 : height;
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = step.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            g2d.drawImage(current, 0, 0, currentWidth, currentHeight, Color.WHITE, null);
+            g2d.dispose();
+            current = step;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private static byte[] write(BufferedImage image, String formatName, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(formatName).next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(baos)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(Math.max(0f, Math.min(1f, quality)));
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        log.debug("Encoded {}x{} {} screenshot into {} bytes", image.getWidth(), image.getHeight(), formatName, baos.size());
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,96 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * difference hash (dHash) of screenshots, the image is downsampled to a small grayscale grid
+ * and every bit tells whether a cell is brighter than its right neighbour,
+ * screenshots with a small hamming distance between their hashes look the same
+ *
+ * @author MahmoudOsama
+ */
+public class ScreenshotHash {
+
+    private ScreenshotHash() {
+    }
+
+    /**
+     * Computes the dHash of the image on a (size + 1) x size grid.
+     *
+     * @param image image to hash
+     * @param size  number of hash rows and columns, the hash has size * size bits
+     * @return hash bits packed in longs
+     */
+    public static long[] dHash(BufferedImage image, int size) {
+        BufferedImage grid = ScreenshotEncoder.downscale(image, size + 1, size);
+        long[] hash = new long[(size * size + 63) / 64];
+        int bit = 0;
+        for (int y = 0; y < size; y++) {
+            int left = luminance(grid.getRGB(0, y));
+            for (int x = 1; x <= size; x++) {
+                int right = luminance(grid.getRGB(x, y));
+                if (left > right) {
+                    hash[bit / 64] |= 1L << (bit % 64);
+                }
+                left = right;
+                bit++;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Counts the differing bits of two hashes of the same size.
+     *
+     * @return hamming distance
+     */
+    public static int distance(long[] first, long[] second) {
+        int distance = 0;
+        for (int i = 0; i < first.length; i++) {
+            distance += Long.bitCount(first[i] ^ second[i]);
+        }
+        return distance;
+    }
+
+    /**
+     * Computes a SHA-256 digest of the image size and pixels, equal digests mean identical pixels.
+     *
+     * @param image image to digest
+     * @return digest bytes
+     */
+    public static byte[] pixelDigest(BufferedImage image) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(ByteBuffer.allocate(12).putInt(image.getWidth()).putInt(image.getHeight()).putInt(image.getType()).flip());
+        DataBuffer data = image.getRaster().getDataBuffer();
+        if (data instanceof DataBufferByte bytes && data.getNumBanks() == 1) {
+            digest.update(bytes.getData());
+        } else if (data instanceof DataBufferInt ints && data.getNumBanks() == 1) {
+            ByteBuffer buffer = ByteBuffer.allocate(ints.getData().length * 4);
+            buffer.asIntBuffer().put(ints.getData());
+            digest.update(buffer);
+        } else {
+            ByteBuffer row = ByteBuffer.allocate(image.getWidth() * 4);
+            for (int y = 0; y < image.getHeight(); y++) {
+                row.clear();
+                row.asIntBuffer().put(image.getRGB(0, y, image.getWidth(), 1, null, 0, image.getWidth()));
+                digest.update(row);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static int luminance(int rgb) {
+        return (((rgb >> 16) & 0xff) * 299 + ((rgb >> 8) & 0xff) * 587 + (rgb & 0xff) * 114) / 1000;
+    }
+}
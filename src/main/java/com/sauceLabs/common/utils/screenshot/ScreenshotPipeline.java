@@ -0,0 +1,334 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * asynchronous screenshot pipeline, the scenario thread only captures the png bytes
+ * and the encoding, optional resizing and disk write run on a small bounded executor,
+ * when the queue is full the scenario thread processes the screenshot itself so memory stays bounded,
+ * enabled by default and switched off with 'ScreenshotPipeline=false' to get the old synchronous path,
+ * consecutive screenshots of the same screen are de-duplicated by perceptual hash ('Screenshot.Dedup', default true),
+ * a hash match is only dropped when the pixels are identical unless 'Screenshot.DedupThreshold' allows differing bits
+ *
+ * @author MahmoudOsama
+ */
+public class ScreenshotPipeline {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("ScreenshotPipeline", "true"));
+    private static final int threads = Integer.getInteger("ScreenshotPipeline.Threads", 2);
+    private static final int queueSize = Integer.getInteger("ScreenshotPipeline.QueueSize", 8);
+    private static final long waitBudgetMs = Long.getLong("ScreenshotPipeline.WaitMs", 150);
+    private static final long flushTimeoutMs = Long.getLong("ScreenshotPipeline.FlushTimeoutMs", 10_000);
+    private static final boolean writeToDisk = Boolean.parseBoolean(System.getProperty("Screenshot.WriteToDisk", "true"));
+    private static final ScreenshotEncoder encoder = ScreenshotEncoder.fromProperties();
+    private static final boolean dedup = Boolean.parseBoolean(System.getProperty("Screenshot.Dedup", "true"));
+    private static final int dedupHashSize = Integer.getInteger("Screenshot.DedupHashSize", 32);
+    private static final int dedupThreshold = Integer.getInteger("Screenshot.DedupThreshold", 0);
+    private static final LongAdder duplicates = new LongAdder();
+    private static final LongAdder skippedBytes = new LongAdder();
+    private static final LongAdder steps = new LongAdder();
+    private static final LongAdder stepOverheadNanos = new LongAdder();
+    private static final ThreadPoolExecutor executor = createExecutor();
+    private static final LongAdder submitted = new LongAdder();
+    private static final LongAdder captures = new LongAdder();
+    private static final LongAdder captureAllocatedBytes = new LongAdder();
+    private static final LongAdder pipelineAllocatedBytes = new LongAdder();
+    private static final com.sun.management.ThreadMXBean allocationCounter = createAllocationCounter();
+    private static volatile long gcBaseline = -1;
+
+    /**
+     * allocations of the step screenshots, counted on the threads doing the work
+     *
+     * @param captures               screenshots captured through {@link #capture}
+     * @param captureAllocatedBytes  bytes allocated by the capturing (scenario) threads
+     * @param screenshots            screenshots queued on the pipeline
+     * @param pipelineAllocatedBytes bytes allocated by decoding, hashing, encoding and writing the queued screenshots
+     */
+    public record Allocations(long captures, long captureAllocatedBytes, long screenshots, long pipelineAllocatedBytes) {
+        public double captureMbPerScreenshot() {
+            return captures == 0 ? 0 : captureAllocatedBytes / 1048576.0 / captures;
+        }
+
+        public double pipelineMbPerScreenshot() {
+            return screenshots == 0 ? 0 : pipelineAllocatedBytes / 1048576.0 / screenshots;
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "screenshot-pipeline-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // backpressure: a full queue makes the scenario thread do the work instead of queueing more bytes
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static com.sun.management.ThreadMXBean createAllocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+                && threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return threadMXBean;
+        }
+        return null;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Captures a step screenshot on the calling thread and counts the bytes the capture allocated on it.
+     *
+     * @param capture capture of the screenshot into a leased buffer
+     * @return leased buffer with the captured png
+     */
+    public static ScreenshotBufferPool.Lease capture(Supplier<ScreenshotBufferPool.Lease> capture) {
+        return allocating(captureAllocatedBytes, () -> {
+            captures.increment();
+            return capture.get();
+        });
+    }
+
+    /**
+     * Runs the work and adds the bytes it allocated on the current thread to the counter, a thread's counter
+     * is read before and after the work so threads which end later do not drop out of the total.
+     */
+    private static <T> T allocating(LongAdder counter, Supplier<T> work) {
+        if (allocationCounter == null) {
+            return work.get();
+        }
+        long before = allocationCounter.getCurrentThreadAllocatedBytes();
+        try {
+            return work.get();
+        } finally {
+            counter.add(allocationCounter.getCurrentThreadAllocatedBytes() - before);
+        }
+    }
+
+    private record DecodedScreenshot(BufferedImage image, long[] hash, byte[] pixelDigest) {
+    }
+
+    /**
+     * Queues captured png bytes for resizing, encoding, disk write and attachment.
+     * The screenshot is compared with the previous screenshot of the same scenario,
+     * when both show the same screen a reference to the earlier one is returned instead of new bytes.
+     *
+     * @param png      captured png bytes
+     * @param fileName file name without extension
+     * @param reduce   true to resize the screenshot before writing it
+     * @param previous previous screenshot of the same scenario, null for the first one
+     * @return future completed with the processed screenshot
+     */
+    public static CompletableFuture<StepScreenshot> submit(byte[] png, String fileName, boolean reduce,
+                                                           CompletableFuture<StepScreenshot> previous) {
+        return submit(ScreenshotBufferPool.Lease.wrap(png), fileName, reduce, previous);
+    }
+
+    /**
+     * Queues a captured png held in a leased buffer, the lease is closed once the screenshot is processed.
+     *
+     * @param png      leased buffer with the captured png
+     * @param fileName file name without extension
+     * @param reduce   true to resize the screenshot before writing it
+     * @param previous previous screenshot of the same scenario, null for the first one
+     * @return future completed with the processed screenshot
+     */
+    public static CompletableFuture<StepScreenshot> submit(ScreenshotBufferPool.Lease png, String fileName, boolean reduce,
+                                                           CompletableFuture<StepScreenshot> previous) {
+        recordAllocationBaseline();
+        CompletableFuture<StepScreenshot> result;
+        if (!dedup) {
+            result = CompletableFuture.supplyAsync(() -> allocating(pipelineAllocatedBytes,
+                    () -> process(png, null, fileName, reduce, null)), executor);
+        } else {
+            // decoding and hashing run in parallel, only the comparison waits for the previous screenshot
+            CompletableFuture<DecodedScreenshot> decoded = CompletableFuture.supplyAsync(() -> allocating(pipelineAllocatedBytes,
+                    () -> decode(png)), executor);
+            CompletableFuture<StepScreenshot> previousScreenshot = previous == null
+                    ? CompletableFuture.completedFuture(null)
+                    : previous.exceptionally(e -> null);
+            result = decoded.thenCombineAsync(previousScreenshot,
+                    (decodedScreenshot, earlier) -> allocating(pipelineAllocatedBytes,
+                            () -> process(png, decodedScreenshot, fileName, reduce, earlier)), executor);
+        }
+        result.whenComplete((screenshot, error) -> png.close());
+        return result;
+    }
+
+    private static DecodedScreenshot decode(ScreenshotBufferPool.Lease png) {
+        try {
+            BufferedImage image = ScreenshotEncoder.decode(png.imageInputStream());
+            return new DecodedScreenshot(image, ScreenshotHash.dHash(image, dedupHashSize),
+                    dedupThreshold == 0 ? ScreenshotHash.pixelDigest(image) : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StepScreenshot process(ScreenshotBufferPool.Lease png, DecodedScreenshot decoded, String fileName, boolean reduce, StepScreenshot previous) {
+        // compare with the last attached image so slow drift over several steps is not hidden
+        StepScreenshot original = previous != null && previous.isDuplicate() ? previous.duplicateOf() : previous;
+        if (decoded != null && original != null && original.hash() != null
+                && ScreenshotHash.distance(decoded.hash(), original.hash()) <= dedupThreshold
+                && (dedupThreshold > 0 || Arrays.equals(decoded.pixelDigest(), original.pixelDigest()))) {
+            duplicates.increment();
+            skippedBytes.add(original.bytes() != null ? original.bytes().length : original.file().length());
+            return new StepScreenshot(fileName, null, original.mediaType(), original.file(), original.hash(),
+                    original.pixelDigest(), original);
+        }
+        try {
+            ByteBuffer content;
+            ScreenshotEncoder.EncodedImage image;
+            if (encoder.isPassThrough(reduce)) {
+                // the captured png is written straight from its (direct) buffer, the heap copy is only made for an embedded report image
+                content = png.buffer();
+                image = new ScreenshotEncoder.EncodedImage(null, "image/png", "png");
+            } else {
+                BufferedImage source = decoded != null ? decoded.image() : ScreenshotEncoder.decode(png.imageInputStream());
+                image = encoder.encode(null, source, reduce);
+                content = ByteBuffer.wrap(image.bytes());
+            }
+            String name = fileName + "." + image.extension();
+            File file = null;
+            if (ArtifactStore.isEnabled()) {
+                // stored once under its hash, the report name carries the hash instead of a timestamped copy
+                ArtifactStore.StoredArtifact artifact = ArtifactStore.put(content.duplicate(), image.extension());
+                name = artifact.hash() + "." + image.extension();
+                file = artifact.path().toFile();
+            } else if (writeToDisk) {
+                file = new ScreenShot().saveScreenShot(content.duplicate(), name);
+            }
+            // stored artifacts are linked from the report, only screenshots outside the store are embedded
+            byte[] bytes = ArtifactStore.isEnabled() ? null : image.bytes() != null ? image.bytes() : png.toBytes();
+            return new StepScreenshot(name, bytes, image.mediaType(), file, decoded == null ? null : decoded.hash(),
+                    decoded == null ? null : decoded.pixelDigest(), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Waits for the screenshot within the hook wait budget.
+     *
+     * @param future queued screenshot
+     * @return processed screenshot, or null if it is not ready within the budget
+     */
+    public static StepScreenshot await(CompletableFuture<StepScreenshot> future) {
+        return await(future, waitBudgetMs);
+    }
+
+    /**
+     * Waits for the screenshot until the flush timeout, used before the scenario finishes.
+     *
+     * @param future queued screenshot
+     * @return processed screenshot, or null if it failed or timed out
+     */
+    public static StepScreenshot flush(CompletableFuture<StepScreenshot> future) {
+        return await(future, flushTimeoutMs);
+    }
+
+    private static StepScreenshot await(CompletableFuture<StepScreenshot> future, long timeoutMs) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.error("Error processing screenshot.\n {}", e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Remembers the GC count at the first screenshot, so the summary can report GCs per screenshot.
+     */
+    private static void recordAllocationBaseline() {
+        submitted.increment();
+        if (gcBaseline < 0) {
+            synchronized (ScreenshotPipeline.class) {
+                if (gcBaseline < 0) {
+                    gcBaseline = gcCount();
+                }
+            }
+        }
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * @return allocations of the step screenshots so far, null if the JVM does not count allocations per thread
+     */
+    public static Allocations allocations() {
+        return allocationCounter == null ? null
+                : new Allocations(captures.sum(), captureAllocatedBytes.sum(), submitted.sum(), pipelineAllocatedBytes.sum());
+    }
+
+    /**
+     * Records the time the scenario thread spent on the step screenshot.
+     *
+     * @param nanos overhead in nanoseconds
+     */
+    public static void recordStepOverhead(long nanos) {
+        steps.increment();
+        stepOverheadNanos.add(nanos);
+    }
+
+    /**
+     * Logs the mean per-step screenshot overhead of the run, run once with and once without
+     * 'ScreenshotPipeline' to compare the synchronous and asynchronous paths.
+     */
+    public static void logSummary() {
+        long count = steps.sum();
+        if (count == 0) {
+            return;
+        }
+        log.info("Step screenshots ({} mode): {} steps, mean scenario thread overhead {} ms",
+                enabled ? "async" : "sync", count, String.format("%.1f", stepOverheadNanos.sum() / 1e6 / count));
+        long screenshots = submitted.sum();
+        if (screenshots > 0 && gcBaseline >= 0) {
+            Allocations allocations = allocations();
+            log.info("Screenshot memory ({} buffers): {} screenshots, {} GCs per 100 screenshots, "
+                            + "{} MB allocated per capture on the scenario thread, {} MB per screenshot on the pipeline threads",
+                    ScreenshotBufferPool.isEnabled() ? "pooled direct" : "heap", screenshots,
+                    String.format("%.1f", (gcCount() - gcBaseline) * 100.0 / screenshots),
+                    allocations == null ? "n/a" : String.format("%.2f", allocations.captureMbPerScreenshot()),
+                    allocations == null ? "n/a" : String.format("%.2f", allocations.pipelineMbPerScreenshot()));
+        }
+        if (duplicates.sum() > 0) {
+            log.info("Screenshot de-duplication: {} unchanged screens referenced, {} bytes skipped",
+                    duplicates.sum(), skippedBytes.sum());
+        }
+    }
+}
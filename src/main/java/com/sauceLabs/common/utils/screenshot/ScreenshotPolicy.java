@@ -0,0 +1,53 @@
+package com.sauceLabs.common.utils.screenshot;
+
+/**
+ * when step screenshots are taken and attached, read from the 'ScreenshotPolicy' system property:
+ * 'every-step' (default) attaches a screenshot after every UI step,
+ * 'on-failure' attaches a single screenshot of the failed step,
+ * 'ring-buffer-N' keeps the last N step screenshots in memory and attaches them only if the scenario fails
+ *
+ * @param mode       screenshot mode
+ * @param bufferSize number of kept screenshots in ring buffer mode
+ * @author MahmoudOsama
+ */
+public record ScreenshotPolicy(Mode mode, int bufferSize) {
+    private static final String ringBufferPrefix = "ring-buffer-";
+
+    public enum Mode {
+        EVERY_STEP,
+        ON_FAILURE,
+        RING_BUFFER
+    }
+
+    public static ScreenshotPolicy fromProperty() {
+        return parse(System.getProperty("ScreenshotPolicy", "every-step"));
+    }
+
+    /**
+     * Parses a policy setting.
+     *
+     * @param value 'every-step', 'on-failure' or 'ring-buffer-N'
+     * @return parsed policy
+     * @throws IllegalArgumentException if the value is not a known policy
+     */
+    public static ScreenshotPolicy parse(String value) {
+        String policy = value.trim().toLowerCase();
+        if (policy.equals("every-step")) {
+            return new ScreenshotPolicy(Mode.EVERY_STEP, 0);
+        }
+        if (policy.equals("on-failure")) {
+            return new ScreenshotPolicy(Mode.ON_FAILURE, 0);
+        }
+        if (policy.startsWith(ringBufferPrefix)) {
+            try {
+                int size = Integer.parseInt(policy.substring(ringBufferPrefix.length()));
+                if (size > 0) {
+                    return new ScreenshotPolicy(Mode.RING_BUFFER, size);
+                }
+            } catch (NumberFormatException ignored) {
+                // reported below
+            }
+        }
+        throw new IllegalArgumentException("Unknown screenshot policy '" + value + "', expected every-step, on-failure or ring-buffer-N");
+    }
+}
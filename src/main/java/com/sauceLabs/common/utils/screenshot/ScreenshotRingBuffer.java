@@ -0,0 +1,87 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * per scenario ring buffer of the last N step screenshots kept in memory,
+ * all buffers share a global byte cap ('ScreenshotPolicy.MaxBytes', default 256 MB) so parallel scenarios stay bounded,
+ * when the cap is reached the oldest screenshots of the scenario are evicted first
+ *
+ * @author MahmoudOsama
+ */
+public class ScreenshotRingBuffer {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final long maxTotalBytes = Long.getLong("ScreenshotPolicy.MaxBytes", 256L * 1024 * 1024);
+    private static final AtomicLong totalBytes = new AtomicLong();
+    private final int capacity;
+    private final ArrayDeque<BufferedScreenshot> screenshots = new ArrayDeque<>();
+
+    /**
+     * screenshot kept in the buffer
+     *
+     * @param fileName file name without extension
+     * @param png      captured png bytes
+     */
+    public record BufferedScreenshot(String fileName, byte[] png) {
+    }
+
+    public ScreenshotRingBuffer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds a screenshot, evicting the oldest ones when the buffer is full or the global byte cap is reached.
+     *
+     * @param fileName file name without extension
+     * @param png      captured png bytes
+     * @return false if the screenshot was dropped because it does not fit in the global byte cap
+     */
+    public synchronized boolean add(String fileName, byte[] png) {
+        while (screenshots.size() >= capacity) {
+            evictOldest();
+        }
+        while (!reserve(png.length)) {
+            if (screenshots.isEmpty()) {
+                log.warn("Screenshot {} dropped, screenshot buffers reached the {} bytes cap", fileName, maxTotalBytes);
+                return false;
+            }
+            evictOldest();
+        }
+        screenshots.addLast(new BufferedScreenshot(fileName, png));
+        return true;
+    }
+
+    /**
+     * Removes and returns all buffered screenshots in capture order, releasing their bytes from the global cap.
+     *
+     * @return buffered screenshots, oldest first
+     */
+    public synchronized List<BufferedScreenshot> drain() {
+        List<BufferedScreenshot> drained = new ArrayList<>(screenshots);
+        while (!screenshots.isEmpty()) {
+            evictOldest();
+        }
+        return drained;
+    }
+
+    private void evictOldest() {
+        totalBytes.addAndGet(-screenshots.removeFirst().png().length);
+    }
+
+    private static boolean reserve(long bytes) {
+        long current;
+        do {
+            current = totalBytes.get();
+            if (current + bytes > maxTotalBytes) {
+                return false;
+            }
+        } while (!totalBytes.compareAndSet(current, current + bytes));
+        return true;
+    }
+}
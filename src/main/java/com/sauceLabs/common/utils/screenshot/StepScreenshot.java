@@ -0,0 +1,23 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import java.io.File;
+
+/**
+ * processed step screenshot ready to be attached to the scenario
+ *
+ * @param name        screenshot name used in the report
+ * @param bytes       encoded image bytes, null for a duplicate and for a screenshot kept in the artifact store
+ * @param mediaType   media type of the encoded bytes
+ * @param file        written screenshot file, null if it was not written to disk
+ * @param hash        perceptual hash of the screen, null if de-duplication is disabled
+ * @param pixelDigest digest of the screen pixels confirming a perceptual hash match, null if de-duplication is disabled
+ * @param duplicateOf earlier screenshot showing the same screen, null if this screenshot is new
+ * @author MahmoudOsama
+ */
+public record StepScreenshot(String name, byte[] bytes, String mediaType, File file, long[] hash, byte[] pixelDigest,
+                             StepScreenshot duplicateOf) {
+
+    public boolean isDuplicate() {
+        return duplicateOf != null;
+    }
+}
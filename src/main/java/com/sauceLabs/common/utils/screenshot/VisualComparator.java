@@ -0,0 +1,403 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * visual regression comparison of pages and elements against stored baselines,
+ * the images are compared as int pixel arrays in tiles on all cores, ignore regions are skipped,
+ * channel differences up to the color tolerance and anti-aliased edges are accepted,
+ * no differing pixel is allowed by default, the comparison stops early once the allowed number is exceeded,
+ * a missing baseline is created from the capture, 'VisualBaseline.Update=true' overwrites existing baselines
+ *
+ * @author MahmoudOsama
+ */
+public class VisualComparator {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final int tileSize = 128;
+    private final Path baselineDirectory = Paths.get(System.getProperty("VisualBaseline.Directory", "src/test/resources/visualBaselines"));
+    private final Path diffDirectory = Paths.get(System.getProperty("VisualBaseline.DiffDirectory", "target/cucumber/visual-diffs"));
+    private final boolean updateBaselines = Boolean.parseBoolean(System.getProperty("VisualBaseline.Update", "false"));
+    private final List<Rectangle> ignoreRegions = new ArrayList<>();
+    private int colorTolerance = 16;
+    private boolean antiAliasingTolerance = true;
+    private double maxDiffRatio = 0;
+    private long maxDiffPixels = 0;
+    private boolean writeDiffImage = true;
+
+    /**
+     * Ignores the region in all following comparisons, e.g. a clock or a carousel.
+     *
+     * @param region region in image pixels
+     * @return this comparator
+     */
+    public VisualComparator ignore(Rectangle region) {
+        ignoreRegions.add(region);
+        return this;
+    }
+
+    /**
+     * Ignores the area of the element in all following page comparisons,
+     * the element rect is in css pixels so this matches the capture only for a device pixel ratio of 1.
+     *
+     * @param element element to ignore
+     * @return this comparator
+     */
+    public VisualComparator ignore(WebElement element) {
+        org.openqa.selenium.Rectangle rect = element.getRect();
+        return ignore(new Rectangle(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
+    }
+
+    /**
+     * @param colorTolerance max accepted difference per color channel (0-255)
+     * @return this comparator
+     */
+    public VisualComparator colorTolerance(int colorTolerance) {
+        this.colorTolerance = colorTolerance;
+        return this;
+    }
+
+    /**
+     * @param antiAliasingTolerance true to accept differing pixels which sit on an anti-aliased edge of either image
+     * @return this comparator
+     */
+    public VisualComparator antiAliasingTolerance(boolean antiAliasingTolerance) {
+        this.antiAliasingTolerance = antiAliasingTolerance;
+        return this;
+    }
+
+    /**
+     * @param maxDiffRatio allowed ratio of differing pixels before the comparison fails, the larger of both limits applies
+     * @return this comparator
+     */
+    public VisualComparator maxDiffRatio(double maxDiffRatio) {
+        this.maxDiffRatio = maxDiffRatio;
+        return this;
+    }
+
+    /**
+     * @param maxDiffPixels allowed number of differing pixels before the comparison fails, the larger of both limits applies
+     * @return this comparator
+     */
+    public VisualComparator maxDiffPixels(long maxDiffPixels) {
+        this.maxDiffPixels = maxDiffPixels;
+        return this;
+    }
+
+    /**
+     * @param writeDiffImage false to skip writing the diff image of mismatches
+     * @return this comparator
+     */
+    public VisualComparator writeDiffImage(boolean writeDiffImage) {
+        this.writeDiffImage = writeDiffImage;
+        return this;
+    }
+
+    /**
+     * Captures the viewport and asserts it matches the named baseline.
+     *
+     * @param driver WebDriver object
+     * @param name   baseline name
+     * @return comparison result
+     */
+    public VisualDiffResult assertMatchesBaseline(WebDriver driver, String name) {
+        return assertMatchesBaseline(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES), name);
+    }
+
+    /**
+     * Captures the element and asserts it matches the named baseline.
+     *
+     * @param element WebElement to capture
+     * @param name    baseline name
+     * @return comparison result
+     */
+    public VisualDiffResult assertMatchesBaseline(WebElement element, String name) {
+        return assertMatchesBaseline(element.getScreenshotAs(OutputType.BYTES), name);
+    }
+
+    /**
+     * Compares captured png bytes with the named baseline and fails the test on a mismatch,
+     * the baseline is created when it does not exist yet.
+     *
+     * @param png  captured png bytes
+     * @param name baseline name
+     * @return comparison result, an empty match when the baseline was created
+     */
+    public VisualDiffResult assertMatchesBaseline(byte[] png, String name) {
+        Path baseline = baselineDirectory.resolve(name + ".png");
+        VisualDiffResult result = null;
+        try {
+            if (updateBaselines || !Files.exists(baseline)) {
+                Files.createDirectories(baselineDirectory);
+                Files.write(baseline, png);
+                log.info("Visual baseline '{}' {}", name, updateBaselines ? "updated" : "created");
+                return new VisualDiffResult(0, 0, 0, 0, 0, false, null);
+            }
+            BufferedImage expected = ImageIO.read(baseline.toFile());
+            BufferedImage actual = ScreenshotEncoder.decode(png);
+            if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+                log.error("Visual baseline '{}' is {}x{} but the capture is {}x{}", name, expected.getWidth(), expected.getHeight(),
+                        actual.getWidth(), actual.getHeight());
+                Assertions.fail("Screen size " + actual.getWidth() + "x" + actual.getHeight() + " does not match visual baseline '"
+                        + name + "' size " + expected.getWidth() + "x" + expected.getHeight());
+            }
+            result = compare(expected, actual, name);
+        } catch (IOException e) {
+            log.error("Visual comparison with baseline '{}' failed: {}", name, e.getMessage());
+            Assertions.fail("Visual comparison with baseline '" + name + "' failed. Exception: " + e.getMessage());
+        }
+        if (!result.isMatch()) {
+            log.error("Visual baseline '{}' mismatch: {} differing pixels, diff image: {}", name, result.diffPixels(), result.diffImage());
+            Assertions.fail("Screen does not match visual baseline '" + name + "': " + result.diffPixels()
+                    + " differing pixels (allowed " + result.maxDiffPixels() + "), diff image: " + result.diffImage());
+        }
+        return result;
+    }
+
+    /**
+     * Compares two images tile by tile on all cores, a diff image is written when they do not match.
+     *
+     * @param expected baseline image
+     * @param actual   captured image
+     * @param name     name used for the diff image
+     * @return comparison result
+     */
+    public VisualDiffResult compare(BufferedImage expected, BufferedImage actual, String name) throws IOException {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        long maxDiffPixels = Math.max(this.maxDiffPixels, (long) Math.floor(maxDiffRatio * width * height));
+        if (width != actual.getWidth() || height != actual.getHeight()) {
+            log.warn("Visual baseline '{}' is {}x{} but the capture is {}x{}", name, width, height, actual.getWidth(), actual.getHeight());
+            return new VisualDiffResult(width, height, (long) width * height, 0, maxDiffPixels, true, null);
+        }
+        long start = System.nanoTime();
+        int[] expectedPixels = pixels(expected);
+        int[] actualPixels = pixels(actual);
+        int[] diffPixels = new int[width * height];
+        DiffCounter counter = new DiffCounter(maxDiffPixels);
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (height + tileSize - 1) / tileSize;
+        IntStream.range(0, tilesX * tilesY).parallel().forEach(tile -> compareTile(expectedPixels, actualPixels, diffPixels,
+                width, height, (tile % tilesX) * tileSize, (tile / tilesX) * tileSize, counter));
+        long kernelMs = (System.nanoTime() - start) / 1_000_000;
+        Path diffImage = null;
+        if (writeDiffImage && counter.diffs.sum() > maxDiffPixels) {
+            BufferedImage diff = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            diff.setRGB(0, 0, width, height, diffPixels, 0, width);
+            Files.createDirectories(diffDirectory);
+            diffImage = diffDirectory.resolve(name + "-diff.png");
+            ImageIO.write(diff, "png", diffImage.toFile());
+        }
+        VisualDiffResult result = new VisualDiffResult(width, height, counter.diffs.sum(), counter.antiAliased.sum(),
+                maxDiffPixels, counter.exceeded.get(), diffImage);
+        log.info("Visual comparison '{}' of {}x{} took {} ms: {} differing, {} anti-aliased pixels{}", name, width, height,
+                kernelMs, result.diffPixels(), result.antiAliasedPixels(),
+                result.exitedEarly() ? " (stopped early)" : "");
+        return result;
+    }
+
+    /**
+     * Returns the int RGB pixels of the image, int images are read in place and other types are converted with one blit,
+     * which is much faster than getRGB with its per pixel color model conversion.
+     */
+    private static int[] pixels(BufferedImage image) {
+        BufferedImage rgb = image;
+        if (image.getType() != BufferedImage.TYPE_INT_RGB && image.getType() != BufferedImage.TYPE_INT_ARGB) {
+            rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = rgb.createGraphics();
+            g2d.drawImage(image, 0, 0, null);
+            g2d.dispose();
+        }
+        return ((DataBufferInt) rgb.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * counters shared by the tiles, the exceeded flag lets other tiles stop early
+     */
+    private static class DiffCounter {
+        final long maxDiffPixels;
+        final LongAdder diffs = new LongAdder();
+        final LongAdder antiAliased = new LongAdder();
+        final AtomicBoolean exceeded = new AtomicBoolean();
+
+        DiffCounter(long maxDiffPixels) {
+            this.maxDiffPixels = maxDiffPixels;
+        }
+    }
+
+    private void compareTile(int[] expected, int[] actual, int[] diff, int width, int height, int tileX, int tileY, DiffCounter counter) {
+        int endX = Math.min(tileX + tileSize, width);
+        int endY = Math.min(tileY + tileSize, height);
+        Rectangle tile = new Rectangle(tileX, tileY, endX - tileX, endY - tileY);
+        List<Rectangle> tileIgnores = new ArrayList<>();
+        for (Rectangle region : ignoreRegions) {
+            if (region.contains(tile)) {
+                fillFaded(expected, diff, width, tileX, tileY, endX, endY);
+                return;
+            }
+            if (region.intersects(tile)) {
+                tileIgnores.add(region);
+            }
+        }
+        for (int y = tileY; y < endY; y++) {
+            if (counter.exceeded.get()) {
+                return;
+            }
+            int rowDiffs = 0;
+            int rowAntiAliased = 0;
+            int row = y * width;
+            for (int x = tileX; x < endX; x++) {
+                int i = row + x;
+                int expectedPixel = expected[i];
+                int actualPixel = actual[i];
+                if (expectedPixel == actualPixel || isIgnored(tileIgnores, x, y)
+                        || channelDistance(expectedPixel, actualPixel) <= colorTolerance) {
+                    diff[i] = faded(expectedPixel);
+                } else if (antiAliasingTolerance && isAntiAliased(expected, actual, width, height, x, y)) {
+                    diff[i] = 0xFFFF00;
+                    rowAntiAliased++;
+                } else {
+                    diff[i] = 0xFF0000;
+                    rowDiffs++;
+                }
+            }
+            if (rowAntiAliased > 0) {
+                counter.antiAliased.add(rowAntiAliased);
+            }
+            if (rowDiffs > 0) {
+                counter.diffs.add(rowDiffs);
+                if (counter.diffs.sum() > counter.maxDiffPixels) {
+                    counter.exceeded.set(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * A differing pixel is treated as anti-aliasing the way pixelmatch does it: in one of the images the pixel lies on an edge,
+     * it has at most two neighbours of the same brightness and both darker and brighter neighbours,
+     * and its darkest or its brightest neighbour has at least three identical siblings in both images,
+     * so it sits next to a flat area and is not a changed detail of its own.
+     */
+    private static boolean isAntiAliased(int[] expected, int[] actual, int width, int height, int x, int y) {
+        return isEdgePixel(expected, actual, width, height, x, y) || isEdgePixel(actual, expected, width, height, x, y);
+    }
+
+    private static boolean isEdgePixel(int[] image, int[] other, int width, int height, int x, int y) {
+        int x0 = Math.max(x - 1, 0);
+        int y0 = Math.max(y - 1, 0);
+        int x2 = Math.min(x + 1, width - 1);
+        int y2 = Math.min(y + 1, height - 1);
+        int brightness = brightness(image[y * width + x]);
+        // pixels on the image border count one missing neighbour as equal
+        int equal = x == x0 || x == x2 || y == y0 || y == y2 ? 1 : 0;
+        int min = 0;
+        int max = 0;
+        int minX = 0, minY = 0, maxX = 0, maxY = 0;
+        for (int ny = y0; ny <= y2; ny++) {
+            for (int nx = x0; nx <= x2; nx++) {
+                if (nx == x && ny == y) {
+                    continue;
+                }
+                int delta = brightness(image[ny * width + nx]) - brightness;
+                if (delta == 0) {
+                    if (++equal > 2) {
+                        return false;
+                    }
+                } else if (delta < min) {
+                    min = delta;
+                    minX = nx;
+                    minY = ny;
+                } else if (delta > max) {
+                    max = delta;
+                    maxX = nx;
+                    maxY = ny;
+                }
+            }
+        }
+        if (min == 0 || max == 0) {
+            return false;
+        }
+        return (hasManySiblings(image, width, height, minX, minY) && hasManySiblings(other, width, height, minX, minY))
+                || (hasManySiblings(image, width, height, maxX, maxY) && hasManySiblings(other, width, height, maxX, maxY));
+    }
+
+    /**
+     * @return true if at least three neighbours of the pixel have exactly its color
+     */
+    private static boolean hasManySiblings(int[] image, int width, int height, int x, int y) {
+        int x0 = Math.max(x - 1, 0);
+        int y0 = Math.max(y - 1, 0);
+        int x2 = Math.min(x + 1, width - 1);
+        int y2 = Math.min(y + 1, height - 1);
+        int pixel = image[y * width + x] & 0xFFFFFF;
+        int equal = x == x0 || x == x2 || y == y0 || y == y2 ? 1 : 0;
+        for (int ny = y0; ny <= y2; ny++) {
+            for (int nx = x0; nx <= x2; nx++) {
+                if ((nx != x || ny != y) && (image[ny * width + nx] & 0xFFFFFF) == pixel && ++equal > 2) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return YIQ luma of the pixel scaled by 1000
+     */
+    private static int brightness(int pixel) {
+        return ((pixel >> 16) & 0xff) * 299 + ((pixel >> 8) & 0xff) * 587 + (pixel & 0xff) * 114;
+    }
+
+    private static boolean isIgnored(List<Rectangle> regions, int x, int y) {
+        for (int r = 0; r < regions.size(); r++) {
+            if (regions.get(r).contains(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int channelDistance(int first, int second) {
+        int red = Math.abs(((first >> 16) & 0xff) - ((second >> 16) & 0xff));
+        int green = Math.abs(((first >> 8) & 0xff) - ((second >> 8) & 0xff));
+        int blue = Math.abs((first & 0xff) - (second & 0xff));
+        return Math.max(red, Math.max(green, blue));
+    }
+
+    private static void fillFaded(int[] expected, int[] diff, int width, int tileX, int tileY, int endX, int endY) {
+        for (int y = tileY; y < endY; y++) {
+            for (int x = tileX; x < endX; x++) {
+                diff[y * width + x] = faded(expected[y * width + x]);
+            }
+        }
+    }
+
+    /**
+     * unchanged pixels are drawn as light grayscale so the red differences stand out
+     */
+    private static int faded(int pixel) {
+        int gray = (((pixel >> 16) & 0xff) * 299 + ((pixel >> 8) & 0xff) * 587 + (pixel & 0xff) * 114) / 1000;
+        int light = 255 - (255 - gray) / 4;
+        return (light << 16) | (light << 8) | light;
+    }
+}
@@ -0,0 +1,27 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import java.nio.file.Path;
+
+/**
+ * result of a visual comparison against a baseline
+ *
+ * @param width            compared width in pixels
+ * @param height           compared height in pixels
+ * @param diffPixels       number of differing pixels found, a lower bound when the comparison exited early
+ * @param antiAliasedPixels number of differing pixels accepted as anti-aliasing
+ * @param maxDiffPixels    allowed number of differing pixels
+ * @param exitedEarly      true if the comparison stopped once the threshold was exceeded
+ * @param diffImage        written diff image, null if none was written
+ * @author MahmoudOsama
+ */
+public record VisualDiffResult(int width, int height, long diffPixels, long antiAliasedPixels, long maxDiffPixels,
+                               boolean exitedEarly, Path diffImage) {
+
+    public boolean isMatch() {
+        return diffPixels <= maxDiffPixels;
+    }
+
+    public double diffRatio() {
+        return width * (double) height == 0 ? 0 : diffPixels / (width * (double) height);
+    }
+}
@@ -0,0 +1,75 @@
+package com.sauceLabs.common.utils.timer;
+
+import java.util.Arrays;
+
+/**
+ * single thread latency histogram with the bucket layout of LatencyRecorder, for tables owned by one thread
+ * such as the per step command latencies of a scenario, it keeps plain counters and an int bucket array
+ * which only grows up to the slowest recorded value, not thread safe
+ *
+ * @author MahmoudOsama
+ */
+public final class LatencyHistogram {
+    private final String name;
+    private int[] counts = new int[0];
+    private long count;
+    private long totalNanos;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int bucket = LatencyRecorder.bucket(value);
+        if (bucket >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(bucket + 1, counts.length * 2));
+        }
+        counts[bucket]++;
+        count++;
+        totalNanos += value;
+        minNanos = Math.min(minNanos, value);
+        maxNanos = Math.max(maxNanos, value);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return stats of everything recorded so far, percentiles are within the bucket error of LatencyRecorder
+     */
+    public LatencyRecorder.Stats stats() {
+        if (count == 0) {
+            return new LatencyRecorder.Stats(name, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return new LatencyRecorder.Stats(name, count, minNanos, maxNanos, (double) totalNanos / count,
+                percentile(50), percentile(90), percentile(99), percentile(99.9));
+    }
+
+    /**
+     * @return upper bound of the bucket holding the percentile, kept between the recorded min and max
+     */
+    private long percentile(double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(minNanos, Math.min(maxNanos, LatencyRecorder.upperBound(i)));
+            }
+        }
+        return maxNanos;
+    }
+}
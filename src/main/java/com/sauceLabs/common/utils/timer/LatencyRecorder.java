@@ -0,0 +1,188 @@
+package com.sauceLabs.common.utils.timer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * named latency histogram which many threads record into without locking, every thread writes its own
+ * log-linear bucket array, each power of two of nanoseconds is split in 32 sub buckets so percentiles are
+ * within about 3% of the recorded values up to 2.4 hours, the thread arrays are merged when the stats are read,
+ * recording does not allocate once the thread has recorded its first value, get one with MyTimer.recorder
+ *
+ * @author MahmoudOsama
+ */
+public final class LatencyRecorder {
+    private static final int subBucketBits = 5;
+    private static final int subBuckets = 1 << subBucketBits;
+    private static final int maxExponent = 43;
+    private static final int bucketCount = (maxExponent - subBucketBits + 2) * subBuckets;
+    // slots after the buckets: sum, min and max of the thread
+    private static final int sumSlot = bucketCount;
+    private static final int minSlot = bucketCount + 1;
+    private static final int maxSlot = bucketCount + 2;
+    private static final int maxScopeDepth = 16;
+
+    private final String name;
+    private final List<ThreadHistogram> histograms = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<ThreadHistogram> local = ThreadLocal.withInitial(this::register);
+
+    /**
+     * count, min, max, mean and percentiles of a recorder, in nanoseconds
+     */
+    public record Stats(String name, long count, long minNanos, long maxNanos, double meanNanos,
+                        long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos) {
+    }
+
+    /**
+     * times the code of a try-with-resources block, the scope objects are reused per thread
+     * so it must be closed on the thread which opened it
+     */
+    public static final class Scope implements AutoCloseable {
+        private final ThreadHistogram histogram;
+        private long start;
+
+        private Scope(ThreadHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public void close() {
+            histogram.record(System.nanoTime() - start);
+            histogram.depth--;
+        }
+    }
+
+    /**
+     * buckets written only by their own thread, with release stores so the merging thread never sees torn values,
+     * plain reads and release writes are enough as there is a single writer and no compare and set is needed
+     */
+    private static final class ThreadHistogram {
+        final AtomicLongArray counts = new AtomicLongArray(bucketCount + 3);
+        final Scope[] scopes = new Scope[maxScopeDepth];
+        int depth;
+
+        ThreadHistogram() {
+            counts.set(minSlot, Long.MAX_VALUE);
+            for (int i = 0; i < maxScopeDepth; i++) {
+                scopes[i] = new Scope(this);
+            }
+        }
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            int bucket = bucket(value);
+            counts.setRelease(bucket, counts.getPlain(bucket) + 1);
+            counts.setRelease(sumSlot, counts.getPlain(sumSlot) + value);
+            if (value < counts.getPlain(minSlot)) {
+                counts.setRelease(minSlot, value);
+            }
+            if (value > counts.getPlain(maxSlot)) {
+                counts.setRelease(maxSlot, value);
+            }
+        }
+    }
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    private ThreadHistogram register() {
+        ThreadHistogram histogram = new ThreadHistogram();
+        histograms.add(histogram);
+        return histogram;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Records one duration on the current thread.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        local.get().record(nanos);
+    }
+
+    /**
+     * Starts timing a try-with-resources block, the duration is recorded when the scope closes, also when it throws.
+     *
+     * @return started scope of the current thread
+     */
+    public Scope time() {
+        ThreadHistogram histogram = local.get();
+        if (histogram.depth == maxScopeDepth) {
+            throw new IllegalStateException("More than " + maxScopeDepth + " nested timing scopes on " + name);
+        }
+        Scope scope = histogram.scopes[histogram.depth++];
+        scope.start = System.nanoTime();
+        return scope;
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < subBuckets) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > maxExponent) {
+            return bucketCount - 1;
+        }
+        int sub = (int) (nanos >>> (exponent - subBucketBits)) & (subBuckets - 1);
+        return (exponent - subBucketBits + 1) * subBuckets + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int exponent = bucket / subBuckets + subBucketBits - 1;
+        int shift = exponent - subBucketBits;
+        return ((long) (subBuckets + bucket % subBuckets) << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * Merges the buckets of every thread, values recorded while merging may be left out.
+     *
+     * @return stats of everything recorded so far
+     */
+    public Stats stats() {
+        long[] merged = new long[bucketCount];
+        long count = 0;
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (ThreadHistogram histogram : histograms) {
+            AtomicLongArray counts = histogram.counts;
+            for (int i = 0; i < bucketCount; i++) {
+                long value = counts.getAcquire(i);
+                merged[i] += value;
+                count += value;
+            }
+            sum += counts.getAcquire(sumSlot);
+            min = Math.min(min, counts.getAcquire(minSlot));
+            max = Math.max(max, counts.getAcquire(maxSlot));
+        }
+        if (count == 0) {
+            return new Stats(name, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return new Stats(name, count, min, max, (double) sum / count, percentile(merged, count, 50, min, max),
+                percentile(merged, count, 90, min, max), percentile(merged, count, 99, min, max), percentile(merged, count, 99.9, min, max));
+    }
+
+    /**
+     * @return upper bound of the bucket holding the percentile, kept between the recorded min and max
+     */
+    private static long percentile(long[] buckets, long count, double percentile, long min, long max) {
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, upperBound(i)));
+            }
+        }
+        return max;
+    }
+}
@@ -1,22 +1,29 @@
 package com.sauceLabs.common.utils.timer;
 
+import com.sauceLabs.common.utils.files.FileUtil;
 import com.sauceLabs.common.utils.logs.MyLogger;
 import org.apache.logging.log4j.core.Logger;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
- * implementation for a timer
+ * implementation for a timer, a single start/stop timer per instance and named latency recorders shared by all threads,
+ * the recorders are written with their percentiles to 'Timers.Report' (default 'target/cucumber/timers.txt') when the run ends
  *
  * @author Mahmoud Osama
  */
 public class MyTimer {
-    private volatile Long start;
-    private volatile Long stopWatch;
+    private long start;
+    private boolean started;
     public static Logger log = new MyLogger().getLogger();
+    private static final String reportPath = System.getProperty("Timers.Report", "target/cucumber/timers.txt");
+    private static final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
 
     /**
      * Starts a timer by capturing the current system time in nanoseconds and logs the event.
@@ -30,7 +37,8 @@ public class MyTimer {
      */
     public void startTimer() {
         start = System.nanoTime();
-        log.info("Timer started at: {} nanoseconds", start);
+        started = true;
+        log.debug("Timer started at: {} nanoseconds", start);
     }
 
 
@@ -41,7 +49,7 @@ public class MyTimer {
      * the start time from the current time (`System.nanoTime()`). The elapsed time is then converted
      * to the specified `TimeUnit` (MILLISECONDS, SECONDS, or HOURS).
      *
-     * Logs the timer value in the desired unit, and throws an exception if the timer has not been started.
+     * Logs the timer value in the desired unit at debug level, and throws an exception if the timer has not been started.
      *
      * @param timeUnit The time unit to which the elapsed time should be converted (MILLISECONDS, SECONDS, HOURS).
      * @return The elapsed time in the specified time unit.
@@ -49,29 +57,27 @@ public class MyTimer {
      * @throws IllegalArgumentException If an unsupported time unit is provided.
      */
     public Long getTimer(TimeUnit timeUnit) {
-        if (start == null) {
+        if (!started) {
             log.error("Attempted to get timer value before starting the timer.");
             throw new IllegalStateException("Timer has not been started.");
         }
         long elapsedTime = System.nanoTime() - start;
-        log.info("Elapsed time in nanoseconds: {}", elapsedTime);
+        long stopWatch;
         switch (timeUnit) {
             case MILLISECONDS:
                 stopWatch = TimeUnit.MILLISECONDS.convert(elapsedTime, TimeUnit.NANOSECONDS);
-                log.info("Elapsed time in milliseconds: {}", stopWatch);
                 break;
             case SECONDS:
                 stopWatch = TimeUnit.SECONDS.convert(elapsedTime, TimeUnit.NANOSECONDS);
-                log.info("Elapsed time in seconds: {}", stopWatch);
                 break;
             case HOURS:
                 stopWatch = TimeUnit.HOURS.convert(elapsedTime, TimeUnit.NANOSECONDS);
-                log.info("Elapsed time in hours: {}", stopWatch);
                 break;
             default:
                 log.error("Unsupported time unit: {}", timeUnit);
                 throw new IllegalArgumentException("Unsupported time unit: " + timeUnit);
         }
+        log.debug("Elapsed time: {} {}", stopWatch, timeUnit);
         return stopWatch;
     }
 
@@ -91,7 +97,7 @@ public class MyTimer {
         LocalDateTime now = LocalDateTime.now();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yy_MM_dd_HH_mm_ss");
         String formattedTime = now.format(formatter);
-        log.info("Current time formatted as: {}", formattedTime);
+        log.debug("Current time formatted as: {}", formattedTime);
         return formattedTime;
     }
 
@@ -107,4 +113,55 @@ public class MyTimer {
         return formattedDate;
     }
 
+    /**
+     * Returns the latency recorder of the given name, created on first use,
+     * keep it in a static field on hot paths to skip the name lookup.
+     *
+     * @param name recorder name, e.g. 'wait' or 'screenshot.viewport'
+     * @return the recorder shared by all threads
+     */
+    public static LatencyRecorder recorder(String name) {
+        return recorders.computeIfAbsent(name, LatencyRecorder::new);
+    }
+
+    /**
+     * Retrieves count, min, max, mean and p50/p90/p99/p99.9 of a recorder, merged over all threads.
+     *
+     * @param name recorder name
+     * @return the stats, all zero if nothing was recorded under the name
+     */
+    public static LatencyRecorder.Stats stats(String name) {
+        LatencyRecorder recorder = recorders.get(name);
+        return recorder == null ? new LatencyRecorder.Stats(name, 0, 0, 0, 0, 0, 0, 0, 0) : recorder.stats();
+    }
+
+    /**
+     * Builds the report of all recorders in milliseconds, sorted by name.
+     *
+     * @return report text
+     */
+    public static String buildReport() {
+        StringBuilder report = new StringBuilder(String.format("%-8s %-10s %-10s %-10s %-10s %-10s %-10s %-10s %s%n",
+                "count", "min(ms)", "mean(ms)", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "timer"));
+        new TreeMap<>(recorders).forEach((name, recorder) -> {
+            LatencyRecorder.Stats stats = recorder.stats();
+            if (stats.count() > 0) {
+                report.append(String.format("%-8d %-10.1f %-10.1f %-10.1f %-10.1f %-10.1f %-10.1f %-10.1f %s%n", stats.count(),
+                        stats.minNanos() / 1e6, stats.meanNanos() / 1e6, stats.p50Nanos() / 1e6, stats.p90Nanos() / 1e6,
+                        stats.p99Nanos() / 1e6, stats.p999Nanos() / 1e6, stats.maxNanos() / 1e6, name));
+            }
+        });
+        return report.toString();
+    }
+
+    /**
+     * Writes the report to the configured path, does nothing if nothing was recorded.
+     */
+    public static void writeReport() {
+        if (recorders.values().stream().allMatch(recorder -> recorder.stats().count() == 0)) {
+            return;
+        }
+        FileUtil.writeReport(reportPath, buildReport(), "Timers of " + recorders.size() + " recorders");
+    }
+
 }
\ No newline at end of file
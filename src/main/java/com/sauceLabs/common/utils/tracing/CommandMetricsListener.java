@@ -0,0 +1,45 @@
+package com.sauceLabs.common.utils.tracing;
+
+import com.sauceLabs.common.utils.metrics.RunMetrics;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+
+/**
+ * records the duration of every WebDriver command of a decorated driver in the run metrics,
+ * grouped by command name, e.g. 'WebElement.click'
+ *
+ * @author MahmoudOsama
+ */
+public class CommandMetricsListener implements WebDriverListener {
+    private static final ThreadLocal<ArrayDeque<Long>> startTimes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        if (!CommandTracer.isLocal(method)) {
+            startTimes.get().push(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        finish(target, method);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        finish(target, method);
+    }
+
+    private void finish(Object target, Method method) {
+        if (CommandTracer.isLocal(method)) {
+            return;
+        }
+        Long start = startTimes.get().poll();
+        if (start != null) {
+            RunMetrics.commandFinished(CommandTracer.commandName(target, method), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.sauceLabs.common.utils.tracing;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import com.sauceLabs.common.utils.metrics.RunMetrics;
+import com.sauceLabs.common.utils.profiling.FlightRecording;
+import com.sauceLabs.common.utils.timer.LatencyHistogram;
+import com.sauceLabs.common.utils.timer.LatencyRecorder;
+import org.apache.logging.log4j.core.Logger;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * traces every WebDriver command through an EventFiringDecorator: name, locator, duration, payload size and outcome,
+ * latencies are aggregated in histograms per command type for every step and the whole scenario,
+ * each scenario is written as an OpenTelemetry (OTLP JSON) trace with scenario, step and command spans
+ * which can be loaded into a trace viewer, the time spent in the tracer itself is measured and reported,
+ * enabled with 'CommandTrace' system property
+ *
+ * @author MahmoudOsama
+ */
+public class CommandTracer implements WebDriverListener {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("CommandTrace", "false"));
+    private static final Path directory = Paths.get(System.getProperty("CommandTrace.Directory", "target/cucumber/command-traces"));
+    private static final int maxSpans = Integer.getInteger("CommandTrace.MaxSpans", 20000);
+    // calls which only return a local helper object and never reach the browser
+    private static final Set<String> localMethods = Set.of("manage", "navigate", "switchTo", "timeouts", "window", "logs",
+            "getWrappedDriver", "getWrappedElement", "getCoordinates", "toString", "hashCode", "equals");
+    private static final long epochOffsetNanos = System.currentTimeMillis() * 1_000_000 - System.nanoTime();
+    private static final ThreadLocal<ScenarioTrace> currentTrace = new ThreadLocal<>();
+    private static final Json json = new Json();
+
+    /**
+     * finished scenario trace
+     *
+     * @param file    written OTLP JSON trace, null if it could not be written
+     * @param summary histogram tables per scenario and step
+     */
+    public record TraceSummary(Path file, String summary) {
+    }
+
+    private record Span(String spanId, String parentSpanId, String name, long startNanos, long endNanos,
+                        Map<String, Object> attributes, String error) {
+    }
+
+    private static final class Step {
+        final int index;
+        final String spanId = spanId();
+        final long startNanos = System.nanoTime();
+        final Map<String, LatencyHistogram> histograms = new TreeMap<>();
+
+        Step(int index) {
+            this.index = index;
+        }
+    }
+
+    private static final class ScenarioTrace {
+        final String name;
+        final String traceId = HexFormat.of().formatHex(randomBytes(16));
+        final String spanId = spanId();
+        final long startNanos = System.nanoTime();
+        final List<Span> spans = new ArrayList<>();
+        final Map<String, LatencyHistogram> histograms = new TreeMap<>();
+        final List<Step> steps = new ArrayList<>();
+        final long[] openCalls = new long[16];
+        int depth;
+        Step step;
+        long commandNanos;
+        long overheadNanos;
+        int droppedSpans;
+
+        ScenarioTrace(String name) {
+            this.name = name;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Wraps the driver with the listeners of the enabled tracers: this tracer with 'CommandTrace',
+     * flight recorder command events with 'FlightRecording' or any running recorder and command latency metrics with 'Metrics',
+     * the driver is returned as is when none is enabled.
+     *
+     * @param driver WebDriver to trace
+     * @return decorated WebDriver
+     */
+    public static WebDriver decorate(WebDriver driver) {
+        List<WebDriverListener> listeners = new ArrayList<>();
+        if (enabled) {
+            listeners.add(new CommandTracer());
+        }
+        if (FlightRecording.isEnabled() || FlightRecording.isActive()) {
+            listeners.add(new DriverCommandListener());
+        }
+        if (RunMetrics.isEnabled()) {
+            listeners.add(new CommandMetricsListener());
+        }
+        if (listeners.isEmpty()) {
+            return driver;
+        }
+        return new EventFiringDecorator<>(listeners.toArray(new WebDriverListener[0])).decorate(driver);
+    }
+
+    /**
+     * Starts the trace of the scenario running in the current thread.
+     *
+     * @param name scenario name
+     */
+    public static void startScenario(String name) {
+        currentTrace.set(new ScenarioTrace(name));
+    }
+
+    /**
+     * Starts the next step span, commands until 'endStep' are counted for the step.
+     */
+    public static void startStep() {
+        ScenarioTrace trace = currentTrace.get();
+        if (trace != null) {
+            endStep();
+            trace.step = new Step(trace.steps.size() + 1);
+            trace.steps.add(trace.step);
+        }
+    }
+
+    /**
+     * Ends the current step span.
+     */
+    public static void endStep() {
+        ScenarioTrace trace = currentTrace.get();
+        if (trace != null && trace.step != null) {
+            Step step = trace.step;
+            trace.step = null;
+            long commands = step.histograms.values().stream().mapToLong(LatencyHistogram::count).sum();
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("cucumber.step.index", step.index);
+            attributes.put("selenium.commands", commands);
+            trace.spans.add(new Span(step.spanId, trace.spanId, "step " + step.index, step.startNanos, System.nanoTime(), attributes, null));
+        }
+    }
+
+    /**
+     * Ends the scenario trace of the current thread and writes it as OTLP JSON.
+     *
+     * @param failed   true if the scenario failed
+     * @param fileName file name of the trace without extension
+     * @return trace file and summary, null if the scenario was not traced
+     */
+    public static TraceSummary finishScenario(boolean failed, String fileName) {
+        endStep();
+        ScenarioTrace trace = currentTrace.get();
+        currentTrace.remove();
+        if (trace == null) {
+            return null;
+        }
+        long endNanos = System.nanoTime();
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("cucumber.scenario", trace.name);
+        attributes.put("selenium.command.nanos", trace.commandNanos);
+        attributes.put("tracer.overhead.nanos", trace.overheadNanos);
+        trace.spans.add(new Span(trace.spanId, null, trace.name, trace.startNanos, endNanos, attributes, failed ? "scenario failed" : null));
+        String summary = summary(trace, endNanos - trace.startNanos);
+        Path file = directory.resolve(fileName + ".otlp.json");
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(file, json.toJson(otlp(trace)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("Failed to write command trace: {}", e.getMessage());
+            file = null;
+        }
+        return new TraceSummary(file, summary);
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        long entry = System.nanoTime();
+        ScenarioTrace trace = currentTrace.get();
+        if (trace == null || isLocal(method)) {
+            return;
+        }
+        if (trace.depth < trace.openCalls.length) {
+            long start = System.nanoTime();
+            trace.openCalls[trace.depth] = start;
+            trace.overheadNanos += start - entry;
+        }
+        trace.depth++;
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        finishCall(target, method, args, result, null);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        finishCall(target, method, args, null, e.getTargetException());
+    }
+
+    private void finishCall(Object target, Method method, Object[] args, Object result, Throwable error) {
+        long end = System.nanoTime();
+        ScenarioTrace trace = currentTrace.get();
+        if (trace == null || isLocal(method) || trace.depth == 0) {
+            return;
+        }
+        trace.depth--;
+        if (trace.depth >= trace.openCalls.length) {
+            return;
+        }
+        long start = trace.openCalls[trace.depth];
+        long duration = end - start;
+        String name = commandName(target, method);
+        trace.commandNanos += duration;
+        trace.histograms.computeIfAbsent(name, LatencyHistogram::new).record(duration);
+        if (trace.step != null) {
+            trace.step.histograms.computeIfAbsent(name, LatencyHistogram::new).record(duration);
+        }
+        if (trace.spans.size() < maxSpans) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("selenium.command", method.getName());
+            if (args != null) {
+                for (Object arg : args) {
+                    if (arg instanceof By) {
+                        attributes.put("selenium.locator", arg.toString());
+                    }
+                }
+            }
+            attributes.put("selenium.request.size", payloadSize(args));
+            attributes.put("selenium.response.size", payloadSize(result));
+            trace.spans.add(new Span(spanId(), trace.step != null ? trace.step.spanId : trace.spanId, name, start, end, attributes,
+                    error == null ? null : error.getClass().getSimpleName() + ": " + firstLine(error.getMessage())));
+        } else {
+            trace.droppedSpans++;
+        }
+        trace.overheadNanos += System.nanoTime() - end;
+    }
+
+    /**
+     * @return true if the call only returns a local helper object and never reaches the browser
+     */
+    static boolean isLocal(Method method) {
+        return localMethods.contains(method.getName());
+    }
+
+    /**
+     * @return command name made of the target type and the method, e.g. 'WebElement.click'
+     */
+    static String commandName(Object target, Method method) {
+        return targetType(target) + "." + method.getName();
+    }
+
+    private static String targetType(Object target) {
+        if (target instanceof WebDriver) {
+            return "WebDriver";
+        } else if (target instanceof WebElement) {
+            return "WebElement";
+        } else if (target instanceof WebDriver.Navigation) {
+            return "Navigation";
+        } else if (target instanceof WebDriver.TargetLocator) {
+            return "TargetLocator";
+        } else if (target instanceof Alert) {
+            return "Alert";
+        } else if (target instanceof WebDriver.Window) {
+            return "Window";
+        } else if (target instanceof WebDriver.Options) {
+            return "Options";
+        } else if (target instanceof WebDriver.Timeouts) {
+            return "Timeouts";
+        }
+        return target.getClass().getSimpleName();
+    }
+
+    /**
+     * Approximates the size of command arguments or results: characters of text, bytes of arrays, elements of collections.
+     */
+    private static long payloadSize(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        } else if (value instanceof Object[]) {
+            long size = 0;
+            for (Object item : (Object[]) value) {
+                size += payloadSize(item);
+            }
+            return size;
+        } else if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        } else if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        return 1;
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "";
+        }
+        int end = message.indexOf('\n');
+        return end < 0 ? message : message.substring(0, end);
+    }
+
+    private static String summary(ScenarioTrace trace, long scenarioNanos) {
+        long commands = trace.histograms.values().stream().mapToLong(LatencyHistogram::count).sum();
+        StringBuilder summary = new StringBuilder(String.format(
+                "Command trace of '%s': %d commands, %.0f ms in driver calls (%.0f%% of %.0f ms), tracer overhead %.2f ms (%.1f us per command)%n",
+                trace.name, commands, trace.commandNanos / 1e6, scenarioNanos == 0 ? 0 : 100.0 * trace.commandNanos / scenarioNanos,
+                scenarioNanos / 1e6, trace.overheadNanos / 1e6, commands == 0 ? 0 : trace.overheadNanos / 1e3 / commands));
+        if (trace.droppedSpans > 0) {
+            summary.append(String.format("%d spans dropped, the trace is limited to %d spans%n", trace.droppedSpans, maxSpans));
+        }
+        appendTable(summary, "scenario", trace.histograms);
+        for (Step step : trace.steps) {
+            appendTable(summary, "step " + step.index, step.histograms);
+        }
+        return summary.toString();
+    }
+
+    private static void appendTable(StringBuilder summary, String title, Map<String, LatencyHistogram> histograms) {
+        if (histograms.isEmpty()) {
+            return;
+        }
+        summary.append(String.format("%n%-32s %7s %9s %9s %9s %9s %10s%n", title, "count", "p50 ms", "p90 ms", "p99 ms", "max ms", "total ms"));
+        histograms.forEach((name, histogram) -> {
+            LatencyRecorder.Stats stats = histogram.stats();
+            summary.append(String.format("%-32s %7d %9.1f %9.1f %9.1f %9.1f %10.1f%n", name, stats.count(), stats.p50Nanos() / 1e6,
+                    stats.p90Nanos() / 1e6, stats.p99Nanos() / 1e6, stats.maxNanos() / 1e6, histogram.totalNanos() / 1e6));
+        });
+    }
+
+    /**
+     * Builds the OTLP JSON 'resourceSpans' document of the trace.
+     */
+    private static Map<String, Object> otlp(ScenarioTrace trace) {
+        List<Map<String, Object>> spans = new ArrayList<>(trace.spans.size());
+        for (Span span : trace.spans) {
+            Map<String, Object> otlpSpan = new LinkedHashMap<>();
+            otlpSpan.put("traceId", trace.traceId);
+            otlpSpan.put("spanId", span.spanId());
+            if (span.parentSpanId() != null) {
+                otlpSpan.put("parentSpanId", span.parentSpanId());
+            }
+            otlpSpan.put("name", span.name());
+            otlpSpan.put("kind", span.parentSpanId() == null ? 1 : 3);
+            otlpSpan.put("startTimeUnixNano", String.valueOf(epochOffsetNanos + span.startNanos()));
+            otlpSpan.put("endTimeUnixNano", String.valueOf(epochOffsetNanos + span.endNanos()));
+            otlpSpan.put("attributes", attributes(span.attributes()));
+            otlpSpan.put("status", span.error() == null ? Map.of("code", 1) : Map.of("code", 2, "message", span.error()));
+            spans.add(otlpSpan);
+        }
+        Map<String, Object> scopeSpans = Map.of("scope", Map.of("name", CommandTracer.class.getName()), "spans", spans);
+        Map<String, Object> resource = Map.of("attributes", attributes(Map.of("service.name", "ui-tests")));
+        return Map.of("resourceSpans", List.of(Map.of("resource", resource, "scopeSpans", List.of(scopeSpans))));
+    }
+
+    private static List<Map<String, Object>> attributes(Map<String, Object> attributes) {
+        List<Map<String, Object>> otlpAttributes = new ArrayList<>(attributes.size());
+        attributes.forEach((key, value) -> otlpAttributes.add(Map.of("key", key, "value", value instanceof Number
+                ? Map.of("intValue", value.toString()) : Map.of("stringValue", String.valueOf(value)))));
+        return otlpAttributes;
+    }
+
+    private static String spanId() {
+        return HexFormat.of().formatHex(randomBytes(8));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+}
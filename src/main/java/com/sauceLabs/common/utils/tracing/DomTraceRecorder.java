@@ -0,0 +1,217 @@
+package com.sauceLabs.common.utils.tracing;
+
+import com.sauceLabs.common.ui.base.BaseWebDriver;
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * records a post-mortem trace of every SeleUtils/JSUtils interaction: action, locator, url, timing and the DOM,
+ * the first snapshot of a document is the full html and following snapshots only carry the subtrees changed since
+ * the previous one, collected in-page by a MutationObserver, form values are recorded separately (passwords masked),
+ * entries are streamed as gzip compressed NDJSON per scenario and 'viewer.html' in the trace directory steps through them,
+ * enabled with 'DomTrace' system property, traces are kept for failed scenarios only unless 'DomTrace.KeepOnFailureOnly=false'
+ *
+ * @author MahmoudOsama
+ */
+public class DomTraceRecorder {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("DomTrace", "false"));
+    private static final boolean keepOnFailureOnly = Boolean.parseBoolean(System.getProperty("DomTrace.KeepOnFailureOnly", "true"));
+    private static final Path directory = Paths.get(System.getProperty("DomTrace.Directory", "target/cucumber/dom-traces"));
+    private static final Set<String> internalClasses = Set.of(DomTraceRecorder.class.getName(), "com.sauceLabs.common.ui.base.BaseWebDriver",
+            "com.sauceLabs.common.utils.profiling.TimedAspect");
+    private static final ThreadLocal<DomTraceRecorder> currentRecorder = new ThreadLocal<>();
+    private static final Json json = new Json();
+
+    private static final String snapshotScript =
+            "function path(el) { var p = []; " +
+            "  while (el && el !== document.documentElement) { var i = 0, s = el; " +
+            "    while ((s = s.previousElementSibling)) i++; p.unshift(i); el = el.parentElement; } " +
+            "  return el ? p : null; } " +
+            "function mark(records) { for (var i = 0; i < records.length; i++) { var t = records[i].target; " +
+            "  var el = t.nodeType === 1 ? t : t.parentElement; if (el) window.__domTrace.dirty.add(el); } } " +
+            "var t = window.__domTrace; " +
+            "if (!t) { " +
+            "  t = window.__domTrace = {dirty: new Set(), inputs: new Set()}; " +
+            "  t.observer = new MutationObserver(mark); " +
+            "  t.observer.observe(document.documentElement, {subtree: true, childList: true, attributes: true, characterData: true}); " +
+            "  var track = function (e) { if (e.target && e.target.nodeType === 1) t.inputs.add(e.target); }; " +
+            "  document.addEventListener('input', track, true); document.addEventListener('change', track, true); " +
+            "  return {url: location.href, full: document.documentElement.outerHTML}; } " +
+            "mark(t.observer.takeRecords()); " +
+            "var roots = []; t.dirty.forEach(function (n) { if (!n.isConnected) return; " +
+            "  for (var a = n.parentElement; a; a = a.parentElement) if (t.dirty.has(a)) return; roots.push(n); }); " +
+            "t.dirty.clear(); " +
+            "var inputs = []; t.inputs.forEach(function (el) { if (!el.isConnected) return; " +
+            "  var v = el.type === 'checkbox' || el.type === 'radio' ? String(el.checked) : el.type === 'password' ? '********' : el.value; " +
+            "  inputs.push({path: path(el), value: v}); }); " +
+            "t.inputs.clear(); " +
+            "if (roots.some(function (n) { return n === document.documentElement || n === document.body || n === document.head; })) " +
+            "  return {url: location.href, full: document.documentElement.outerHTML, inputs: inputs}; " +
+            "return {url: location.href, patches: roots.map(function (n) { return {path: path(n), html: n.outerHTML}; }), inputs: inputs};";
+
+    private final Path traceFile;
+    private final Writer writer;
+    private final long startNanos = System.nanoTime();
+    private int sequence;
+    private long snapshotNanos;
+
+    private DomTraceRecorder(Path traceFile) throws IOException {
+        this.traceFile = traceFile;
+        this.writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(traceFile), 64 * 1024), StandardCharsets.UTF_8);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the interaction which is about to use the locator, the action name is the calling utility method.
+     * Failures are logged and never break the test.
+     *
+     * @param driver WebDriver of the interaction
+     * @param target locator or element of the interaction
+     */
+    public static void record(WebDriver driver, Object target) {
+        if (!enabled || driver == null) {
+            return;
+        }
+        try {
+            DomTraceRecorder recorder = currentRecorder.get();
+            if (recorder == null) {
+                Files.createDirectories(directory);
+                recorder = new DomTraceRecorder(Files.createTempFile(directory, "trace-", ".ndjson.gz"));
+                currentRecorder.set(recorder);
+            }
+            recorder.write(driver, callerAction(), target);
+        } catch (IOException | RuntimeException e) {
+            log.debug("DOM trace entry skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records a full snapshot of the new browser after the browser was recycled mid scenario,
+     * so the trace of the current thread goes on from the restored page of the new session.
+     *
+     * @param driver WebDriver of the new browser
+     */
+    public static void browserReplaced(WebDriver driver) {
+        DomTraceRecorder recorder = currentRecorder.get();
+        if (recorder == null || driver == null) {
+            return;
+        }
+        try {
+            recorder.write(driver, "browser recycled", null);
+        } catch (IOException | RuntimeException e) {
+            log.debug("DOM trace entry skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records a final snapshot and closes the trace of the current thread, the trace is kept or deleted.
+     *
+     * @param driver WebDriver for the final snapshot, null if the browser is closed already
+     * @param failed true if the scenario failed
+     * @param name   file name of the kept trace without extension
+     * @return kept trace file, null if nothing was recorded or it was deleted
+     */
+    public static Path stop(WebDriver driver, boolean failed, String name) {
+        DomTraceRecorder recorder = currentRecorder.get();
+        currentRecorder.remove();
+        if (recorder == null) {
+            return null;
+        }
+        try {
+            if (driver != null) {
+                try {
+                    recorder.write(driver, failed ? "scenario failed" : "scenario finished", null);
+                } catch (RuntimeException e) {
+                    log.debug("Final DOM trace snapshot skipped: {}", e.getMessage());
+                }
+            }
+            recorder.writer.close();
+            log.info("DOM trace recorded {} entries, {} ms spent on snapshots", recorder.sequence, recorder.snapshotNanos / 1_000_000);
+            if (failed || !keepOnFailureOnly) {
+                copyViewer();
+                return Files.move(recorder.traceFile, directory.resolve(name + ".ndjson.gz"), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.deleteIfExists(recorder.traceFile);
+        } catch (IOException e) {
+            log.error("Failed to finish DOM trace: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(WebDriver driver, String action, Object target) throws IOException {
+        long start = System.nanoTime();
+        // the snapshot script is not an interaction of the test, so it bypasses the command tracer
+        Map<String, Object> snapshot = (Map<String, Object>) ((JavascriptExecutor) BaseWebDriver.unwrap(driver)).executeScript(snapshotScript);
+        long end = System.nanoTime();
+        snapshotNanos += end - start;
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("seq", sequence++);
+        entry.put("timeMs", (start - startNanos) / 1_000_000);
+        entry.put("snapshotMs", (end - start) / 1_000_000.0);
+        entry.put("action", action);
+        entry.put("target", target == null ? null : target.toString());
+        entry.putAll(snapshot);
+        writer.write(json.toJson(entry).replace("\n", ""));
+        writer.write('\n');
+    }
+
+    /**
+     * Finds the utility method that triggered the lookup, e.g. 'SeleUtils.setText'.
+     */
+    private static String callerAction() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> !internalClasses.contains(frame.getClassName()) && !isWeavingFrame(frame.getClassName()))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1) + "." + unwovenName(frame.getMethodName()))
+                .orElse("unknown"));
+    }
+
+    /**
+     * @return true for the around closures generated by the weaver and the aspectj runtime
+     */
+    private static boolean isWeavingFrame(String className) {
+        return className.contains("$AjcClosure") || className.startsWith("org.aspectj.");
+    }
+
+    /**
+     * @return method name without the '_aroundBodyN' suffix the weaver gives the body of a method advised by around advice
+     */
+    private static String unwovenName(String methodName) {
+        int suffix = methodName.indexOf("_aroundBody");
+        return suffix > 0 ? methodName.substring(0, suffix) : methodName;
+    }
+
+    private static void copyViewer() throws IOException {
+        Path viewer = directory.resolve("viewer.html");
+        if (Files.exists(viewer)) {
+            return;
+        }
+        try (InputStream resource = DomTraceRecorder.class.getResourceAsStream("/domTrace/viewer.html")) {
+            if (resource != null) {
+                Files.copy(resource, viewer, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.sauceLabs.common.utils.tracing;
+
+import com.sauceLabs.common.utils.profiling.DriverCommandEvent;
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+
+/**
+ * emits a flight recorder DriverCommandEvent for every WebDriver command of a decorated driver,
+ * the command name and locator are only converted to text when a recording is running
+ *
+ * @author MahmoudOsama
+ */
+public class DriverCommandListener implements WebDriverListener {
+    private static final ThreadLocal<ArrayDeque<DriverCommandEvent>> openEvents = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        if (CommandTracer.isLocal(method)) {
+            return;
+        }
+        DriverCommandEvent event = new DriverCommandEvent();
+        event.begin();
+        openEvents.get().push(event);
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        finish(target, method, args, "ok");
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        finish(target, method, args, e.getTargetException().getClass().getSimpleName());
+    }
+
+    private void finish(Object target, Method method, Object[] args, String outcome) {
+        if (CommandTracer.isLocal(method)) {
+            return;
+        }
+        DriverCommandEvent event = openEvents.get().poll();
+        if (event == null) {
+            return;
+        }
+        if (!event.isEnabled()) {
+            event.end();
+            return;
+        }
+        Object locator = null;
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof By) {
+                    locator = arg;
+                }
+            }
+        }
+        event.finish(CommandTracer.commandName(target, method), locator, outcome);
+    }
+}
@@ -0,0 +1,118 @@
+package com.sauceLabs.common.utils.tracing;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.core.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * records when scenarios, steps, browser start and quit and screenshots ran on which worker thread,
+ * so parallel runs show idle gaps, slow browser startups and stragglers at the end,
+ * every span is one tab separated line written when it ends:
+ * 'S start-micros duration-micros worker kind status label', workers are declared once with 'W index thread-name',
+ * the run is written to 'Timeline.Directory' (default 'target/cucumber/timeline') as 'timeline.tsv'
+ * and turned into 'timeline.html' by TimelineReport when the run ends,
+ * enabled with 'Timeline' system property
+ *
+ * @author MahmoudOsama
+ */
+public class TimelineRecorder {
+    private static final Logger log = new MyLogger().getLogger();
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("Timeline", "false"));
+    private static final Path directory = Paths.get(System.getProperty("Timeline.Directory", "target/cucumber/timeline"));
+    private static final long runStartNanos = System.nanoTime();
+    private static final Map<String, Integer> workers = new ConcurrentHashMap<>();
+    private static final AtomicInteger workerCount = new AtomicInteger();
+    private static final ThreadLocal<Integer> currentWorker = new ThreadLocal<>();
+    private static BufferedWriter writer;
+    // set when the file is closed or could not be written, later spans are dropped
+    private static boolean stopped;
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a span of the current thread which started at the given time and ends now.
+     * Failures are logged once and never break the test.
+     *
+     * @param kind       span kind: scenario, step, browser or screenshot
+     * @param status     outcome of the span, e.g. 'PASSED'
+     * @param label      scenario name, step or action
+     * @param startNanos System.nanoTime() when the span started
+     */
+    public static void record(String kind, Object status, String label, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        String line = "S\t" + (startNanos - runStartNanos) / 1000 + "\t" + (endNanos - startNanos) / 1000 + "\t"
+                + worker() + "\t" + kind + "\t" + status + "\t" + clean(label) + "\n";
+        write(line);
+    }
+
+    private static int worker() {
+        Integer index = currentWorker.get();
+        if (index == null) {
+            String name = Thread.currentThread().getName();
+            index = workers.computeIfAbsent(name, key -> {
+                int newIndex = workerCount.getAndIncrement();
+                write("W\t" + newIndex + "\t" + clean(key) + "\n");
+                return newIndex;
+            });
+            currentWorker.set(index);
+        }
+        return index;
+    }
+
+    private static synchronized void write(String line) {
+        if (stopped) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                Files.createDirectories(directory);
+                writer = Files.newBufferedWriter(directory.resolve("timeline.tsv"), StandardCharsets.UTF_8);
+                writer.write("# timeline v1, times in microseconds, the report shifts them so the first span starts at zero\n");
+            }
+            writer.write(line);
+        } catch (IOException e) {
+            stopped = true;
+            log.error("Timeline recording stopped: {}", e.getMessage());
+        }
+    }
+
+    private static String clean(String label) {
+        return label == null ? "" : label.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Closes the event file and generates the HTML report next to it.
+     *
+     * @return generated report, null if nothing was recorded
+     */
+    public static synchronized Path finish() {
+        if (writer == null) {
+            return null;
+        }
+        stopped = true;
+        try {
+            writer.close();
+            writer = null;
+            Path report = TimelineReport.generate(directory.resolve("timeline.tsv"), directory.resolve("timeline.html"));
+            log.info("Timeline report written to: {}", report.toAbsolutePath());
+            return report;
+        } catch (IOException e) {
+            log.error("Failed to write the timeline report: {}", e.getMessage());
+            return null;
+        }
+    }
+}
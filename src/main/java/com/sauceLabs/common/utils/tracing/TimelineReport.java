@@ -0,0 +1,190 @@
+package com.sauceLabs.common.utils.tracing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * turns a timeline event file of TimelineRecorder into a self-contained HTML gantt chart with one row per worker thread,
+ * the page shows the wall time, the utilization of every worker, the critical path (the longest scenario, no number of
+ * workers can finish the run faster) and the straggler tail (time between the first worker going idle and the run end),
+ * spans are embedded as one flat number array and drawn on a canvas, only the visible part is painted,
+ * so runs with thousands of scenarios do not create a DOM node per span,
+ * can be run on its own: 'TimelineReport timeline.tsv [timeline.html]'
+ *
+ * @author MahmoudOsama
+ */
+public class TimelineReport {
+    private static final String dataPlaceholder = "/*TIMELINE_DATA*/null";
+
+    /**
+     * parsed span, times in microseconds
+     */
+    private record Span(int worker, String kind, String status, String label, long start, long duration) {
+        long end() {
+            return start + duration;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: TimelineReport <timeline.tsv> [timeline.html]");
+            return;
+        }
+        Path events = Paths.get(args[0]);
+        Path report = args.length > 1 ? Paths.get(args[1]) : events.resolveSibling("timeline.html");
+        System.out.println("Timeline report written to: " + generate(events, report).toAbsolutePath());
+    }
+
+    /**
+     * Generates the report of the event file.
+     *
+     * @param events timeline.tsv written by TimelineRecorder
+     * @param report html file to write
+     * @return written report
+     */
+    public static Path generate(Path events, Path report) throws IOException {
+        Map<Integer, String> workers = new HashMap<>();
+        List<Span> spans = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(events, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields[0].equals("W") && fields.length >= 3) {
+                    workers.put(Integer.parseInt(fields[1]), fields[2]);
+                } else if (fields[0].equals("S") && fields.length >= 7) {
+                    spans.add(new Span(Integer.parseInt(fields[3]), fields[4], fields[5], fields[6],
+                            Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                }
+            }
+        }
+        String template;
+        try (InputStream resource = TimelineReport.class.getResourceAsStream("/timeline/timeline.html")) {
+            if (resource == null) {
+                throw new IOException("Timeline template '/timeline/timeline.html' is missing from the classpath");
+            }
+            template = new String(resource.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        // '</' would end the script element the data is embedded in
+        String data = toJson(workers, spans).replace("</", "<\\/");
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        Files.writeString(report, template.replace(dataPlaceholder, data), StandardCharsets.UTF_8);
+        return report;
+    }
+
+    private static String toJson(Map<Integer, String> workerNames, List<Span> spans) {
+        int workerCount = workerNames.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        for (Span span : spans) {
+            workerCount = Math.max(workerCount, span.worker() + 1);
+        }
+        // times are shifted so the first span starts at zero
+        long origin = spans.stream().mapToLong(Span::start).min().orElse(0);
+        long end = spans.stream().mapToLong(Span::end).max().orElse(origin);
+        long wall = Math.max(1, end - origin);
+
+        long[] busy = new long[workerCount];
+        long[] lastEnd = new long[workerCount];
+        int[] scenarios = new int[workerCount];
+        int[] failed = new int[workerCount];
+        long longestScenario = 0;
+        String longestScenarioName = "";
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> stringTable = new ArrayList<>();
+        StringBuilder spanData = new StringBuilder(spans.size() * 24);
+        for (Span span : spans) {
+            if (span.kind().equals("scenario")) {
+                busy[span.worker()] += span.duration();
+                lastEnd[span.worker()] = Math.max(lastEnd[span.worker()], span.end() - origin);
+                scenarios[span.worker()]++;
+                if (span.status().equalsIgnoreCase("failed")) {
+                    failed[span.worker()]++;
+                }
+                if (span.duration() > longestScenario) {
+                    longestScenario = span.duration();
+                    longestScenarioName = span.label();
+                }
+            }
+            if (spanData.length() > 0) {
+                spanData.append(',');
+            }
+            spanData.append(span.worker()).append(',')
+                    .append(intern(span.kind(), strings, stringTable)).append(',')
+                    .append(intern(span.status(), strings, stringTable)).append(',')
+                    .append(intern(span.label(), strings, stringTable)).append(',')
+                    .append(span.start() - origin).append(',')
+                    .append(span.duration());
+        }
+
+        long totalBusy = 0;
+        long firstIdle = wall;
+        // threads which ran no scenario, e.g. the one running the run hooks, do not count as idle workers
+        int activeWorkers = 0;
+        StringBuilder workerData = new StringBuilder();
+        for (int i = 0; i < workerCount; i++) {
+            totalBusy += busy[i];
+            if (scenarios[i] > 0) {
+                activeWorkers++;
+                firstIdle = Math.min(firstIdle, lastEnd[i]);
+            }
+            if (i > 0) {
+                workerData.append(',');
+            }
+            workerData.append("{\"name\":").append(quote(workerNames.getOrDefault(i, "worker " + i)))
+                    .append(",\"scenarios\":").append(scenarios[i])
+                    .append(",\"failed\":").append(failed[i])
+                    .append(",\"busy\":").append(busy[i])
+                    .append(",\"utilization\":").append((double) busy[i] / wall)
+                    .append('}');
+        }
+        long ideal = Math.max(longestScenario, activeWorkers == 0 ? 0 : totalBusy / activeWorkers);
+        StringBuilder stringData = new StringBuilder();
+        for (String value : stringTable) {
+            if (stringData.length() > 0) {
+                stringData.append(',');
+            }
+            stringData.append(quote(value));
+        }
+        return "{\"wall\":" + wall
+                + ",\"utilization\":" + (activeWorkers == 0 ? 0 : (double) totalBusy / (wall * (double) activeWorkers))
+                + ",\"criticalPath\":" + longestScenario
+                + ",\"criticalPathScenario\":" + quote(longestScenarioName)
+                + ",\"idealWall\":" + ideal
+                + ",\"tail\":" + (wall - firstIdle)
+                + ",\"workers\":[" + workerData + "]"
+                + ",\"strings\":[" + stringData + "]"
+                + ",\"spans\":[" + spanData + "]}";
+    }
+
+    private static int intern(String value, Map<String, Integer> strings, List<String> stringTable) {
+        return strings.computeIfAbsent(value, key -> {
+            stringTable.add(key);
+            return stringTable.size() - 1;
+        });
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                default -> {
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
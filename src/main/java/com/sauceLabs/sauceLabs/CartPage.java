@@ -2,12 +2,14 @@ package com.sauceLabs.sauceLabs;
 
 import com.sauceLabs.common.ui.base.BaseWebDriver;
 import com.sauceLabs.common.ui.uiAutomation.SeleUtils;
+import com.sauceLabs.common.utils.profiling.Timed;
 import org.junit.jupiter.api.Assertions;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 
 import java.util.List;
 
+@Timed(step = true)
 public class CartPage extends BaseWebDriver {
     private static final By continueShopping = By.id("continue-shopping");
     private static final By checkout = By.id("checkout");
@@ -1,10 +1,18 @@
 package com.sauceLabs.sauceLabs;
 
 import com.sauceLabs.common.ui.base.BaseWebDriver;
+import com.sauceLabs.common.ui.uiAutomation.FormFieldResult;
 import com.sauceLabs.common.ui.uiAutomation.SeleUtils;
 import com.sauceLabs.common.utils.generator.Generator;
+import com.sauceLabs.common.utils.profiling.Timed;
+import org.junit.jupiter.api.Assertions;
 import org.openqa.selenium.By;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Timed(step = true)
 public class CheckoutPage extends BaseWebDriver {
     private static final By firstNameBox = By.id("first-name");
     private static final By lastNameBox = By.id("last-name");
@@ -26,6 +34,15 @@ public class CheckoutPage extends BaseWebDriver {
         seleUtils.setText(postalCodeBox, Generator.generateRandomNumbers(9));
     }
 
+    public void fillCheckoutData() {
+        Map<By, String> fields = new LinkedHashMap<>();
+        fields.put(firstNameBox, Generator.generateRandomName(6));
+        fields.put(lastNameBox, Generator.generateRandomName(6));
+        fields.put(postalCodeBox, Generator.generateRandomNumbers(9));
+        List<FormFieldResult> results = seleUtils.fillForm(fields);
+        Assertions.assertTrue(results.stream().allMatch(FormFieldResult::isMatched), "Checkout fields were not filled as expected: " + results);
+    }
+
     public void clickContinue() {
         seleUtils.clickOnElement(continueBtn);
     }
@@ -2,9 +2,11 @@ package com.sauceLabs.sauceLabs;
 
 import com.sauceLabs.common.ui.base.BaseWebDriver;
 import com.sauceLabs.common.ui.uiAutomation.SeleUtils;
+import com.sauceLabs.common.utils.profiling.Timed;
 import org.junit.jupiter.api.Assertions;
 import org.openqa.selenium.By;
 
+@Timed(step = true)
 public class CompletePage extends BaseWebDriver {
     private static final By messageContainer = By.id("checkout_complete_container");
     private final SeleUtils seleUtils = new SeleUtils();
@@ -1,11 +1,18 @@
 package com.sauceLabs.sauceLabs;
 
 import com.sauceLabs.common.ui.base.BaseWebDriver;
+import com.sauceLabs.common.ui.uiAutomation.FormFieldResult;
 import com.sauceLabs.common.ui.uiAutomation.SeleUtils;
 import com.sauceLabs.common.utils.files.JsonUtils;
+import com.sauceLabs.common.utils.profiling.Timed;
 import org.junit.jupiter.api.Assertions;
 import org.openqa.selenium.By;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Timed(step = true)
 public class LoginPage extends BaseWebDriver {
     private static final By nameBox = By.id("user-name");
     private static final By passwordBox = By.id("password");
@@ -36,6 +43,16 @@ public class LoginPage extends BaseWebDriver {
     }
 
 
+    public void enterCredentials() {
+        Map<By, String> fields = new LinkedHashMap<>();
+        fields.put(nameBox, JsonUtils.ReadJson("name"));
+        fields.put(passwordBox, JsonUtils.ReadJson("password"));
+        log.info("Username is set to : {}", fields.get(nameBox));
+        List<FormFieldResult> results = seleUtils.fillForm(fields);
+        Assertions.assertTrue(results.stream().allMatch(FormFieldResult::isMatched), "Login fields were not filled as expected");
+    }
+
+
     public void TypeOnUserNameTextBox(String userName) {
         seleUtils.setText(nameBox, userName);
     }
@@ -3,12 +3,14 @@ package com.sauceLabs.sauceLabs;
 import com.sauceLabs.common.ui.base.BaseWebDriver;
 import com.sauceLabs.common.ui.uiAutomation.BrowserWinUtils;
 import com.sauceLabs.common.ui.uiAutomation.SeleUtils;
+import com.sauceLabs.common.utils.profiling.Timed;
 import org.junit.jupiter.api.Assertions;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 
 import java.util.List;
 
+@Timed(step = true)
 public class OverviewPage extends BaseWebDriver {
     private static final By itemTotal = By.xpath("//div[@class='summary_subtotal_label']");
     private static final By finishBtn = By.id("finish");
@@ -1,13 +1,15 @@
 package com.sauceLabs.sauceLabs;
 
 import com.sauceLabs.common.ui.base.BaseWebDriver;
+import com.sauceLabs.common.ui.uiAutomation.ListHarvester;
 import com.sauceLabs.common.ui.uiAutomation.SeleUtils;
+import com.sauceLabs.common.utils.profiling.Timed;
 import org.openqa.selenium.By;
-import org.openqa.selenium.WebElement;
 
 import java.util.ArrayList;
 import java.util.List;
 
+@Timed(step = true)
 public class ProductsPage extends BaseWebDriver {
     private static final By firstProduct = By.id("add-to-cart-sauce-labs-fleece-jacket");
     private static final By secondProduct = By.id("add-to-cart-sauce-labs-backpack");
@@ -15,9 +17,13 @@ public class ProductsPage extends BaseWebDriver {
     private static final By sortDropDown = By.xpath("//select[@class='product_sort_container']");
     private static final By pricesElements = By.className("inventory_item_price");
     private static final By productTitles = By.xpath("//div[@class='inventory_item_name ']");
+    private static final String productRow = ".inventory_item";
+    private static final String productRowTitle = ".inventory_item_name";
+    private static final String productRowPrice = ".inventory_item_price";
 
 
     private final SeleUtils seleUtils = new SeleUtils();
+    private final ListHarvester listHarvester = new ListHarvester();
 
     public void clickFirstProduct() {
         seleUtils.clickOnElement(firstProduct);
@@ -36,11 +42,12 @@ public class ProductsPage extends BaseWebDriver {
     }
 
     public List<Double> getAllPricesAsDoubles() {
-        List<WebElement> priceElementsList = seleUtils.getElements(pricesElements);
+        seleUtils.isElementVisible(pricesElements);
+        List<String> priceTexts = listHarvester.harvestField(null, productRow, productRowPrice);
         List<Double> prices = new ArrayList<>();
-        if (priceElementsList != null && !priceElementsList.isEmpty()) {
-            for (WebElement element : priceElementsList) {
-                String priceText = element.getText().replace("$", "").trim();
+        if (!priceTexts.isEmpty()) {
+            for (String rawPrice : priceTexts) {
+                String priceText = rawPrice.replace("$", "").trim();
                 try {
                     double price = Double.parseDouble(priceText);
                     prices.add(price);
@@ -78,11 +85,11 @@ public class ProductsPage extends BaseWebDriver {
     }
 
     public List<String> getAllProductsTitle() {
-        List<WebElement> productTitleList = seleUtils.getElements(productTitles);
+        seleUtils.isElementVisible(productTitles);
+        List<String> productTitleList = listHarvester.harvestField(null, productRow, productRowTitle);
         List<String> titles = new ArrayList<>();
-        if (productTitleList != null && !productTitleList.isEmpty()) {
-            for (WebElement element : productTitleList) {
-                String title = element.getText();
+        if (!productTitleList.isEmpty()) {
+            for (String title : productTitleList) {
                 try {
                     titles.add(title);
                 } catch (NumberFormatException e) {
@@ -0,0 +1,106 @@
+package com.sauceLabs.benchmarks;
+
+import com.sauceLabs.common.utils.timer.LatencyRecorder;
+import com.sauceLabs.common.utils.timer.MyTimer;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * measures the cost of recording into a MyTimer latency recorder from one and from several threads,
+ * the bytes allocated per record on the recording thread and the percentile error against the exact sorted values,
+ * the recorded values are log-normal around 2 ms like waits and screenshots: 'LatencyRecorderBenchmark [threads]'
+ *
+ * @author MahmoudOsama
+ */
+public class LatencyRecorderBenchmark {
+    private static final int warmup = 2_000_000;
+    private static final int iterations = 10_000_000;
+    private static final int samples = 1 << 16;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long[] values = new long[samples];
+        Random random = new Random(42);
+        for (int i = 0; i < samples; i++) {
+            values[i] = (long) (2_000_000 * Math.exp(random.nextGaussian()));
+        }
+
+        LatencyRecorder warm = MyTimer.recorder("benchmark.warmup");
+        for (int i = 0; i < warmup; i++) {
+            warm.record(values[i & (samples - 1)]);
+            try (LatencyRecorder.Scope ignored = warm.time()) {
+                values[i & (samples - 1)] ^= 0;
+            }
+        }
+
+        LatencyRecorder single = MyTimer.recorder("benchmark.single");
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            single.record(values[i & (samples - 1)]);
+        }
+        long recordNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            try (LatencyRecorder.Scope ignored = single.time()) {
+                values[i & (samples - 1)] ^= 0;
+            }
+        }
+        long scopeNanos = System.nanoTime() - start;
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("record: %.1f ns, scope (two nanoTime calls included): %.1f ns, allocated: %d bytes for %d records%n",
+                (double) recordNanos / iterations, (double) scopeNanos / iterations, allocated, 2L * iterations);
+
+        LatencyRecorder shared = MyTimer.recorder("benchmark.shared");
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < iterations; i++) {
+                    shared.record(values[i & (samples - 1)]);
+                }
+            });
+            workers[t].start();
+        }
+        ready.await();
+        start = System.nanoTime();
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long sharedNanos = System.nanoTime() - start;
+        System.out.printf("%d threads: %.1f ns per record per thread, %.0f M records/s%n", threads,
+                (double) sharedNanos / iterations, threads * (double) iterations / sharedNanos * 1000);
+
+        long mergeStart = System.nanoTime();
+        LatencyRecorder.Stats stats = shared.stats();
+        System.out.printf("merge of %d thread histograms: %.0f us%n", threads, (System.nanoTime() - mergeStart) / 1e3);
+
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        LatencyRecorder exact = MyTimer.recorder("benchmark.exact");
+        for (long value : values) {
+            exact.record(value);
+        }
+        LatencyRecorder.Stats exactStats = exact.stats();
+        double[] percentiles = {50, 90, 99, 99.9};
+        long[] recorded = {exactStats.p50Nanos(), exactStats.p90Nanos(), exactStats.p99Nanos(), exactStats.p999Nanos()};
+        for (int i = 0; i < percentiles.length; i++) {
+            long expected = sorted[(int) Math.ceil(samples * percentiles[i] / 100) - 1];
+            System.out.printf("p%s: exact %.3f ms, recorder %.3f ms, error %+.2f%%%n", percentiles[i], expected / 1e6,
+                    recorded[i] / 1e6, 100.0 * (recorded[i] - expected) / expected);
+        }
+        System.out.printf("shared count %d, mean %.3f ms, max %.3f ms%n", stats.count(), stats.meanNanos() / 1e6, stats.maxNanos() / 1e6);
+    }
+}
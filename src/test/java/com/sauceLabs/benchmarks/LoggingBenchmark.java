@@ -0,0 +1,44 @@
+package com.sauceLabs.benchmarks;
+
+import com.sauceLabs.common.utils.logs.MyLogger;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.Logger;
+
+import java.util.Arrays;
+
+/**
+ * measures the cost of an INFO log call on the scenario thread, as SeleUtils/JSUtils log several times per interaction,
+ * run once per mode since MyLogger reads its properties once per JVM:
+ * '-DAsyncLogs=false' (sync file appender with location), '-DAsyncLogs=true' (async, no location),
+ * '-DAsyncLogs=true -DLogLocation=true' (async with location), lines are written to 'log.txt' in the working directory
+ *
+ * @author MahmoudOsama
+ */
+public class LoggingBenchmark {
+    private static final int warmup = 50_000;
+    private static final int iterations = 200_000;
+
+    public static void main(String[] args) {
+        // the first MyLogger only initializes the context, the file appender is added by the next one
+        new MyLogger().getLogger();
+        Logger log = new MyLogger().getLogger();
+        ThreadContext.put("scenario", "Login with valid credentials");
+        for (int i = 0; i < warmup; i++) {
+            log.info("Clicking on element: By.id: login-button ({})", i);
+        }
+        long[] latencies = new long[iterations];
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long callStart = System.nanoTime();
+            log.info("Clicking on element: By.id: login-button ({})", i);
+            latencies[i] = System.nanoTime() - callStart;
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        System.out.printf("mode: AsyncLogs=%s LogLocation=%s%n", System.getProperty("AsyncLogs", "false"),
+                System.getProperty("LogLocation", "default"));
+        System.out.printf("throughput: %.0f calls/s%n", iterations / (elapsed / 1e9));
+        System.out.printf("latency ns: p50=%d p99=%d p99.9=%d max=%d%n", latencies[iterations / 2],
+                latencies[(int) (iterations * 0.99)], latencies[(int) (iterations * 0.999)], latencies[iterations - 1]);
+    }
+}
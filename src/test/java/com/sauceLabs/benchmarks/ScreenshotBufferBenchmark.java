@@ -0,0 +1,57 @@
+package com.sauceLabs.benchmarks;
+
+import com.sauceLabs.common.utils.screenshot.ScreenshotBufferPool;
+import com.sauceLabs.common.utils.screenshot.ScreenshotPipeline;
+import com.sauceLabs.common.utils.screenshot.StepScreenshot;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * allocations of a step screenshot on the capture thread and on the pipeline threads, the capture decodes the base64
+ * WebDriver response like ScreenShot.takeWebScreenShotBuffer, run once per mode since the pool reads its properties once per JVM:
+ * '-DScreenshotBufferPool=true' (pooled direct buffers) and '-DScreenshotBufferPool=false' (heap byte arrays),
+ * the disk write is off unless 'Screenshot.WriteToDisk' is set, screenshots are decoded and hashed for de-duplication as in a run
+ *
+ * @author MahmoudOsama
+ */
+public class ScreenshotBufferBenchmark {
+    private static final int warmup = 20;
+    private static final int iterations = 100;
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        System.setProperty("Screenshot.WriteToDisk", System.getProperty("Screenshot.WriteToDisk", "false"));
+        // the base64 String is built by Selenium from the WebDriver response in both modes, it is not part of the comparison
+        String base64 = Base64.getEncoder().encodeToString(ScreenshotEncodingBenchmark.generatePage());
+        run(base64, warmup);
+        ScreenshotPipeline.Allocations before = ScreenshotPipeline.allocations();
+        long start = System.nanoTime();
+        run(base64, iterations);
+        long elapsed = System.nanoTime() - start;
+        ScreenshotPipeline.Allocations after = ScreenshotPipeline.allocations();
+        if (before == null || after == null) {
+            System.out.println("this JVM does not count allocations per thread");
+            return;
+        }
+        System.out.printf("buffers: %s, png %d bytes%n", ScreenshotBufferPool.isEnabled() ? "pooled direct" : "heap",
+                Base64.getDecoder().decode(base64).length);
+        System.out.printf("capture thread: %.2f MB allocated per screenshot%n",
+                (after.captureAllocatedBytes() - before.captureAllocatedBytes()) / 1048576.0 / iterations);
+        System.out.printf("pipeline threads: %.2f MB allocated per screenshot%n",
+                (after.pipelineAllocatedBytes() - before.pipelineAllocatedBytes()) / 1048576.0 / iterations);
+        System.out.printf("time: %.1f ms per screenshot%n", elapsed / 1e6 / iterations);
+    }
+
+    private static void run(String base64, int screenshots) {
+        CompletableFuture<StepScreenshot> previous = null;
+        for (int i = 0; i < screenshots; i++) {
+            ScreenshotBufferPool.Lease screenshot = ScreenshotPipeline.capture(() -> ScreenshotBufferPool.isEnabled()
+                    ? ScreenshotBufferPool.decodeBase64(base64)
+                    : ScreenshotBufferPool.Lease.wrap(Base64.getDecoder().decode(base64)));
+            previous = ScreenshotPipeline.submit(screenshot, "benchmark-" + i, false, previous);
+            ScreenshotPipeline.flush(previous);
+        }
+    }
+}
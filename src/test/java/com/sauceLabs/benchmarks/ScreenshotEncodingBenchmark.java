@@ -0,0 +1,110 @@
+package com.sauceLabs.benchmarks;
+
+import com.sauceLabs.common.utils.screenshot.ScreenshotEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+
+/**
+ * compares CPU time and output size of the legacy SCALE_SMOOTH screenshot resize with ScreenshotEncoder,
+ * run with a real 1920x1080 capture as argument or without arguments to use a generated page-like image
+ *
+ * @author MahmoudOsama
+ */
+public class ScreenshotEncodingBenchmark {
+    private static final int warmup = 5;
+    private static final int iterations = 20;
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private interface Encoding {
+        byte[] encode(byte[] png) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        ImageIO.setUseCache(false);
+        byte[] png = args.length > 0 ? Files.readAllBytes(new File(args[0]).toPath()) : generatePage();
+        System.out.printf("input: %d bytes png%n", png.length);
+        System.out.printf("%-38s %12s %12s%n", "encoding", "cpu ms/op", "bytes");
+        run("legacy SCALE_SMOOTH 0.6 png", png, ScreenshotEncodingBenchmark::legacyReduce);
+        run("bilinear 0.6 png level 3", png, p -> new ScreenshotEncoder("png", 0.8f, 3, 0.6, 0).encode(p, true).bytes());
+        run("bilinear 0.6 png level 1", png, p -> new ScreenshotEncoder("png", 0.8f, 1, 0.6, 0).encode(p, true).bytes());
+        run("bilinear 0.6 jpeg q0.8", png, p -> new ScreenshotEncoder("jpeg", 0.8f, 3, 0.6, 0).encode(p, true).bytes());
+        run("bilinear max 1280 jpeg q0.7", png, p -> new ScreenshotEncoder("jpeg", 0.7f, 3, 1.0, 1280).encode(p, false).bytes());
+        run("full size jpeg q0.8", png, p -> new ScreenshotEncoder("jpeg", 0.8f, 3, 1.0, 0).encode(p, false).bytes());
+    }
+
+    private static void run(String name, byte[] png, Encoding encoding) throws IOException {
+        for (int i = 0; i < warmup; i++) {
+            encoding.encode(png);
+        }
+        int size = 0;
+        long start = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            size = encoding.encode(png).length;
+        }
+        double cpuMs = (threadMXBean.getCurrentThreadCpuTime() - start) / 1e6 / iterations;
+        System.out.printf("%-38s %12.1f %12d%n", name, cpuMs, size);
+    }
+
+    /**
+     * the resize ScreenShot used before, SCALE_SMOOTH followed by a redraw and a default png encode
+     */
+    private static byte[] legacyReduce(byte[] png) throws IOException {
+        BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(png));
+        int newWidth = (int) (originalImage.getWidth() * 0.6);
+        int newHeight = (int) (originalImage.getHeight() * 0.6);
+        Image resizedImage = originalImage.getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
+        BufferedImage resizedBufferedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = resizedBufferedImage.createGraphics();
+        g2d.drawImage(resizedImage, 0, 0, null);
+        g2d.dispose();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(resizedBufferedImage, "png", baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * renders a 1920x1080 product-list-like page: header bar, text, product cards with image gradients
+     */
+    static byte[] generatePage() throws IOException {
+        BufferedImage page = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = page.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 1920, 1080);
+        g.setColor(new Color(19, 35, 34));
+        g.fillRect(0, 0, 1920, 90);
+        g.setColor(Color.WHITE);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 32));
+        g.drawString("Swag Labs", 860, 58);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 16));
+        for (int card = 0; card < 6; card++) {
+            int x = 60 + (card % 3) * 610;
+            int y = 130 + (card / 3) * 470;
+            g.setPaint(new GradientPaint(x, y, new Color(40 * card, 120, 200), x + 260, y + 300, new Color(250, 200 - 20 * card, 90)));
+            g.fillRect(x, y, 260, 300);
+            g.setColor(Color.DARK_GRAY);
+            g.drawRect(x, y, 560, 420);
+            for (int line = 0; line < 9; line++) {
+                g.drawString("Sauce Labs product " + card + " description line " + line + " lorem ipsum", x + 280, y + 30 + line * 26);
+            }
+            g.setColor(new Color(226, 35, 26));
+            g.fillRoundRect(x + 400, y + 360, 140, 40, 8, 8);
+            g.setColor(Color.WHITE);
+            g.drawString("Add to cart", x + 425, y + 386);
+        }
+        g.dispose();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(page, "png", baos);
+        return baos.toByteArray();
+    }
+}
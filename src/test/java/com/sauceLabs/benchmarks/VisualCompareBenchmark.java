@@ -0,0 +1,73 @@
+package com.sauceLabs.benchmarks;
+
+import com.sauceLabs.common.utils.screenshot.VisualComparator;
+import com.sauceLabs.common.utils.screenshot.VisualDiffResult;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * measures the tiled visual compare kernel on full-HD images without writing diff images,
+ * run with '-Djava.util.concurrent.ForkJoinPool.common.parallelism=N' to compare core counts
+ *
+ * @author MahmoudOsama
+ */
+public class VisualCompareBenchmark {
+    private static final int warmup = 5;
+    private static final int iterations = 20;
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        System.setProperty("VisualBaseline.DiffDirectory", System.getProperty("java.io.tmpdir") + "/visual-diffs");
+        BufferedImage expected = page(0);
+        BufferedImage identical = page(0);
+        BufferedImage shifted = page(1);
+        BufferedImage changed = page(0);
+        Graphics2D g = changed.createGraphics();
+        g.setColor(Color.MAGENTA);
+        g.fillRect(300, 300, 900, 500);
+        g.dispose();
+        System.out.printf("cores: %d%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-42s %10s %12s%n", "case", "ms/op", "diff pixels");
+        run("identical", expected, identical, 0.001);
+        run("1px text shift (anti-aliasing)", expected, shifted, 0.001);
+        run("changed block, early exit", expected, changed, 0.001);
+        run("changed block, full scan", expected, changed, 1.0);
+    }
+
+    private static void run(String name, BufferedImage expected, BufferedImage actual, double maxDiffRatio) throws IOException {
+        VisualComparator comparator = new VisualComparator().maxDiffRatio(maxDiffRatio).writeDiffImage(false);
+        for (int i = 0; i < warmup; i++) {
+            comparator.compare(expected, actual, "benchmark");
+        }
+        VisualDiffResult result = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            result = comparator.compare(expected, actual, "benchmark");
+        }
+        System.out.printf("%-42s %10.1f %12d%n", name, (System.nanoTime() - start) / 1e6 / iterations, result.diffPixels());
+    }
+
+    private static BufferedImage page(int textOffset) {
+        BufferedImage page = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = page.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 1920, 1080);
+        Random random = new Random(42);
+        for (int block = 0; block < 40; block++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillRect(random.nextInt(1800), random.nextInt(1000), 120, 80);
+        }
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 15));
+        for (int line = 0; line < 40; line++) {
+            g.drawString("Sauce Labs Backpack carry.allTheThings() with the sleek, streamlined Sly Pack " + line,
+                    40 + textOffset, 25 + line * 26);
+        }
+        g.dispose();
+        return page;
+    }
+}
@@ -0,0 +1,74 @@
+package com.sauceLabs.common.utils.logs;
+
+import org.apache.logging.log4j.core.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * async file logging of MyLogger, run in a child JVM since MyLogger reads its properties once per JVM
+ * and the queue is only drained completely when that JVM exits
+ *
+ * @author MahmoudOsama
+ */
+class MyLoggerTest {
+    private static final int events = 20_000;
+    private static final Pattern numberedEvent = Pattern.compile("numbered event (\\d+)$");
+
+    @Test
+    void asyncLogsKeepEveryLineInOrder(@TempDir Path workingDirectory) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"), "-DAsyncLogs=true", "-Duser.dir=" + workingDirectory,
+                NumberedEvents.class.getName(), String.valueOf(events))
+                .directory(workingDirectory.toFile()).redirectErrorStream(true)
+                .redirectOutput(workingDirectory.resolve("output.txt").toFile()).start();
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS), "the logging JVM did not exit");
+        assertEquals(0, process.exitValue(), () -> read(workingDirectory.resolve("output.txt")));
+
+        List<String> lines = Files.readAllLines(workingDirectory.resolve("log.txt"), StandardCharsets.UTF_8);
+        int expected = 0;
+        for (String line : lines) {
+            Matcher matcher = numberedEvent.matcher(line);
+            if (matcher.find()) {
+                assertEquals(expected, Integer.parseInt(matcher.group(1)), "event out of order");
+                expected++;
+            }
+        }
+        assertEquals(events, expected, "events written to log.txt");
+    }
+
+    private static String read(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            return e.toString();
+        }
+    }
+
+    /**
+     * logs the given number of numbered INFO events and exits without stopping log4j
+     */
+    static final class NumberedEvents {
+        public static void main(String[] args) {
+            // the first MyLogger only initializes the context, the file appender is added by the next one
+            new MyLogger().getLogger();
+            Logger log = new MyLogger().getLogger();
+            int events = Integer.parseInt(args[0]);
+            for (int i = 0; i < events; i++) {
+                log.info("numbered event {}", i);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.sauceLabs.common.utils.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * bucket bounds and prometheus text of MetricHistogram
+ *
+ * @author MahmoudOsama
+ */
+class MetricHistogramTest {
+
+    @Test
+    void boundsAreInclusiveUpperLimits() {
+        MetricHistogram histogram = new MetricHistogram(0.1, 1);
+        histogram.record(0);
+        histogram.record(100_000_000);
+        histogram.record(100_000_001);
+        histogram.record(1_000_000_000);
+        histogram.record(5_000_000_000L);
+        StringBuilder out = new StringBuilder();
+        histogram.write(out, "step_duration_seconds", "");
+        assertEquals("""
+                step_duration_seconds_bucket{le="0.1"} 2
+                step_duration_seconds_bucket{le="1.0"} 4
+                step_duration_seconds_bucket{le="+Inf"} 5
+                step_duration_seconds_sum 6.200000001
+                step_duration_seconds_count 5
+                """, out.toString());
+    }
+
+    @Test
+    void writesLabelsOnEverySeries() {
+        MetricHistogram histogram = new MetricHistogram(0.5);
+        histogram.record(250_000_000);
+        StringBuilder out = new StringBuilder();
+        histogram.write(out, "command_duration_seconds", "command=\"click\"");
+        assertEquals("""
+                command_duration_seconds_bucket{command="click",le="0.5"} 1
+                command_duration_seconds_bucket{command="click",le="+Inf"} 1
+                command_duration_seconds_sum{command="click"} 0.25
+                command_duration_seconds_count{command="click"} 1
+                """, out.toString());
+    }
+
+    @Test
+    void emptyHistogramWritesZeroCounts() {
+        StringBuilder out = new StringBuilder();
+        new MetricHistogram(1).write(out, "m", "");
+        assertEquals("""
+                m_bucket{le="1.0"} 0
+                m_bucket{le="+Inf"} 0
+                m_sum 0.0
+                m_count 0
+                """, out.toString());
+    }
+}
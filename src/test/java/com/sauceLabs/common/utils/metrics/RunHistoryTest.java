@@ -0,0 +1,64 @@
+package com.sauceLabs.common.utils.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * median, MAD and slowdown scoring of RunHistory with the default threshold 3.5 and minimum slowdown 200 ms
+ *
+ * @author MahmoudOsama
+ */
+class RunHistoryTest {
+
+    @Test
+    void medianOfOddAndEvenCounts() {
+        assertEquals(3, RunHistory.median(new long[]{5, 1, 3}));
+        assertEquals(2, RunHistory.median(new long[]{4, 1, 3, 1}));
+        assertEquals(7, RunHistory.median(new long[]{7}));
+    }
+
+    @Test
+    void medianDoesNotReorderTheValues() {
+        long[] values = {3, 1, 2};
+        RunHistory.median(values);
+        assertEquals(3, values[0]);
+    }
+
+    @Test
+    void madIgnoresOutliers() {
+        long[] durations = {1000, 1010, 990, 1020, 980, 9000};
+        long median = RunHistory.median(durations);
+        assertEquals(1005, median);
+        assertEquals(15, RunHistory.mad(durations, median));
+    }
+
+    @Test
+    void flagsDurationsFarAboveTheBaseline() {
+        long[] durations = {1000, 1010, 990, 1020, 980};
+        RunHistory.Slowdown slowdown = RunHistory.slowdown(durations, "scenario", "chrome", 1600);
+        assertNotNull(slowdown);
+        assertEquals(1000, slowdown.median());
+        assertEquals(10, slowdown.mad());
+        assertEquals(0.6745 * 600 / 10, slowdown.score(), 1e-9);
+        assertEquals(5, slowdown.baseline());
+    }
+
+    @Test
+    void ignoresNoiseAndSmallSlowdowns() {
+        long[] durations = {1000, 1200, 800, 1400, 600};
+        // 3 MADs above the median, a robust z-score of 2.0
+        assertNull(RunHistory.slowdown(durations, "scenario", "chrome", 1600));
+        // far above a stable baseline but below the minimum slowdown
+        assertNull(RunHistory.slowdown(new long[]{100, 100, 100, 100, 100}, "step", "chrome", 250));
+    }
+
+    @Test
+    void stableBaselineUsesAMadOfOne() {
+        RunHistory.Slowdown slowdown = RunHistory.slowdown(new long[]{100, 100, 100, 100, 100}, "step", "chrome", 400);
+        assertNotNull(slowdown);
+        assertEquals(1, slowdown.mad());
+    }
+}
@@ -0,0 +1,55 @@
+package com.sauceLabs.common.utils.profiling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * css suggestions of LocatorProfiler, a suggestion must match the same elements as the xpath or be left out
+ *
+ * @author MahmoudOsama
+ */
+class LocatorProfilerTest {
+
+    @Test
+    void suggestsSimpleSteps() {
+        assertEquals("input[id='user-name']", LocatorProfiler.suggestCss("//input[@id='user-name']"));
+        assertEquals("html > body", LocatorProfiler.suggestCss("/html/body"));
+        assertEquals("button[disabled]", LocatorProfiler.suggestCss("//button[@disabled]"));
+        assertEquals("a[href*='cart']", LocatorProfiler.suggestCss("//a[contains(@href,'cart')]"));
+        assertEquals("*[id^='item_']", LocatorProfiler.suggestCss("//*[starts-with(@id, 'item_')]"));
+    }
+
+    @Test
+    void joinsAndConditions() {
+        assertEquals("div[class='a'][id='b'] > span", LocatorProfiler.suggestCss("//div[@class='a' and @id='b']/span"));
+        assertEquals("input[name='x'][type='y']", LocatorProfiler.suggestCss("//input[@name='x'][@type='y']"));
+    }
+
+    @Test
+    void keepsOperatorsAndBracketsInsideQuotes() {
+        assertEquals("input[value='a]b']", LocatorProfiler.suggestCss("//input[@value='a]b']"));
+        assertEquals("input[value='a and b']", LocatorProfiler.suggestCss("//input[@value='a and b']"));
+        assertEquals("input[value='a or b']", LocatorProfiler.suggestCss("//input[@value=\"a or b\"]"));
+        assertEquals("input[value='a | b']", LocatorProfiler.suggestCss("//input[@value='a | b']"));
+    }
+
+    @Test
+    void rejectsOrAndUnions() {
+        assertNull(LocatorProfiler.suggestCss("//input[@a='x' or @b='y']"));
+        assertNull(LocatorProfiler.suggestCss("//input[@a='x' and @b='y' or @c='z']"));
+        assertNull(LocatorProfiler.suggestCss("//input[@a='x' | @b='y']"));
+        assertNull(LocatorProfiler.suggestCss("//a | //b"));
+    }
+
+    @Test
+    void rejectsUnsupportedPredicates() {
+        assertNull(LocatorProfiler.suggestCss("//div[span[@id='x']]"));
+        assertNull(LocatorProfiler.suggestCss("//li[2]"));
+        assertNull(LocatorProfiler.suggestCss("//input[@value='a' and 'b']"));
+        assertNull(LocatorProfiler.suggestCss("//input[@value='it\"s']"));
+        assertNull(LocatorProfiler.suggestCss("//input[@value='unterminated]"));
+        assertNull(LocatorProfiler.suggestCss(".//div"));
+    }
+}
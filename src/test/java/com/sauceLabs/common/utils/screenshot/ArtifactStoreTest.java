@@ -0,0 +1,97 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * mark-and-sweep pruning of ArtifactStore
+ *
+ * @author MahmoudOsama
+ */
+class ArtifactStoreTest {
+    private static final Duration grace = Duration.ofHours(24);
+    private static final Instant old = Instant.now().minus(Duration.ofDays(3));
+
+    @Test
+    void objectsOfKeptRunsSurvive(@TempDir Path root) throws IOException {
+        Path shared = object(root, "aa11", old);
+        Path onlyOld = object(root, "bb22", old);
+        Path onlyNew = object(root, "cc33", old);
+        manifest(root, "20260101_100000_aaaaaaaa", "aa11", "bb22");
+        manifest(root, "20260102_100000_bbbbbbbb", "aa11", "cc33");
+
+        assertEquals(1, ArtifactStore.prune(root, 1, grace));
+
+        assertTrue(Files.exists(shared), "object referenced by the kept run");
+        assertTrue(Files.exists(onlyNew), "object referenced by the kept run");
+        assertFalse(Files.exists(onlyOld), "object referenced only by the pruned run");
+        assertFalse(Files.exists(root.resolve("runs/20260101_100000_aaaaaaaa.txt")), "manifest beyond KeepRuns");
+        assertTrue(Files.exists(root.resolve("runs/20260102_100000_bbbbbbbb.txt")));
+    }
+
+    @Test
+    void unreferencedObjectsWithinTheGracePeriodSurvive(@TempDir Path root) throws IOException {
+        Path fresh = object(root, "dd44", Instant.now());
+        Path stale = object(root, "ee55", old);
+        manifest(root, "20260102_100000_bbbbbbbb");
+
+        assertEquals(1, ArtifactStore.prune(root, 1, grace));
+
+        assertTrue(Files.exists(fresh), "object of a run which did not write its manifest yet");
+        assertFalse(Files.exists(stale));
+    }
+
+    @Test
+    void reusedObjectIsProtectedByTheGracePeriod(@TempDir Path root) throws IOException {
+        ArtifactStore.StoredArtifact first = ArtifactStore.put(root, ByteBuffer.wrap(new byte[]{1, 2, 3}), "bin");
+        Files.setLastModifiedTime(first.path(), FileTime.from(old));
+
+        ArtifactStore.StoredArtifact reused = ArtifactStore.put(root, ByteBuffer.wrap(new byte[]{1, 2, 3}), "bin");
+
+        assertTrue(first.isNew());
+        assertFalse(reused.isNew());
+        assertEquals(first.path(), reused.path());
+        assertTrue(Files.getLastModifiedTime(reused.path()).toInstant().isAfter(Instant.now().minus(grace)),
+                "a reused object gets a fresh modification time");
+        // a concurrent prune which read the manifests before the reuse was recorded keeps the object
+        Files.delete(root.resolve("runs").toFile().listFiles()[0].toPath());
+        manifest(root, "20260102_100000_bbbbbbbb");
+        assertEquals(0, ArtifactStore.prune(root, 1, grace));
+        assertTrue(Files.exists(reused.path()));
+    }
+
+    @Test
+    void emptyStoreIsNotPruned(@TempDir Path root) throws IOException {
+        assertEquals(0, ArtifactStore.prune(root, 1, grace));
+    }
+
+    private static Path object(Path root, String hash, Instant modified) throws IOException {
+        Path object = root.resolve("objects").resolve(hash.substring(0, 2)).resolve(hash.substring(2) + ".png");
+        Files.createDirectories(object.getParent());
+        Files.write(object, hash.getBytes());
+        Files.setLastModifiedTime(object, FileTime.from(modified));
+        return object;
+    }
+
+    private static void manifest(Path root, String runId, String... hashes) throws IOException {
+        Path manifest = root.resolve("runs").resolve(runId + ".txt");
+        Files.createDirectories(manifest.getParent());
+        StringBuilder content = new StringBuilder();
+        for (String hash : hashes) {
+            content.append(hash).append(".png").append(System.lineSeparator());
+        }
+        Files.writeString(manifest, content);
+    }
+}
@@ -0,0 +1,63 @@
+package com.sauceLabs.common.utils.screenshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * base64 decoding into pooled buffers, checked against java.util.Base64
+ *
+ * @author MahmoudOsama
+ */
+class ScreenshotBufferPoolTest {
+    private final Random random = new Random(42);
+
+    @Test
+    void decodesEveryPaddingLength() {
+        // lengths 0 to 99 cover no padding, one and two padding characters many times
+        for (int length = 0; length < 100; length++) {
+            byte[] content = randomBytes(length);
+            assertDecodes(content, Base64.getEncoder().encodeToString(content));
+        }
+    }
+
+    @Test
+    void decodesUnpaddedContent() {
+        for (int length = 1; length < 10; length++) {
+            byte[] content = randomBytes(length);
+            assertDecodes(content, Base64.getEncoder().withoutPadding().encodeToString(content));
+        }
+    }
+
+    @Test
+    void decodesContentSpanningSeveralChunks() {
+        // chunk boundaries fall inside the content and the last chunk is padded
+        for (int length : new int[]{49_151, 49_152, 49_153, 150_001, 2_300_000}) {
+            byte[] content = randomBytes(length);
+            assertDecodes(content, Base64.getEncoder().encodeToString(content));
+        }
+    }
+
+    @Test
+    void decodesContentWithLineBreaks() {
+        for (int length : new int[]{0, 1, 2, 57, 58, 100_000}) {
+            byte[] content = randomBytes(length);
+            assertDecodes(content, Base64.getMimeEncoder().encodeToString(content));
+        }
+    }
+
+    private void assertDecodes(byte[] expected, String base64) {
+        try (ScreenshotBufferPool.Lease lease = ScreenshotBufferPool.decodeBase64(base64)) {
+            assertArrayEquals(expected, lease.toBytes(), "decoded " + expected.length + " bytes");
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,43 @@
+package com.sauceLabs.common.utils.timer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * single thread LatencyHistogram against LatencyRecorder
+ *
+ * @author MahmoudOsama
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void statsMatchTheRecorder() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        LatencyRecorder recorder = new LatencyRecorder("test");
+        // grows the bucket array from small to large values and back
+        for (long value : new long[]{0, 5, 31, 40_000, 3_000_000_000L, 12, 250_000_000, 7_000, 1L << 50}) {
+            for (int i = 0; i < 3; i++) {
+                histogram.record(value * (i + 1));
+                recorder.record(value * (i + 1));
+            }
+        }
+        assertEquals(recorder.stats(), histogram.stats());
+        assertEquals(27, histogram.count());
+    }
+
+    @Test
+    void negativeDurationsCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(-5);
+        assertEquals(0, histogram.stats().maxNanos());
+        assertEquals(0, histogram.totalNanos());
+    }
+
+    @Test
+    void emptyHistogramHasZeroStats() {
+        LatencyRecorder.Stats stats = new LatencyHistogram("test").stats();
+        assertEquals(0, stats.count());
+        assertEquals(0, stats.p50Nanos());
+    }
+}
@@ -0,0 +1,97 @@
+package com.sauceLabs.common.utils.timer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * bucket layout and percentiles of LatencyRecorder
+ *
+ * @author MahmoudOsama
+ */
+class LatencyRecorderTest {
+
+    @Test
+    void smallValuesHaveExactBuckets() {
+        for (long nanos = 0; nanos < 64; nanos++) {
+            assertEquals(nanos, LatencyRecorder.upperBound(LatencyRecorder.bucket(nanos)));
+        }
+    }
+
+    @Test
+    void upperBoundIsTheLastValueOfTheBucket() {
+        int previous = -1;
+        for (int shift = 5; shift < 44; shift++) {
+            for (long nanos : new long[]{1L << shift, (1L << shift) + 1, (3L << shift) / 2, (1L << (shift + 1)) - 1}) {
+                int bucket = LatencyRecorder.bucket(nanos);
+                long upperBound = LatencyRecorder.upperBound(bucket);
+                assertTrue(upperBound >= nanos, nanos + " is above the bound " + upperBound);
+                assertEquals(bucket, LatencyRecorder.bucket(upperBound), "bound of bucket " + bucket);
+                if (upperBound + 1 < 1L << 44) {
+                    assertEquals(bucket + 1, LatencyRecorder.bucket(upperBound + 1), "value after the bound of bucket " + bucket);
+                }
+                // 32 sub buckets per power of two keep the bound within 1/32 of the value
+                assertTrue(upperBound - nanos <= nanos / 32, nanos + " is too far from the bound " + upperBound);
+                assertTrue(bucket >= previous, "buckets grow with the value");
+                previous = bucket;
+            }
+        }
+    }
+
+    @Test
+    void valuesAboveTheRangeShareTheLastBucket() {
+        int last = LatencyRecorder.bucket((1L << 44) - 1);
+        assertEquals(last, LatencyRecorder.bucket(1L << 44));
+        assertEquals(last, LatencyRecorder.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void statsReportPercentilesWithinTheBucketError() {
+        LatencyRecorder recorder = new LatencyRecorder("test");
+        for (long millis = 1; millis <= 1000; millis++) {
+            recorder.record(millis * 1_000_000);
+        }
+        LatencyRecorder.Stats stats = recorder.stats();
+        assertEquals(1000, stats.count());
+        assertEquals(1_000_000, stats.minNanos());
+        assertEquals(1_000_000_000, stats.maxNanos());
+        assertEquals(500.5e6, stats.meanNanos(), 1);
+        assertWithin(500e6, stats.p50Nanos());
+        assertWithin(900e6, stats.p90Nanos());
+        assertWithin(990e6, stats.p99Nanos());
+        assertWithin(999e6, stats.p999Nanos());
+    }
+
+    @Test
+    void statsMergeEveryThread() throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder("test");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    recorder.record(1000);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        try (LatencyRecorder.Scope ignored = recorder.time()) {
+            assertEquals(40_000, recorder.stats().count());
+        }
+        assertEquals(40_001, recorder.stats().count());
+    }
+
+    @Test
+    void emptyRecorderHasZeroStats() {
+        LatencyRecorder.Stats stats = new LatencyRecorder("test").stats();
+        assertEquals(0, stats.count());
+        assertEquals(0, stats.p99Nanos());
+    }
+
+    private static void assertWithin(double expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * (1 + 1.0 / 32), actual + " is not within 1/32 above " + expected);
+    }
+}
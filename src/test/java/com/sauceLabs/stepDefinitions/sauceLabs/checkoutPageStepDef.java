@@ -9,9 +9,7 @@ public class checkoutPageStepDef extends BaseWebDriver {
 
     @Then("user fills required data for checkout")
     public void fillCheckoutData() {
-        checkoutPage.setFirstName();
-        checkoutPage.setlastName();
-        checkoutPage.setPostalCode();
+        checkoutPage.fillCheckoutData();
     }
 
 
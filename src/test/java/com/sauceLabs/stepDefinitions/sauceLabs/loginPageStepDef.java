@@ -44,8 +44,7 @@ public class loginPageStepDef extends BaseWebDriver {
     public void setUserNameAndPassword(){
         jsUtils.waitDocumentReady();
         loginPage.userOnLoginPage();
-        loginPage.enterName();
-        loginPage.enterPassword();
+        loginPage.enterCredentials();
         loginPage.clickLogin();
         jsUtils.waitDocumentReady();
     }